@@ -42,6 +42,7 @@ package com.sun.codemodel;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -50,6 +51,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.sun.codemodel.writer.FileCodeWriter;
 import com.sun.codemodel.writer.ProgressCodeWriter;
@@ -145,7 +154,7 @@ public final class JCodeModel {
      *
      * @return Newly generated package
      */
-    public JPackage _package(String name) {
+    public synchronized JPackage _package(String name) {
         JPackage p = packages.get(name);
         if (p == null) {
             p = new JPackage(name, this);
@@ -363,6 +372,103 @@ public final class JCodeModel {
         resource.close();
     }
 
+    /**
+     * Generates Java source code, formatting the classes on the given number of threads.
+     *
+     * <p>
+     * Each class is formatted into memory by its own {@link JFormatter}, and the
+     * files are then written from the calling thread, in the same order and with
+     * the same content as {@link #build(CodeWriter, CodeWriter)}. So the
+     * {@link CodeWriter}s need not be thread-safe.
+     *
+     * <p>
+     * The code model must not be modified while this method runs.
+     *
+     * @param threads
+     *      number of threads that format classes. 1 or less is the same as
+     *      {@link #build(CodeWriter, CodeWriter)}.
+     */
+    public void build( CodeWriter source, CodeWriter resource, int threads ) throws IOException {
+        if(threads<=1) {
+            build(source,resource);
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r,"codemodel-build");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            // formatted classes wait here to be written in order. the bound keeps
+            // the formatters from running too far ahead of the writer.
+            BlockingQueue<Pending> pending = new ArrayBlockingQueue<>(threads*4);
+
+            JPackage[] pkgs = packages.values().toArray(new JPackage[packages.size()]);
+            for( JPackage pkg : pkgs ) {
+                for( final JDefinedClass c : pkg.visibleClasses() ) {
+                    if(pending.remainingCapacity()==0)
+                        pending.remove().write(source,resource);
+                    pending.add(new Pending(pkg,c,pool.submit(new Callable<String>() {
+                        public String call() {
+                            return JPackage.format(c);
+                        }
+                    })));
+                }
+                if(pending.remainingCapacity()==0)
+                    pending.remove().write(source,resource);
+                pending.add(new Pending(pkg,null,null));
+            }
+            while(!pending.isEmpty())
+                pending.remove().write(source,resource);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (module != null) {
+            module.build(source);
+        }
+        source.close();
+        resource.close();
+    }
+
+    /**
+     * A class being formatted, or the rest of a package once all its classes are written.
+     */
+    private static final class Pending {
+        private final JPackage pkg;
+        private final JDefinedClass clazz;
+        private final Future<String> source;
+
+        Pending(JPackage pkg, JDefinedClass clazz, Future<String> source) {
+            this.pkg = pkg;
+            this.clazz = clazz;
+            this.source = source;
+        }
+
+        void write(CodeWriter src, CodeWriter res) throws IOException {
+            if(clazz==null) {
+                pkg.buildResources(src,res);
+                return;
+            }
+            try {
+                pkg.writeSource(src,clazz,source.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if(t instanceof RuntimeException)
+                    throw (RuntimeException)t;
+                if(t instanceof Error)
+                    throw (Error)t;
+                throw new IOException(t);
+            }
+        }
+    }
+
     /**
      * Returns the number of files to be generated if
      * {@link #build} is invoked now.
@@ -385,7 +491,7 @@ public final class JCodeModel {
      *
      * @see #_ref(Class) for the version that handles more cases.
      */
-    public JClass ref(Class<?> clazz) {
+    public synchronized JClass ref(Class<?> clazz) {
         JReferencedClass jrc = (JReferencedClass)refClasses.get(clazz);
         if (jrc == null) {
             if (clazz.isPrimitive())
@@ -46,6 +46,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
@@ -452,6 +453,46 @@ public final class JPackage implements JDeclaration, JGenerable, JClassContainer
             f.close();
         }
 
+        buildResources(src,res);
+    }
+
+    /**
+     * Classes that {@link #build(CodeWriter, CodeWriter)} writes, in that order.
+     */
+    List<JDefinedClass> visibleClasses() {
+        List<JDefinedClass> r = new ArrayList<JDefinedClass>(classes.size());
+        for (JDefinedClass c : classes.values()) {
+            if (!c.isHidden())
+                r.add(c);
+        }
+        return r;
+    }
+
+    /**
+     * Formats a class of this package into memory.
+     * Can be called from any thread as long as the code model isn't modified.
+     */
+    static String format(JDefinedClass c) {
+        StringWriter sw = new StringWriter();
+        JFormatter f = new JFormatter(new PrintWriter(sw));
+        f.write(c);
+        f.close();
+        return sw.toString();
+    }
+
+    /**
+     * Writes a class formatted by {@link #format(JDefinedClass)}.
+     */
+    void writeSource(CodeWriter src, JDefinedClass c, String source) throws IOException {
+        Writer w = new BufferedWriter(src.openSource(this,c.name()+".java"));
+        w.write(source);
+        w.close();
+    }
+
+    /**
+     * Writes the package annotations and resources, which follow the classes.
+     */
+    void buildResources( CodeWriter src, CodeWriter res ) throws IOException {
         // write package annotations
         if(annotations!=null || jdoc!=null) {
             JFormatter f = createJavaSourceFileWriter(src,"package-info");
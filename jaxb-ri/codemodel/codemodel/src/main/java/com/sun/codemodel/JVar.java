@@ -111,6 +111,17 @@ public class JVar extends JExpressionImpl implements JDeclaration, JAssignmentTa
         return this;
     }
 
+    /**
+     * Gets the expression this variable is initialized with.
+     *
+     * @return
+     *      null if the variable isn't initialized.
+     * @since 2.4.0
+     */
+    public JExpression init() {
+        return init;
+    }
+
     /**
      * Get the name of this variable
      *
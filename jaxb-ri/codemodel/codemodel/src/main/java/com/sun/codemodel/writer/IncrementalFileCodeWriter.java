@@ -0,0 +1,238 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.codemodel.writer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+/**
+ * Writes the source files under the specified folder, but leaves alone
+ * the files whose content didn't change since the previous run.
+ *
+ * <p>
+ * Untouched files keep their timestamps, so that incremental compilers
+ * downstream only see the classes that actually changed. A leading block
+ * of {@code //} comments, such as the prolog with the generation timestamp
+ * that {@link PrologCodeWriter} adds, is not compared.
+ *
+ * <p>
+ * The files written by the runs are listed in {@link #INDEX_FILE} in the
+ * target folder. Files that a previous run wrote in a package this run
+ * writes to, but that this run didn't write, are deleted, so classes removed
+ * from the model don't linger. Files in other packages are left alone, so
+ * runs that generate different packages can share the target folder.
+ *
+ * @since 2.4.0
+ */
+public class IncrementalFileCodeWriter extends CodeWriter {
+
+    /**
+     * Name of the file, relative to the target folder, that lists the generated files.
+     */
+    public static final String INDEX_FILE = ".codemodel-files";
+
+    /** The target directory to put source code. */
+    private final File target;
+
+    /** specify whether or not to mark the generated files read-only */
+    private final boolean readOnly;
+
+    /** Paths of the files of this run, relative to {@link #target}. */
+    private final Set<String> files = new LinkedHashSet<>();
+
+    /** Files that shall be marked as read only. */
+    private final Set<File> readonlyFiles = new HashSet<>();
+
+    private int updated;
+
+    public IncrementalFileCodeWriter( File target, boolean readOnly, String encoding ) throws IOException {
+        this.target = target;
+        this.readOnly = readOnly;
+        this.encoding = encoding;
+        if(!target.exists() || !target.isDirectory())
+            throw new IOException(target + ": non-existent directory");
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) throws IOException {
+        final String path;
+        if(pkg == null || pkg.isUnnamed())
+            path = fileName;
+        else
+            path = pkg.name().replace('.','/') + '/' + fileName;
+
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if(closed)  return;
+                closed = true;
+                store(path, toByteArray());
+            }
+        };
+    }
+
+    /**
+     * Number of files that were created or changed so far.
+     */
+    public int getUpdatedCount() {
+        return updated;
+    }
+
+    /**
+     * Number of files that were found unchanged so far.
+     */
+    public int getUnchangedCount() {
+        return files.size() - updated;
+    }
+
+    private void store(String path, byte[] data) throws IOException {
+        File fn = new File(target, path);
+        files.add(path);
+        if(readOnly)    readonlyFiles.add(fn);
+
+        if(fn.exists()) {
+            if(sameContent(Files.readAllBytes(fn.toPath()), data))
+                return;
+            if (!fn.delete())
+                throw new IOException(fn + ": Can't delete previous version");
+        } else {
+            File dir = fn.getParentFile();
+            if(!dir.exists())   dir.mkdirs();
+        }
+
+        try (OutputStream os = new FileOutputStream(fn)) {
+            os.write(data);
+        }
+        updated++;
+    }
+
+    /**
+     * Gets the folder of the file, which is its package for the source files.
+     */
+    private static String getPackage(String path) {
+        int idx = path.lastIndexOf('/');
+        return idx<0 ? "" : path.substring(0,idx);
+    }
+
+    private static boolean sameContent(byte[] a, byte[] b) {
+        int i = skipComments(a);
+        int j = skipComments(b);
+        if(a.length-i != b.length-j)
+            return false;
+        for( ; i<a.length; i++, j++ )
+            if(a[i]!=b[j])
+                return false;
+        return true;
+    }
+
+    /**
+     * Skips the leading lines that start with "//", and the empty line after them.
+     */
+    private static int skipComments(byte[] b) {
+        int i = 0;
+        while(i+1<b.length && b[i]=='/' && b[i+1]=='/') {
+            while(i<b.length && b[i++]!='\n')
+                ;
+        }
+        if(i>0) {
+            if(i<b.length && b[i]=='\r')    i++;
+            if(i<b.length && b[i]=='\n')    i++;
+        }
+        return i;
+    }
+
+    @Override
+    public void close() throws IOException {
+        File index = new File(target, INDEX_FILE);
+
+        Set<String> packages = new HashSet<>();
+        for (String path : files)
+            packages.add(getPackage(path));
+
+        // delete what the previous runs generated in our packages but this one didn't,
+        // and keep track of what they generated elsewhere
+        Set<String> others = new LinkedHashSet<>();
+        if(index.exists()) {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(index), "UTF-8"))) {
+                String path;
+                while((path=r.readLine())!=null) {
+                    if(path.length()==0 || files.contains(path))
+                        continue;
+                    File f = new File(target, path);
+                    if(!packages.contains(getPackage(path))) {
+                        if(f.exists())
+                            others.add(path);
+                    } else
+                    if(f.exists() && !f.delete())
+                        throw new IOException(f + ": Can't delete stale file");
+                }
+            }
+        }
+
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(index), "UTF-8")) {
+            for (String path : others)
+                w.write(path+'\n');
+            for (String path : files)
+                w.write(path+'\n');
+        }
+
+        // mark files as read-only if necessary
+        for (File f : readonlyFiles)
+            f.setReadOnly();
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.codemodel.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+/**
+ * Writes all the files into a zip file, compressing them on a thread pool.
+ *
+ * <p>
+ * Each file is buffered in memory when its stream is closed, and deflated by
+ * one of the threads. The compressed entries are written to the target stream
+ * in the order the files were opened, so the result has the same entries as
+ * {@link ZipCodeWriter}. Like other {@link CodeWriter}s, this class expects
+ * one file to be open at a time, and is meant to be used from a single thread.
+ *
+ * <p>
+ * The zip file can have up to 65535 entries and 4GB; larger output needs
+ * {@link ZipCodeWriter}.
+ *
+ * @since 2.4.0
+ */
+public class ParallelZipCodeWriter extends CodeWriter {
+
+    private final OutputStream target;
+
+    private final ExecutorService pool;
+
+    /**
+     * Entries being compressed, in the order they are to be written.
+     */
+    private final Deque<Future<Entry>> pending = new ArrayDeque<Future<Entry>>();
+
+    /**
+     * Bounds {@link #pending}, so that the compressed data doesn't pile up in memory.
+     */
+    private final int maxPending;
+
+    /**
+     * Entries already written, for the central directory.
+     */
+    private final List<Entry> written = new ArrayList<Entry>();
+
+    /**
+     * Number of bytes written to {@link #target} so far.
+     */
+    private long offset;
+
+    /**
+     * Modification time of all the entries, in the MS-DOS format.
+     */
+    private final int dosTime;
+
+    /**
+     * @param target
+     *      Zip file will be written to this stream.
+     * @param threads
+     *      number of threads that compress the files.
+     */
+    public ParallelZipCodeWriter( OutputStream target, int threads ) {
+        this.target = target;
+        this.maxPending = Math.max(threads,1)*4;
+        this.pool = Executors.newFixedThreadPool(Math.max(threads,1), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r,"codemodel-zip");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        Calendar c = Calendar.getInstance();
+        dosTime = (c.get(Calendar.YEAR)-1980)<<25 | (c.get(Calendar.MONTH)+1)<<21 | c.get(Calendar.DAY_OF_MONTH)<<16
+                | c.get(Calendar.HOUR_OF_DAY)<<11 | c.get(Calendar.MINUTE)<<5 | c.get(Calendar.SECOND)>>1;
+    }
+
+    @Override
+    public OutputStream openBinary(JPackage pkg, String fileName) throws IOException {
+        final String name = pkg == null || pkg.isUnnamed() ? fileName : toDirName(pkg)+fileName;
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+            @Override
+            public void close() throws IOException {
+                if(closed)  return;
+                closed = true;
+                // the buffer is handed over as is. this stream is never written again.
+                submit(name,buf,count);
+            }
+        };
+    }
+
+    /** Converts a package name to the directory name. */
+    private static String toDirName( JPackage pkg ) {
+        return pkg.name().replace('.','/')+'/';
+    }
+
+    private void submit(final String name, final byte[] data, final int len) throws IOException {
+        if(pending.size()>=maxPending)
+            write(pending.removeFirst());
+        pending.addLast(pool.submit(new Callable<Entry>() {
+            public Entry call() {
+                return new Entry(name,data,len);
+            }
+        }));
+    }
+
+    /**
+     * Writes the local header and the data of the entry.
+     */
+    private void write(Future<Entry> f) throws IOException {
+        Entry e;
+        try {
+            e = f.get();
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException x) {
+            Throwable t = x.getCause();
+            if(t instanceof RuntimeException)
+                throw (RuntimeException)t;
+            if(t instanceof Error)
+                throw (Error)t;
+            throw new IOException(t);
+        }
+
+        if(written.size()==0xFFFF || offset+30+e.name.length+e.length>0xFFFFFFFFL)
+            throw new ZipException("Too many files for a zip file without the ZIP64 extensions");
+
+        e.offset = offset;
+        byte[] h = new byte[30];
+        putInt(h,0,0x04034b50);
+        putShort(h,4,20);                   // version needed to extract
+        putShort(h,6,UTF8_FLAG);
+        putShort(h,8,e.method);
+        putInt(h,10,dosTime);
+        putInt(h,14,e.crc);
+        putInt(h,18,e.length);
+        putInt(h,22,e.size);
+        putShort(h,26,e.name.length);
+        putShort(h,28,0);                   // extra field length
+        target.write(h);
+        target.write(e.name);
+        target.write(e.data,0,e.length);
+        offset += h.length+e.name.length+e.length;
+
+        e.data = null;  // no longer needed
+        written.add(e);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // JCodeModel closes the same writer as the source and the resource writer
+        if(pool.isShutdown())
+            return;
+        try {
+            while(!pending.isEmpty())
+                write(pending.removeFirst());
+
+            // central directory
+            long start = offset;
+            for (Entry e : written) {
+                byte[] h = new byte[46];
+                putInt(h,0,0x02014b50);
+                putShort(h,4,20);           // version made by
+                putShort(h,6,20);           // version needed to extract
+                putShort(h,8,UTF8_FLAG);
+                putShort(h,10,e.method);
+                putInt(h,12,dosTime);
+                putInt(h,16,e.crc);
+                putInt(h,20,e.length);
+                putInt(h,24,e.size);
+                putShort(h,28,e.name.length);
+                // extra field, comment, disk number, attributes are all zero
+                putInt(h,42,(int)e.offset);
+                target.write(h);
+                target.write(e.name);
+                offset += h.length+e.name.length;
+            }
+            if(offset>0xFFFFFFFFL)
+                throw new ZipException("Too many files for a zip file without the ZIP64 extensions");
+
+            byte[] end = new byte[22];
+            putInt(end,0,0x06054b50);
+            putShort(end,8,written.size());     // entries on this disk
+            putShort(end,10,written.size());    // total entries
+            putInt(end,12,(int)(offset-start));
+            putInt(end,16,(int)start);
+            target.write(end);
+            target.close();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void putShort(byte[] b, int i, int v) {
+        b[i]   = (byte)v;
+        b[i+1] = (byte)(v>>8);
+    }
+
+    private static void putInt(byte[] b, int i, int v) {
+        putShort(b,i,v);
+        putShort(b,i+2,v>>16);
+    }
+
+    /**
+     * General purpose flag that says the names are in UTF-8.
+     */
+    private static final int UTF8_FLAG = 0x0800;
+
+    /**
+     * A file compressed by one of the threads.
+     */
+    private static final class Entry {
+        final byte[] name;
+        final int crc;
+        final int size;
+        final int method;
+        /**
+         * Compressed data, or the file itself if it didn't get smaller.
+         * Null once written.
+         */
+        byte[] data;
+        final int length;
+        long offset;
+
+        Entry(String name, byte[] buf, int len) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.size = len;
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(buf,0,len);
+            this.crc = (int)crc32.getValue();
+
+            Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION,true);
+            byte[] out = new byte[len/2+64];
+            int n = 0;
+            try {
+                d.setInput(buf,0,len);
+                d.finish();
+                while(!d.finished() && n<len) {
+                    if(n==out.length)
+                        out = Arrays.copyOf(out,out.length*2);
+                    n += d.deflate(out,n,out.length-n);
+                }
+            } finally {
+                d.end();
+            }
+
+            if(n<len) {
+                method = 8;     // DEFLATED
+                data = out;
+                length = n;
+            } else {
+                method = 0;     // STORED
+                data = buf;
+                length = len;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.codemodel.tests;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.writer.IncrementalFileCodeWriter;
+import com.sun.codemodel.writer.PrologCodeWriter;
+import junit.framework.TestCase;
+
+public class IncrementalFileCodeWriterTest extends TestCase {
+
+    private static JCodeModel model(int classes, int firstValue) throws Exception {
+        return model("p", classes, firstValue);
+    }
+
+    private static JCodeModel model(String pkg, int classes, int firstValue) throws Exception {
+        JCodeModel cm = new JCodeModel();
+        for (int i = 0; i < classes; i++) {
+            JDefinedClass c = cm._class(pkg + ".C" + i);
+            c.method(JMod.PUBLIC, cm.INT, "m").body()._return(JExpr.lit(i == 0 ? firstValue : i));
+        }
+        return cm;
+    }
+
+    public void testOnlyChangedFilesAreWritten() throws Exception {
+        File dir = Files.createTempDirectory("codemodel").toFile();
+        model(3, 0).build(new PrologCodeWriter(new IncrementalFileCodeWriter(dir, false, null), "first run\n"));
+
+        File c0 = new File(dir, "p/C0.java");
+        File c1 = new File(dir, "p/C1.java");
+        assertTrue(c0.setLastModified(1000L));
+        assertTrue(c1.setLastModified(1000L));
+
+        IncrementalFileCodeWriter w = new IncrementalFileCodeWriter(dir, false, null);
+        model(2, 5).build(new PrologCodeWriter(w, "second run\n"));
+
+        assertEquals(1, w.getUpdatedCount());
+        assertEquals(1, w.getUnchangedCount());
+        assertTrue(c0.lastModified() != 1000L);
+        assertEquals(1000L, c1.lastModified());
+        assertFalse(new File(dir, "p/C2.java").exists());
+    }
+
+    /**
+     * Runs that generate different packages in the same folder don't delete each other's files.
+     */
+    public void testRunsSharingTheFolder() throws Exception {
+        File dir = Files.createTempDirectory("codemodel").toFile();
+        model("a", 2, 0).build(new IncrementalFileCodeWriter(dir, false, null));
+        model("b", 2, 0).build(new IncrementalFileCodeWriter(dir, false, null));
+        assertTrue(new File(dir, "a/C1.java").exists());
+        assertTrue(new File(dir, "b/C1.java").exists());
+
+        // both runs again, each with a class less
+        model("a", 1, 0).build(new IncrementalFileCodeWriter(dir, false, null));
+        assertFalse(new File(dir, "a/C1.java").exists());
+        assertTrue(new File(dir, "b/C1.java").exists());
+        IncrementalFileCodeWriter w = new IncrementalFileCodeWriter(dir, false, null);
+        model("b", 1, 0).build(w);
+        assertEquals(0, w.getUpdatedCount());
+        assertTrue(new File(dir, "a/C0.java").exists());
+        assertTrue(new File(dir, "b/C0.java").exists());
+        assertFalse(new File(dir, "b/C1.java").exists());
+
+        // the index still knows the files of both runs
+        model("a", 2, 0).build(new IncrementalFileCodeWriter(dir, false, null));
+        model("a", 1, 0).build(new IncrementalFileCodeWriter(dir, false, null));
+        assertFalse(new File(dir, "a/C1.java").exists());
+        assertTrue(new File(dir, "b/C0.java").exists());
+    }
+}
@@ -40,7 +40,19 @@
 
 package com.sun.codemodel.tests;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.writer.SingleStreamCodeWriter;
 import junit.framework.TestCase;
 
 /**
@@ -52,4 +64,25 @@ public class JCodeModelTest extends TestCase {
         cm.parseType("java.util.ArrayList<java.lang.String[]>[]");
     }
 
+    public void testParallelBuild() throws Exception {
+        JCodeModel cm = new JCodeModel();
+        for (int p = 0; p < 5; p++) {
+            JPackage pkg = cm._package("p" + p);
+            pkg.annotate(Deprecated.class);
+            for (int i = 0; i < 20; i++) {
+                JDefinedClass c = pkg._class("C" + i);
+                JMethod m = c.method(JMod.PUBLIC, Map.class, "m");
+                m.param(List.class, "l");
+                m.body()._return(JExpr._new(cm.ref(HashMap.class)));
+            }
+        }
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        cm.build(new SingleStreamCodeWriter(sequential));
+        SingleStreamCodeWriter cw = new SingleStreamCodeWriter(parallel);
+        cm.build(cw, cw, 4);
+        assertTrue(Arrays.equals(sequential.toByteArray(), parallel.toByteArray()));
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.codemodel.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.writer.ParallelZipCodeWriter;
+import com.sun.codemodel.writer.ZipCodeWriter;
+import junit.framework.TestCase;
+
+public class ParallelZipCodeWriterTest extends TestCase {
+
+    private static JCodeModel model() throws Exception {
+        JCodeModel cm = new JCodeModel();
+        for (int i = 0; i < 50; i++) {
+            JDefinedClass c = cm._class("p" + (i % 3) + ".C" + i);
+            for (int j = 0; j < i; j++)
+                c.method(JMod.PUBLIC, cm.INT, "m" + j).body()._return(JExpr.lit(j));
+        }
+        cm._class("Empty");
+        return cm;
+    }
+
+    private static Map<String, String> read(byte[] zip) throws Exception {
+        Map<String, String> r = new LinkedHashMap<String, String>();
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip));
+        ZipEntry e;
+        byte[] buf = new byte[4096];
+        while ((e = in.getNextEntry()) != null) {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            int n;
+            while ((n = in.read(buf)) > 0)
+                data.write(buf, 0, n);
+            r.put(e.getName(), data.toString("UTF-8"));
+        }
+        in.close();
+        return r;
+    }
+
+    public void testSameEntriesAsZipCodeWriter() throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        model().build(new ZipCodeWriter(expected));
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        model().build(new ParallelZipCodeWriter(actual, 4));
+
+        Map<String, String> entries = read(actual.toByteArray());
+        Map<String, String> expectedEntries = read(expected.toByteArray());
+        assertEquals(51, entries.size());
+        assertEquals(expectedEntries, entries);
+        // the order is kept as well
+        assertEquals(expectedEntries.keySet().toString(), entries.keySet().toString());
+    }
+}
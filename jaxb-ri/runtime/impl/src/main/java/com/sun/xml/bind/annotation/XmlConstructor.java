@@ -0,0 +1,79 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.lang.annotation.ElementType.CONSTRUCTOR;
+
+/**
+ * Designates the constructor that creates an immutable JAXB-bound class.
+ *
+ * <p>
+ * The JAXB RI still unmarshals the properties of such a class into an
+ * instance created by the no-argument constructor, but once the element ends
+ * it reads the fields named by {@link #value()} off that instance and passes
+ * them to this constructor. The object created by the constructor is the one
+ * that is set to the parent object and returned to the application, so the
+ * class can keep its fields {@code final}.
+ *
+ * <p>
+ * Classes with ID or IDREF properties are not supported; the annotation is
+ * ignored for them. {@link javax.xml.bind.Binder} associates the XML with the
+ * object created by the constructor, but can't update it in place, so it
+ * creates a new one each time.
+ *
+ * <p>
+ * Such constructors are normally generated by XJC with the <tt>-Ximmutable</tt> option.
+ * Other JAXB implementations simply ignore this annotation.
+ *
+ * @since 2.4.0
+ */
+@Retention(RUNTIME) @Target({CONSTRUCTOR})
+public @interface XmlConstructor {
+    /**
+     * Names of the fields passed to the constructor, in the order of its parameters.
+     * Fields declared on the super classes can be listed as well.
+     */
+    String[] value();
+}
@@ -0,0 +1,149 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.api;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+
+/**
+ * Receives measurements of the marshalling and unmarshalling done by a {@link JAXBContext}.
+ *
+ * <p>
+ * <b>THIS CLASS IS SUBJECT TO CHANGE WITHOUT NOTICE.</b>
+ *
+ * <p>
+ * An {@link Instrumentation} instance can be specified on {@link JAXBContext} via
+ * {@link JAXBRIContext#INSTRUMENTATION} as follows, and applies to all the
+ * {@link Marshaller}s and {@link Unmarshaller}s created from that context:
+ *
+ * <pre>
+ * Map&lt;String,Object&gt; props = new HashMap&lt;String,Object&gt;();
+ * props.put( JAXBRIContext.INSTRUMENTATION, new MyMetricsSink() );
+ * JAXBContext context = JAXBContext.newInstance( classes, props );
+ * </pre>
+ *
+ * <p>
+ * When no {@link Instrumentation} is set, the runtime skips all the measurements,
+ * so there's no cost associated with this feature unless it's turned on.
+ * When it's set, the runtime calls methods on this class from the hot paths,
+ * so implementations should do little more than update counters, and
+ * they must be thread-safe, as they are called concurrently by all the marshallers
+ * and unmarshallers of the context.
+ *
+ * <p>
+ * All the methods do nothing by default, so that the implementation only needs to
+ * override the events it's interested in.
+ *
+ * @since 2.4.0
+ */
+public abstract class Instrumentation {
+    /**
+     * Called when a marshal operation completes successfully.
+     *
+     * @param durationNanos
+     *      Elapsed time of the whole operation, in nanoseconds.
+     * @param bytesWritten
+     *      Number of bytes written, or -1 if the output is not a byte stream.
+     * @param elementCount
+     *      Number of elements written.
+     */
+    public void marshalled(long durationNanos, long bytesWritten, int elementCount) {}
+
+    /**
+     * Called when an unmarshal operation completes successfully.
+     *
+     * @param durationNanos
+     *      Elapsed time of the whole operation, in nanoseconds.
+     * @param bytesRead
+     *      Number of bytes read, or -1 if the input is not a byte stream.
+     * @param elementCount
+     *      Number of elements read.
+     */
+    public void unmarshalled(long durationNanos, long bytesRead, int elementCount) {}
+
+    /**
+     * Called for every object of a bound class that gets marshalled.
+     *
+     * @param type
+     *      The bound class of the object.
+     */
+    public void beanMarshalled(Class<?> type) {}
+
+    /**
+     * Called for every object of a bound class that gets created by the unmarshaller.
+     *
+     * @param type
+     *      The bound class of the object.
+     */
+    public void beanUnmarshalled(Class<?> type) {}
+
+    /**
+     * Called for every {@link XmlAdapter#marshal(Object)} or {@link XmlAdapter#unmarshal(Object)}
+     * invocation made by the runtime on behalf of the bound classes.
+     *
+     * @param adapterType
+     *      The adapter class.
+     * @param durationNanos
+     *      Time spent in the adapter, in nanoseconds.
+     */
+    public void adapterInvoked(Class<? extends XmlAdapter> adapterType, long durationNanos) {}
+
+    /**
+     * Called once per unmarshal operation after ID/IDREF references are resolved at the end of the document.
+     *
+     * @param referenceCount
+     *      Number of references that were resolved.
+     * @param durationNanos
+     *      Time spent resolving them, in nanoseconds.
+     */
+    public void referencesResolved(int referenceCount, long durationNanos) {}
+
+    /**
+     * Called once per unmarshal operation when the unmarshaller validates the input
+     * ({@link Unmarshaller#setSchema(javax.xml.validation.Schema)}.)
+     *
+     * @param durationNanos
+     *      Time spent in the validator, in nanoseconds.
+     */
+    public void validated(long durationNanos) {}
+}
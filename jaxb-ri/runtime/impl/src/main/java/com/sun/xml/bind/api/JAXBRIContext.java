@@ -558,4 +558,13 @@ public abstract class JAXBRIContext extends JAXBContext {
      */
     public static final String BACKUP_WITH_PARENT_NAMESPACE = "com.sun.xml.bind.backupWithParentNamespace";
 
+    /**
+     * The property that you can specify to {@link JAXBContext#newInstance}
+     * to receive measurements of marshalling and unmarshalling.
+     *
+     * {@link Instrumentation}
+     * @since 2.4.0
+     */
+    public static final String INSTRUMENTATION = "com.sun.xml.bind.instrumentation";
+
 }
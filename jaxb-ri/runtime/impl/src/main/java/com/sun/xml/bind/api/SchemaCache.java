@@ -0,0 +1,502 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.SchemaOutputResolver;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import com.sun.xml.bind.v2.util.XmlFactory;
+
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compiles W3C XML Schemas once and shares the resulting {@link Schema} objects.
+ *
+ * <p>
+ * {@link Schema} is thread-safe, so one instance can be set on any number of
+ * {@link Marshaller}s and {@link Unmarshaller}s, even across {@link JAXBContext}s.
+ * This class makes sure that each schema is compiled only once per VM,
+ * by {@link SchemaFactory}s that are reused for all the compilations:
+ *
+ * <pre>
+ * Schema schema = SchemaCache.getDefault().getSchema(new StreamSource(url));
+ * unmarshaller.setSchema(schema);
+ * </pre>
+ *
+ * <p>
+ * Schemas are cached by the content of the given sources, which each call reads
+ * from their streams or from their system IDs, and by the URIs of the documents
+ * they include, import or redefine. The referenced documents themselves are only
+ * read by the {@link SchemaFactory} when the schema is compiled, subject to the
+ * {@code javax.xml.accessExternalSchema} restriction. So a schema is compiled again
+ * when one of the given documents changes, but not when only a document they
+ * refer to does; call {@link #clear()} for that.
+ * The schema generated from a {@link JAXBContext} can also be compiled in memory,
+ * without going through files, by {@link #getSchema(JAXBContext)}.
+ *
+ * <p>
+ * This class is thread-safe.
+ *
+ * @since 2.4.0
+ */
+public final class SchemaCache {
+
+    private static final SchemaCache DEFAULT = new SchemaCache();
+
+    /**
+     * Base URI of the schema documents generated from {@link JAXBContext}s,
+     * which never leave the memory.
+     */
+    private static final String GENERATED = "jaxb:/generated/";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /*
+     * Both maps are only accessed while locking them.
+     */
+    private final Map<String,FutureTask<Schema>> bySources = new HashMap<String,FutureTask<Schema>>();
+    private final Map<JAXBContext,FutureTask<Schema>> byContext = new WeakHashMap<JAXBContext,FutureTask<Schema>>();
+
+    /**
+     * {@link SchemaFactory}s that aren't in use.
+     * A factory isn't thread-safe, so each compilation takes one from here and puts it back after.
+     */
+    private final Queue<SchemaFactory> factories = new ConcurrentLinkedQueue<SchemaFactory>();
+
+    /**
+     * Creates a cache that is independent from {@link #getDefault() the default one}.
+     */
+    public SchemaCache() {
+    }
+
+    /**
+     * Gets the instance shared by the whole VM.
+     */
+    public static SchemaCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets the {@link Schema} compiled from the given schema documents.
+     *
+     * <p>
+     * Only {@link StreamSource}s are cached. A schema compiled from other kinds of
+     * {@link Source}s, alone or together with {@link StreamSource}s, is returned as is.
+     *
+     * @throws SAXException
+     *      if the schema is invalid.
+     * @throws IOException
+     *      if the content of a source fails to be read.
+     */
+    public Schema getSchema(Source... sources) throws SAXException, IOException {
+        for (Source s : sources) {
+            if(!(s instanceof StreamSource))
+                return compile(sources,null);
+        }
+
+        final Source[] copy = new Source[sources.length];
+        // the sources by their system IDs, for when they refer to each other
+        final Map<String,Input> docs = new HashMap<String,Input>();
+        StringBuilder key = new StringBuilder();
+        for( int i=0; i<sources.length; i++ )
+            copy[i] = buffer((StreamSource)sources[i],key,docs);
+
+        return get(bySources,key.toString(),new Callable<Schema>() {
+            public Schema call() throws SAXException {
+                return compile(copy,new Resolver(docs));
+            }
+        });
+    }
+
+    /**
+     * Gets the {@link Schema} of the XML that the given {@link JAXBContext} handles.
+     *
+     * <p>
+     * The schema documents are generated by {@link JAXBContext#generateSchema(SchemaOutputResolver)}
+     * and compiled in memory. The result is cached for as long as the context is in use.
+     *
+     * @throws SAXException
+     *      if the generated schema fails to compile.
+     * @throws IOException
+     *      if the context fails to generate its schema.
+     */
+    public Schema getSchema(final JAXBContext context) throws SAXException, IOException {
+        return get(byContext,context,new Callable<Schema>() {
+            public Schema call() throws SAXException, IOException {
+                return generate(context);
+            }
+        });
+    }
+
+    /**
+     * Discards all the cached schemas.
+     */
+    public void clear() {
+        synchronized(bySources) {
+            bySources.clear();
+        }
+        synchronized(byContext) {
+            byContext.clear();
+        }
+    }
+
+    /**
+     * Compiles the schema just once, even if many threads ask for it at the same time.
+     */
+    private static <K> Schema get(Map<K,FutureTask<Schema>> cache, K key, Callable<Schema> compiler) throws SAXException, IOException {
+        FutureTask<Schema> task;
+        boolean created = false;
+        synchronized(cache) {
+            task = cache.get(key);
+            if(task==null) {
+                task = new FutureTask<Schema>(compiler);
+                cache.put(key,task);
+                created = true;
+            }
+        }
+        if(created)
+            task.run();
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAXException(e);
+        } catch (ExecutionException e) {
+            // don't keep the failure, so that it can be retried
+            synchronized(cache) {
+                if(cache.get(key)==task)
+                    cache.remove(key);
+            }
+            Throwable t = e.getCause();
+            if(t instanceof SAXException)       throw (SAXException)t;
+            if(t instanceof IOException)        throw (IOException)t;
+            if(t instanceof RuntimeException)   throw (RuntimeException)t;
+            if(t instanceof Error)              throw (Error)t;
+            throw new SAXException((Exception)t);
+        }
+    }
+
+    private Schema compile(Source[] sources, LSResourceResolver resolver) throws SAXException {
+        SchemaFactory factory = factories.poll();
+        if(factory==null)
+            factory = XmlFactory.createSchemaFactory(XMLConstants.W3C_XML_SCHEMA_NS_URI,false);
+        factory.setResourceResolver(resolver);
+        try {
+            return factory.newSchema(sources);
+        } finally {
+            factory.setResourceResolver(null);
+            factories.add(factory);
+        }
+    }
+
+    private Schema generate(JAXBContext context) throws SAXException, IOException {
+        final Map<String,StringWriter> docs = new LinkedHashMap<String,StringWriter>();
+        context.generateSchema(new SchemaOutputResolver() {
+            @Override
+            public Result createOutput(String namespaceUri, String suggestedFileName) {
+                StringWriter w = new StringWriter();
+                StreamResult r = new StreamResult(w);
+                r.setSystemId(GENERATED+suggestedFileName);
+                docs.put(r.getSystemId(),w);
+                return r;
+            }
+        });
+
+        Map<String,Input> inputs = new HashMap<String,Input>();
+        List<Source> sources = new ArrayList<Source>(docs.size());
+        for (Map.Entry<String,StringWriter> e : docs.entrySet()) {
+            Input in = new Input(e.getKey(),null,e.getValue().toString());
+            inputs.put(e.getKey(),in);
+            sources.add(in.toSource());
+        }
+
+        // the generated documents import each other by relative URIs
+        return compile(sources.toArray(new Source[sources.size()]),new Resolver(inputs));
+    }
+
+    /**
+     * Reads the content of the source into memory, so that it can be digested
+     * and then parsed, and appends the cache key of the source to {@code key}.
+     *
+     * @param docs
+     *      receives the documents that are read, by their URIs.
+     */
+    private static StreamSource buffer(StreamSource s, StringBuilder key, Map<String,Input> docs) throws IOException {
+        String systemId = s.getSystemId();
+        Input doc;
+        if(s.getReader()!=null) {
+            CharArrayWriter w = new CharArrayWriter();
+            char[] buf = new char[8192];
+            int len;
+            while((len=s.getReader().read(buf))>=0)
+                w.write(buf,0,len);
+            doc = new Input(systemId,s.getPublicId(),w.toString());
+        } else if(s.getInputStream()!=null) {
+            doc = new Input(systemId,s.getPublicId(),readAll(s.getInputStream()));
+        } else if(systemId!=null) {
+            doc = new Input(systemId,s.getPublicId(),fetch(systemId));
+        } else {
+            key.append("null#\n");
+            return s;   // nothing to read. let the parser report it
+        }
+
+        appendKey(key,doc);
+        if(systemId!=null)
+            docs.put(systemId,doc);
+        // the referenced documents are left to the SchemaFactory, on a cache miss
+        for (String location : findReferences(doc))
+            key.append(resolve(systemId,location)).append('\n');
+        return doc.toSource();
+    }
+
+    /**
+     * Lists the {@code schemaLocation}s of the include, import, redefine and override
+     * elements of the given schema document.
+     */
+    private static List<String> findReferences(Input doc) {
+        final List<String> locations = new ArrayList<String>();
+        try {
+            XMLReader reader = XmlFactory.createParserFactory(false).newSAXParser().getXMLReader();
+            reader.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes atts) {
+                    if(!XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(uri))
+                        return;
+                    if(localName.equals("include") || localName.equals("import")
+                    || localName.equals("redefine") || localName.equals("override")) {
+                        String location = atts.getValue("schemaLocation");
+                        if(location!=null)
+                            locations.add(location.trim());
+                    }
+                }
+            });
+            // external DTDs and entities don't matter here
+            reader.setEntityResolver(new EntityResolver() {
+                public InputSource resolveEntity(String publicId, String systemId) {
+                    return new InputSource(new StringReader(""));
+                }
+            });
+            reader.parse(doc.toInputSource());
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        } catch (SAXException e) {
+            // not well-formed. the parser will report it when compiling
+        } catch (IOException e) {
+            // can't happen, the document is in memory
+            throw new AssertionError(e);
+        }
+        return locations;
+    }
+
+    /**
+     * Resolves a reference the way {@link Resolver} receives it from the {@link SchemaFactory}.
+     */
+    private static String resolve(String base, String location) {
+        if(base==null)
+            return location;
+        try {
+            URI b = new URI(base);
+            if(!b.isOpaque())
+                return b.resolve(location).toString();
+            // such as jar:file:/...!/a.xsd
+            return new URL(new URL(base),location).toString();
+        } catch (URISyntaxException e) {
+            return location;
+        } catch (MalformedURLException e) {
+            return location;
+        }
+    }
+
+    private static byte[] fetch(String uri) throws IOException {
+        InputStream in = new URL(uri).openStream();
+        try {
+            return readAll(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int len;
+        while((len=in.read(buf))>=0)
+            baos.write(buf,0,len);
+        return baos.toByteArray();
+    }
+
+    private static void appendKey(StringBuilder key, Input doc) {
+        key.append(doc.systemId).append('#');
+        byte[] content = doc.bytes!=null ? doc.bytes : doc.data.getBytes(UTF8);
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);    // every JRE has SHA-256
+        }
+        for (byte b : digest)
+            key.append(Character.forDigit((b>>4)&0xF,16)).append(Character.forDigit(b&0xF,16));
+        key.append('\n');
+    }
+
+    /**
+     * Gives the {@link SchemaFactory} the documents that were read beforehand.
+     * The others are read by the {@link SchemaFactory} itself.
+     */
+    private static final class Resolver implements LSResourceResolver {
+        private final Map<String,Input> docs;
+
+        Resolver(Map<String,Input> docs) {
+            this.docs = docs;
+        }
+
+        public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+            if(systemId==null)
+                return null;
+            return docs.get(resolve(baseURI,systemId));
+        }
+    }
+
+    /**
+     * {@link LSInput} of a schema document held in memory,
+     * either as characters or as bytes.
+     */
+    private static final class Input implements LSInput {
+        private final String systemId;
+        private final String publicId;
+        private final String data;
+        private final byte[] bytes;
+
+        Input(String systemId, String publicId, String data) {
+            this.systemId = systemId;
+            this.publicId = publicId;
+            this.data = data;
+            this.bytes = null;
+        }
+
+        Input(String systemId, String publicId, byte[] bytes) {
+            this.systemId = systemId;
+            this.publicId = publicId;
+            this.data = null;
+            this.bytes = bytes;
+        }
+
+        StreamSource toSource() {
+            StreamSource s = data!=null
+                ? new StreamSource(new StringReader(data))
+                : new StreamSource(new ByteArrayInputStream(bytes));
+            s.setSystemId(systemId);
+            s.setPublicId(publicId);
+            return s;
+        }
+
+        InputSource toInputSource() {
+            InputSource s = data!=null
+                ? new InputSource(new StringReader(data))
+                : new InputSource(new ByteArrayInputStream(bytes));
+            s.setSystemId(systemId);
+            s.setPublicId(publicId);
+            return s;
+        }
+
+        public Reader getCharacterStream() { return null; }
+        public void setCharacterStream(Reader characterStream) {}
+        public InputStream getByteStream() { return bytes!=null ? new ByteArrayInputStream(bytes) : null; }
+        public void setByteStream(InputStream byteStream) {}
+        public String getStringData() { return data; }
+        public void setStringData(String stringData) {}
+        public String getSystemId() { return systemId; }
+        public void setSystemId(String systemId) {}
+        public String getPublicId() { return publicId; }
+        public void setPublicId(String publicId) {}
+        public String getBaseURI() { return null; }
+        public void setBaseURI(String baseURI) {}
+        public String getEncoding() { return null; }
+        public void setEncoding(String encoding) {}
+        public boolean getCertifiedText() { return false; }
+        public void setCertifiedText(boolean certifiedText) {}
+    }
+}
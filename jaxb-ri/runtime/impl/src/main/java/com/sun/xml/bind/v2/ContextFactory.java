@@ -57,6 +57,7 @@ import javax.xml.bind.JAXBException;
 
 import com.sun.istack.FinalArrayList;
 import com.sun.xml.bind.Util;
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.api.JAXBRIContext;
 import com.sun.xml.bind.api.TypeReference;
 import com.sun.xml.bind.v2.model.annotation.RuntimeAnnotationReader;
@@ -129,6 +130,8 @@ public class ContextFactory {
 
         Boolean backupWithParentNamespace = getPropertyValue(properties, JAXBRIContext.BACKUP_WITH_PARENT_NAMESPACE, Boolean.class);
 
+        Instrumentation instrumentation = getPropertyValue(properties, JAXBRIContext.INSTRUMENTATION, Instrumentation.class);
+
         RuntimeAnnotationReader ar = getPropertyValue(properties,JAXBRIContext.ANNOTATION_READER,RuntimeAnnotationReader.class);
         
         Collection<TypeReference> tr = getPropertyValue(properties, JAXBRIContext.TYPE_REFERENCES, Collection.class);
@@ -162,6 +165,7 @@ public class ContextFactory {
         builder.setImprovedXsiTypeHandling(improvedXsiTypeHandling);
         builder.setDisableSecurityProcessing(disablesecurityProcessing);
         builder.setBackupWithParentNamespace(backupWithParentNamespace);
+        builder.setInstrumentation(instrumentation);
         return builder.build();
     }
 
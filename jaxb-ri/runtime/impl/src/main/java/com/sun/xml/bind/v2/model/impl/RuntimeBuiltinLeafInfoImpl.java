@@ -903,7 +903,7 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
             Base64Data base64Data = (Base64Data) text;
             return base64Data.getExact();
         } else {
-            return DatatypeConverterImpl._parseBase64Binary(text.toString());
+            return DatatypeConverterImpl._parseBase64Binary(text);
         }
     }
 
@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+
+/**
+ * Inline cache of the {@link JaxBeanInfo}s that the values of a property
+ * turned out to be, used by {@link XMLSerializer#childAsXsiType(Object, String, JaxBeanInfo, boolean, ActualTypeCache)}.
+ *
+ * <p>
+ * A property usually sees one or two runtime types, so it remembers the two
+ * most recently seen ones, together with their type names and the last @xsi:type
+ * value printed for them. Any other type falls back to
+ * {@link JAXBContextImpl#getBeanInfo(Object, boolean)}.
+ *
+ * <p>
+ * Instances are owned by the properties, hence shared by all the threads
+ * that marshal with the same {@link JAXBContextImpl}. This works without
+ * synchronization because the entries are immutable and replaced as a whole;
+ * a lost update only means a miss later.
+ *
+ * @since 2.4.0
+ */
+public final class ActualTypeCache {
+
+    /*package*/ static final class Entry {
+        final Class<?> type;
+        final JaxBeanInfo<?> beanInfo;
+        /**
+         * The type name of all the instances of {@link #type},
+         * or null if it needs to be computed per instance.
+         */
+        final QName typeName;
+        /**
+         * The last printed @xsi:type value and the prefix it used, or null.
+         */
+        final String prefix;
+        final String xsiType;
+
+        Entry(Class<?> type, JaxBeanInfo<?> beanInfo, QName typeName, String prefix, String xsiType) {
+            this.type = type;
+            this.beanInfo = beanInfo;
+            this.typeName = typeName;
+            this.prefix = prefix;
+            this.xsiType = xsiType;
+        }
+    }
+
+    private Entry first;
+    private Entry second;
+
+    /**
+     * Returns the entry for the given type, or null if it's not cached.
+     */
+    /*package*/ Entry get(Class<?> type) {
+        Entry e = first;
+        if(e!=null && e.type==type)     return e;
+        e = second;
+        if(e!=null && e.type==type)     return e;
+        return null;
+    }
+
+    /**
+     * Caches the bean info that the given object is handled by,
+     * making it the most recently used entry.
+     */
+    /*package*/ Entry put(Object child, JaxBeanInfo<?> beanInfo) {
+        // only ClassBeanInfoImpl is known to have the same type name for all the instances
+        QName typeName = beanInfo instanceof ClassBeanInfoImpl ? getTypeName(beanInfo,child) : null;
+        Entry e = new Entry(child.getClass(),beanInfo,typeName,null,null);
+        second = first;
+        first = e;
+        return e;
+    }
+
+    private static <BeanT> QName getTypeName(JaxBeanInfo<BeanT> beanInfo, Object child) {
+        return beanInfo.getTypeName(beanInfo.jaxbType.cast(child));
+    }
+
+    /**
+     * Prints {@link Entry#typeName} as the @xsi:type value,
+     * reusing the last value if the prefix is still the same.
+     */
+    /*package*/ String printXsiType(Entry e, NamespaceContext nsc) {
+        String prefix = nsc.getPrefix(e.typeName.getNamespaceURI());
+        if(e.xsiType!=null && prefix!=null && prefix.equals(e.prefix))
+            return e.xsiType;
+
+        String value = DatatypeConverter.printQName(e.typeName,nsc);
+        Entry n = new Entry(e.type,e.beanInfo,e.typeName,prefix,value);
+        if(first==e)        first = n;
+        else if(second==e)  second = n;
+        return value;
+    }
+}
@@ -40,17 +40,16 @@
 
 package com.sun.xml.bind.v2.runtime;
 
-import java.util.HashSet;
-import java.util.IdentityHashMap;
-import java.util.Map;
-import java.util.Set;
+import com.sun.xml.bind.v2.util.IdentityHashSet;
 
 /**
  * Bi-directional map between elements, inner peers,
  * and outer peers.
  * 
  * <p>
- * TODO: this should be rewritten for efficiency.
+ * Both directions are kept in compact open addressing tables keyed by
+ * identity, so that documents with lots of associations don't pay for
+ * the per-mapping overhead of {@link java.util.IdentityHashMap}.
  * 
  * @since 2.0
  * 
@@ -77,9 +76,9 @@ public final class AssociationMap<XmlNode> {
         }
     }
     
-    private final Map<XmlNode,Entry<XmlNode>> byElement = new IdentityHashMap<XmlNode,Entry<XmlNode>>();
-    private final Map<Object,Entry<XmlNode>> byPeer = new IdentityHashMap<Object,Entry<XmlNode>>();
-    private final Set<XmlNode> usedNodes = new HashSet<XmlNode>();
+    private final Table<Entry<XmlNode>> byElement = new Table<Entry<XmlNode>>();
+    private final Table<Entry<XmlNode>> byPeer = new Table<Entry<XmlNode>>();
+    private final IdentityHashSet<XmlNode> usedNodes = new IdentityHashSet<XmlNode>();
 
     /** Records the new {@code element <->inner} peer association. */
     public void addInner( XmlNode element, Object inner ) {
@@ -97,7 +96,7 @@ public final class AssociationMap<XmlNode> {
         byElement.put(element,e);
         
         Entry<XmlNode> old = byPeer.put(inner,e);
-        if(old!=null) {
+        if(old!=null && old!=e) {
             if(old.outer!=null)
                 byPeer.remove(old.outer);
             if(old.element!=null)
@@ -105,6 +104,16 @@ public final class AssociationMap<XmlNode> {
         }
     }
     
+    /**
+     * Associates the element of an inner peer with another object,
+     * which replaces that peer.
+     */
+    public void replaceInner( Object oldInner, Object newInner ) {
+        Entry<XmlNode> e = byPeer.get(oldInner);
+        if(e!=null && e.inner==oldInner)
+            addInner(e.element,newInner);
+    }
+
     /** Records the new {@code element <-> outer} peer association. */
     public void addOuter( XmlNode element, Object outer ) {
         Entry<XmlNode> e = byElement.get(element);
@@ -121,7 +130,7 @@ public final class AssociationMap<XmlNode> {
         byElement.put(element,e);
         
         Entry<XmlNode> old = byPeer.put(outer,e);
-        if(old!=null) {
+        if(old!=null && old!=e) {
             old.outer=null;
             
             if(old.inner==null)
@@ -134,6 +143,18 @@ public final class AssociationMap<XmlNode> {
         usedNodes.add(n);
     }
 
+    /**
+     * Discards the associations of the given element.
+     */
+    public void remove( XmlNode element ) {
+        Entry<XmlNode> e = byElement.remove(element);
+        if(e==null)     return;
+        if(e.inner!=null && byPeer.get(e.inner)==e)
+            byPeer.remove(e.inner);
+        if(e.outer!=null && byPeer.get(e.outer)==e)
+            byPeer.remove(e.outer);
+    }
+
     public Entry<XmlNode> byElement( Object e ) {
         return byElement.get(e);
     }
@@ -142,6 +163,18 @@ public final class AssociationMap<XmlNode> {
         return byPeer.get(o);
     }
     
+    /**
+     * Gets the element associated with the given inner or outer peer.
+     *
+     * @return
+     *      null if the object isn't associated with any element.
+     */
+    public XmlNode getElement( Object peer ) {
+        Entry<XmlNode> e = byPeer(peer);
+        if(e==null)     return null;
+        else            return e.element;
+    }
+
     public Object getInnerPeer( XmlNode element ) {
         Entry e = byElement(element);
         if(e==null)     return null;
@@ -153,4 +186,112 @@ public final class AssociationMap<XmlNode> {
         if(e==null)     return null;
         else            return e.outer;
     }
+
+    /**
+     * Identity map with keys and values kept side by side in one array,
+     * using linear probing and backward shift deletion.
+     */
+    private static final class Table<V> {
+        /**
+         * Keys at even indices, values at the following odd indices.
+         * The number of slots is always a power of two.
+         */
+        private Object[] table = new Object[32];
+        private int size;
+
+        V get(Object key) {
+            Object[] t = table;
+            int mask = t.length-2;
+            int i = hash(key)&mask;
+            Object k;
+            while((k=t[i])!=null) {
+                if(k==key)  return valueAt(t,i);
+                i = (i+2)&mask;
+            }
+            return null;
+        }
+
+        /**
+         * @return the value previously associated with the key, or null.
+         */
+        V put(Object key, V value) {
+            Object[] t = table;
+            int mask = t.length-2;
+            int i = hash(key)&mask;
+            Object k;
+            while((k=t[i])!=null) {
+                if(k==key) {
+                    V old = valueAt(t,i);
+                    t[i+1] = value;
+                    return old;
+                }
+                i = (i+2)&mask;
+            }
+            t[i] = key;
+            t[i+1] = value;
+            // keep the load factor under 2/3
+            if(++size*3 > t.length)
+                resize();
+            return null;
+        }
+
+        V remove(Object key) {
+            Object[] t = table;
+            int mask = t.length-2;
+            int i = hash(key)&mask;
+            Object k;
+            while((k=t[i])!=key) {
+                if(k==null)     return null;
+                i = (i+2)&mask;
+            }
+            V old = valueAt(t,i);
+            size--;
+
+            // shift back the following entries of the probe sequence into the hole,
+            // so that lookups never need tombstones
+            int hole = i;
+            i = (i+2)&mask;
+            while((k=t[i])!=null) {
+                int home = hash(k)&mask;
+                // move the entry if its home slot isn't cyclically within (hole,i]
+                if(hole<=i ? (home<=hole || home>i) : (home<=hole && home>i)) {
+                    t[hole] = k;
+                    t[hole+1] = t[i+1];
+                    hole = i;
+                }
+                i = (i+2)&mask;
+            }
+            t[hole] = null;
+            t[hole+1] = null;
+            return old;
+        }
+
+        @SuppressWarnings("unchecked")  // only put(Object,V) stores values
+        private static <V> V valueAt(Object[] t, int keyIndex) {
+            return (V)t[keyIndex+1];
+        }
+
+        private static int hash(Object o) {
+            int h = System.identityHashCode(o);
+            // identity hash codes tend to be sequential, so spread them over the table
+            h *= 0x9E3779B9;
+            return (h ^ (h>>>16))<<1;
+        }
+
+        private void resize() {
+            Object[] old = table;
+            Object[] t = new Object[old.length*2];
+            int mask = t.length-2;
+            for( int j=0; j<old.length; j+=2 ) {
+                Object k = old[j];
+                if(k==null)     continue;
+                int i = hash(k)&mask;
+                while(t[i]!=null)
+                    i = (i+2)&mask;
+                t[i] = k;
+                t[i+1] = old[j+1];
+            }
+            table = t;
+        }
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime;
+
+import java.io.IOException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import com.sun.xml.bind.annotation.XmlCodec;
+import com.sun.xml.bind.v2.runtime.unmarshaller.ChildLoader;
+import com.sun.xml.bind.v2.runtime.unmarshaller.Loader;
+import com.sun.xml.bind.v2.runtime.unmarshaller.StructureLoader;
+import com.sun.xml.bind.v2.runtime.unmarshaller.UnmarshallingContext;
+import com.sun.xml.bind.v2.util.QNameMap;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Compiled marshaller/unmarshaller for the properties declared on one class.
+ *
+ * <p>
+ * A codec is designated by {@link XmlCodec} and replaces the interpretation
+ * of {@link ClassBeanInfoImpl#properties} with code that calls the bean
+ * directly. It writes the properties straight to the {@link XMLSerializer}
+ * with {@link Name}s that are resolved once, and it parses leaf elements and
+ * attributes through a switch on the index of the name.
+ *
+ * <p>
+ * Names of the elements and attributes are given to the constructor in the
+ * order the subclass refers to them. The runtime turns them into {@link #elements}
+ * and {@link #attributes}, and resolves {@link #beanInfos} for elements whose
+ * content is another bean.
+ *
+ * <p>
+ * A codec only covers the properties of its own class, and only in the simple
+ * cases: the runtime falls back to the properties when it can't use the codec,
+ * for example when {@link JAXBContextImpl#retainPropertyInfo} is set.
+ *
+ * @since 2.4.0
+ */
+public abstract class BeanCodec<BeanT> {
+
+    private final QName[] elementNames;
+    private final Class[] elementTypes;
+    private final QName[] attributeNames;
+
+    /**
+     * Element names, in the order given to the constructor.
+     */
+    protected final Name[] elements;
+
+    /**
+     * Attribute names, in the order given to the constructor.
+     */
+    protected final Name[] attributes;
+
+    /**
+     * {@link JaxBeanInfo} of the bean that each element carries,
+     * or null for leaf elements.
+     */
+    protected final JaxBeanInfo[] beanInfos;
+
+    /**
+     * @param elementNames
+     *      names of the elements this codec writes or reads.
+     * @param elementTypes
+     *      for each element, the bean class it carries,
+     *      or null if the element is a leaf parsed by {@link #parseElement}.
+     * @param attributeNames
+     *      names of the attributes this codec writes or reads.
+     */
+    protected BeanCodec(QName[] elementNames, Class[] elementTypes, QName[] attributeNames) {
+        assert elementNames.length==elementTypes.length;
+        this.elementNames = elementNames;
+        this.elementTypes = elementTypes;
+        this.attributeNames = attributeNames;
+        this.elements = new Name[elementNames.length];
+        this.attributes = new Name[attributeNames.length];
+        this.beanInfos = new JaxBeanInfo[elementNames.length];
+    }
+
+    /**
+     * Creates the {@link Name}s. Called while the {@link NameBuilder} is still open.
+     */
+    /*package*/ final void init(JAXBContextImpl context) {
+        for (int i = 0; i < elementNames.length; i++)
+            elements[i] = context.nameBuilder.createElementName(elementNames[i]);
+        for (int i = 0; i < attributeNames.length; i++)
+            attributes[i] = context.nameBuilder.createAttributeName(attributeNames[i]);
+    }
+
+    /**
+     * Resolves {@link #beanInfos} once all the {@link JaxBeanInfo}s exist.
+     *
+     * @return
+     *      false if an element type isn't known to the context,
+     *      in which case this codec must not be used.
+     */
+    /*package*/ final boolean link(JAXBContextImpl context) {
+        for (int i = 0; i < elementTypes.length; i++) {
+            if(elementTypes[i]==null)   continue;
+            beanInfos[i] = context.getBeanInfo(elementTypes[i]);
+            if(beanInfos[i]==null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registers the leaf elements and attributes of this codec.
+     * They take precedence over the loaders that the properties of the same names have put.
+     */
+    public final void buildLoaders(QNameMap<ChildLoader> children, QNameMap<BeanCodec<?>.AttributeSlot> atts) {
+        for (int i = 0; i < elementNames.length; i++) {
+            if(elementTypes[i]==null)
+                children.put(elementNames[i], new ChildLoader(new ElementLoader(i),null));
+        }
+        for (int i = 0; i < attributeNames.length; i++)
+            atts.put(attributeNames[i], new AttributeSlot(i));
+    }
+
+    /**
+     * Writes the attributes declared on the bean class, in the order of its properties.
+     */
+    protected abstract void serializeAttributes(BeanT bean, XMLSerializer target) throws SAXException, IOException, XMLStreamException;
+
+    /**
+     * Writes the child elements declared on the bean class, in the order of its properties.
+     */
+    protected abstract void serializeBody(BeanT bean, XMLSerializer target) throws SAXException, IOException, XMLStreamException;
+
+    /**
+     * Parses the text of the leaf element {@code elements[index]} into the bean.
+     *
+     * @throws RuntimeException
+     *      if the lexical form is incorrect. It is reported as a recoverable error.
+     */
+    protected abstract void parseElement(BeanT bean, int index, CharSequence text) throws SAXException;
+
+    /**
+     * Parses the value of the attribute {@code attributes[index]} into the bean.
+     *
+     * @throws RuntimeException
+     *      if the lexical form is incorrect. It is reported as a recoverable error.
+     */
+    protected abstract void parseAttribute(BeanT bean, int index, CharSequence text) throws SAXException;
+
+    /**
+     * Unmarshals the text of a leaf element by dispatching to the codec by index.
+     */
+    private final class ElementLoader extends Loader {
+        private final int index;
+
+        ElementLoader(int index) {
+            super(true);
+            this.index = index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")  // the codec is only used for its own class
+        public void text(UnmarshallingContext.State state, CharSequence text) throws SAXException {
+            try {
+                parseElement((BeanT)state.getPrev().getTarget(),index,text);
+            } catch (RuntimeException e) {
+                handleParseConversionException(state,e);
+            }
+        }
+    }
+
+    /**
+     * Unmarshals an attribute by dispatching to the codec by index.
+     * {@link StructureLoader} uses it in place of the
+     * {@link com.sun.xml.bind.v2.runtime.reflect.TransducedAccessor} of the attribute property.
+     */
+    public final class AttributeSlot {
+        private final int index;
+
+        AttributeSlot(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @throws RuntimeException
+         *      if the lexical form is incorrect.
+         */
+        @SuppressWarnings("unchecked")  // the codec is only used for its own class
+        public void parse(Object bean, CharSequence value) throws SAXException {
+            parseAttribute((BeanT)bean,index,value);
+        }
+    }
+}
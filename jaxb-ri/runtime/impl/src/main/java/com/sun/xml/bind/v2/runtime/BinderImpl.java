@@ -50,6 +50,7 @@ import javax.xml.namespace.QName;
 
 import com.sun.xml.bind.unmarshaller.InfosetScanner;
 import com.sun.xml.bind.v2.runtime.output.DOMOutput;
+import com.sun.xml.bind.v2.runtime.output.DOMUpdateOutput;
 import com.sun.xml.bind.v2.runtime.unmarshaller.InterningXmlVisitor;
 import com.sun.xml.bind.v2.runtime.unmarshaller.SAXConnector;
 import com.sun.xml.bind.v2.runtime.unmarshaller.UnmarshallerImpl;
@@ -190,13 +191,8 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
     public XmlNode updateXML(Object jaxbObject, XmlNode xmlNode) throws JAXBException {
         if(jaxbObject==null || xmlNode==null)   throw new IllegalArgumentException();
 
-        // TODO
-        // for now just marshal
         // TODO: object model independenc
         Element e = (Element)xmlNode;
-        Node ns = e.getNextSibling();
-        Node p = e.getParentNode();
-        p.removeChild(e);
 
         // if the type object is passed, the following step is necessary to make
         // the marshalling successful.
@@ -204,13 +200,16 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
         if(!bi.isElement())
             jaxbObject = new JAXBElement(new QName(e.getNamespaceURI(),e.getLocalName()),bi.jaxbType,jaxbObject);
 
+        // marshal onto the existing nodes, with the namespaces in scope at the parent,
+        // so that only the nodes that differ are touched
+        DOMUpdateOutput out = new DOMUpdateOutput(e,getDomAssociations());
+        getMarshaller().marshal(jaxbObject,out,e.getParentNode());
+        return (XmlNode)out.getResult();
+    }
 
-        getMarshaller().marshal(jaxbObject,p);
-        Node newNode = p.getLastChild();
-        p.removeChild(newNode);
-        p.insertBefore(newNode,ns);
-
-        return (XmlNode)newNode;
+    @SuppressWarnings("unchecked")  // XmlNode is always a DOM node for now
+    private AssociationMap<Node> getDomAssociations() {
+        return (AssociationMap)assoc;
     }
 
     public void setEventHandler(ValidationEventHandler handler) throws JAXBException {
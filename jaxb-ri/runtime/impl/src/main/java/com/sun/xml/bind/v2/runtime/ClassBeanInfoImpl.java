@@ -41,9 +41,12 @@
 package com.sun.xml.bind.v2.runtime;
 
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -59,6 +62,8 @@ import javax.xml.stream.XMLStreamException;
 
 import com.sun.istack.FinalArrayList;
 import com.sun.xml.bind.Util;
+import com.sun.xml.bind.annotation.XmlCodec;
+import com.sun.xml.bind.annotation.XmlConstructor;
 import com.sun.xml.bind.api.AccessorException;
 import com.sun.xml.bind.v2.ClassFactory;
 import com.sun.xml.bind.v2.WellKnownNamespace;
@@ -129,12 +134,51 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
      */
     private /*final*/ AttributeProperty<BeanT>[] attributeProperties;
 
+    /**
+     * {@link #attributeProperties} sorted alphabetically, used when the marshaller
+     * writes canonical XML. This is the same array as {@link #attributeProperties}
+     * if that is already sorted.
+     */
+    private /*final*/ AttributeProperty<BeanT>[] c14nAttributeProperties;
+
     /**
      * {@link Property}s that need to receive {@link Property#serializeURIs(Object, XMLSerializer)} callback.
      */
     private /*final*/ Property<BeanT>[] uriProperties;
 
     private final Method factoryMethod;
+
+    /**
+     * Compiled codec designated by {@link XmlCodec}, or null.
+     */
+    public final BeanCodec<BeanT> codec;
+
+    /**
+     * True if {@link #codec} is used in place of the properties of this class.
+     * Set by {@link #useCodec(JAXBContextImpl)}, but considered final.
+     */
+    private boolean useCodec;
+
+    /**
+     * True once {@link #useCodec} is decided.
+     */
+    private boolean codecLinked;
+
+    /**
+     * True if {@link #codec}s of this class and all its ancestors write the attributes.
+     * Set from the link method, but considered final.
+     */
+    private boolean useAttributeCodec;
+
+    /**
+     * Constructor designated by {@link XmlConstructor}, or null.
+     */
+    private final Constructor<BeanT> constructor;
+
+    /**
+     * Reads the arguments of {@link #constructor} from the unmarshalled instance.
+     */
+    private final Accessor<? super BeanT,?>[] constructorArgs;
     
     /*package*/ ClassBeanInfoImpl(JAXBContextImpl owner, RuntimeClassInfo ci) {
         super(owner,ci,ci.getClazz(),ci.getTypeName(),ci.isElement(),false,true);
@@ -191,14 +235,77 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         hasElementOnlyContentModel( elementOnly );
         // again update this value later when we know that of the super class
 
+        XmlCodec xc = jaxbType.getAnnotation(XmlCodec.class);
+        if(xc!=null && !owner.retainPropertyInfo) {
+            codec = ClassFactory.create(xc.value());
+            codec.init(owner);
+        } else
+            codec = null;
+
         if(ci.isElement())
             tagName = owner.nameBuilder.createElementName(ci.getElementName());
         else
             tagName = null;
 
+        Constructor<BeanT> c = findXmlConstructor();
+        if(c!=null) {
+            String[] names = c.getAnnotation(XmlConstructor.class).value();
+            if(names.length!=c.getParameterTypes().length)
+                throw new IllegalStateException(Messages.XML_CONSTRUCTOR_ARITY_MISMATCH.format(
+                    c, names.length));
+            constructorArgs = new Accessor[names.length];
+            for (int i = 0; i < names.length; i++) {
+                Field f = findField(names[i]);
+                if(f==null)
+                    throw new IllegalStateException(Messages.XML_CONSTRUCTOR_NO_SUCH_FIELD.format(
+                        c, names[i]));
+                constructorArgs[i] = new Accessor.FieldReflection<BeanT,Object>(f);
+            }
+            if(!Modifier.isPublic(c.getModifiers()) || !Modifier.isPublic(jaxbType.getModifiers()))
+                c.setAccessible(true);
+        } else
+            constructorArgs = null;
+        this.constructor = c;
+
         setLifecycleFlags();
     }
 
+    /**
+     * Finds the constructor annotated with {@link XmlConstructor}.
+     *
+     * @return null if there's none, or if the class or its ancestors have an ID or IDREF
+     *      property, as the unmarshalled instance would be registered under its ID or
+     *      have its references patched after the element ends.
+     */
+    private Constructor<BeanT> findXmlConstructor() {
+        Constructor<BeanT> found = null;
+        for (Constructor<?> c : jaxbType.getDeclaredConstructors()) {
+            if(c.isAnnotationPresent(XmlConstructor.class))
+                found = (Constructor<BeanT>)c;
+        }
+        if(found==null)
+            return null;
+        for (RuntimeClassInfo c = ci; c != null; c = c.getBaseClass())
+            for (RuntimePropertyInfo p : c.getProperties())
+                if(p.id()!=ID.NONE)
+                    return null;
+        return found;
+    }
+
+    /**
+     * Finds the field of the given name declared on {@link #jaxbType} or its super classes.
+     */
+    private Field findField(String name) {
+        for (Class<?> c = jaxbType; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // try the super class
+            }
+        }
+        return null;
+    }
+
     private void checkOverrideProperties(Property p) {
         ClassBeanInfoImpl bi = this;
         while ((bi = bi.superClazz) != null) {
@@ -227,6 +334,8 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
 
         getLoader(grammar,true);    // make sure to build the loader if we haven't done so.
 
+        useAttributeCodec = useCodec(grammar) && (superClazz==null || superClazz.useAttributeCodec);
+
         // propagate values from super class
         if(superClazz!=null) {
             if(idProperty==null)
@@ -256,6 +365,13 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         else
             attributeProperties = attProps.toArray(new AttributeProperty[attProps.size()]);
 
+        if(grammar.c14nSupport || attributeProperties.length<2)
+            c14nAttributeProperties = attributeProperties;
+        else {
+            c14nAttributeProperties = attributeProperties.clone();
+            Arrays.sort(c14nAttributeProperties);
+        }
+
         if(uriProps.isEmpty())
             uriProperties = EMPTY_PROPERTIES;
         else
@@ -270,6 +386,40 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         super.wrapUp();
     }
 
+    /**
+     * True if the unmarshaller needs to call {@link #construct(Object, UnmarshallingContext)}
+     * once the properties of an instance are unmarshalled.
+     */
+    public boolean hasXmlConstructor() {
+        return constructor!=null;
+    }
+
+    /**
+     * Creates the object through the {@link XmlConstructor}, passing it the fields
+     * of the instance the unmarshaller has filled.
+     *
+     * @return
+     *      the new object, or {@code bean} itself if the constructor failed
+     *      and the error was recovered.
+     */
+    public BeanT construct(BeanT bean, UnmarshallingContext context) throws SAXException {
+        Object[] args = new Object[constructorArgs.length];
+        try {
+            for (int i = 0; i < args.length; i++)
+                args[i] = constructorArgs[i].get(bean);
+            return constructor.newInstance(args);
+        } catch (AccessorException e) {
+            context.handleError(e);
+        } catch (InstantiationException e) {
+            context.handleError(e);
+        } catch (IllegalAccessException e) {
+            context.handleError(e);
+        } catch (InvocationTargetException e) {
+            context.handleError(e);
+        }
+        return bean;
+    }
+
     public String getElementNamespaceURI(BeanT bean) {
         return tagName.nsUri;
     }
@@ -350,6 +500,10 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         if (superClazz != null) {
             superClazz.serializeBody(bean, target);
         }
+        if (useCodec) {
+            codec.serializeBody(bean, target);
+            return;
+        }
         try {
             for (Property<BeanT> p : properties) {
                 if (retainPropertyInfo) {
@@ -372,22 +526,31 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
     }
 
     public void serializeAttributes(BeanT bean, XMLSerializer target) throws SAXException, IOException, XMLStreamException {
-        for( AttributeProperty<BeanT> p : attributeProperties )
-            try {
-                if (retainPropertyInfo) {
-                final Property parentProperty = target.getCurrentProperty();
-                target.currentProperty.set(p);
-                p.serializeAttributes(bean,target);
-                target.currentProperty.set(parentProperty);
-                } else {
+        if(idProperty!=null)
+            target.onID(bean,null);     // only the object matters to the dangling IDREF check
+        // codecs write in the order of attributeProperties, which isn't the canonical one
+        AttributeProperty<BeanT>[] attProps = target.isC14n() ? c14nAttributeProperties : attributeProperties;
+        if(useAttributeCodec && !target.isC14n()) {
+            for (ClassBeanInfoImpl bi = this; bi != null; bi = bi.superClazz)
+                bi.codec.serializeAttributes(bean,target);
+        } else {
+            for( AttributeProperty<BeanT> p : attProps )
+                try {
+                    if (retainPropertyInfo) {
+                    final Property parentProperty = target.getCurrentProperty();
+                    target.currentProperty.set(p);
                     p.serializeAttributes(bean,target);
+                    target.currentProperty.set(parentProperty);
+                    } else {
+                        p.serializeAttributes(bean,target);
+                    }
+                    if (p.attName.equals(WellKnownNamespace.XML_SCHEMA_INSTANCE, "nil")) {
+                        isNilIncluded = true;
+                    }
+                } catch (AccessorException e) {
+                    target.reportError(null,e);
                 }
-                if (p.attName.equals(WellKnownNamespace.XML_SCHEMA_INSTANCE, "nil")) {
-                    isNilIncluded = true;
-                }
-            } catch (AccessorException e) {
-                target.reportError(null,e);
-            }
+        }
 
         try {
             if(inheritedAttWildcard!=null) {
@@ -422,6 +585,27 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         }
     }
 
+    /**
+     * Checks if {@link #codec} is used in place of the properties of this class.
+     *
+     * <p>
+     * This is decided in the link phase, on the first call. That may come from
+     * the {@link StructureLoader} of this or another class before this class is linked.
+     */
+    public boolean useCodec(JAXBContextImpl context) {
+        if(!codecLinked) {
+            codecLinked = true;
+            // a property hidden by an override needs the per-bean check in serializeBody
+            if(codec!=null && codec.link(context)) {
+                useCodec = true;
+                for (Property p : properties)
+                    if(p.isHiddenByOverride())
+                        useCodec = false;
+            }
+        }
+        return useCodec;
+    }
+
     public Loader getLoader(JAXBContextImpl context, boolean typeSubstitutionCapable) {
         if(loader==null) {
             // these variables have to be set before they are initialized,
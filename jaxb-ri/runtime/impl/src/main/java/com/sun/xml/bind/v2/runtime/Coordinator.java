@@ -48,6 +48,8 @@ import javax.xml.bind.ValidationEventLocator;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 import javax.xml.bind.helpers.ValidationEventImpl;
 
+import com.sun.istack.Nullable;
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.v2.ClassFactory;
 import com.sun.xml.bind.v2.runtime.unmarshaller.UnmarshallingContext;
 
@@ -78,7 +80,18 @@ import org.xml.sax.SAXParseException;
  * @author Kohsuke Kawaguchi
  */
 public abstract class Coordinator implements ErrorHandler, ValidationEventHandler {
-    
+
+    /**
+     * Non-null if the work done under this {@link Coordinator} is to be measured.
+     *
+     * @see JAXBContextImpl#instrumentation
+     */
+    public final @Nullable Instrumentation instrumentation;
+
+    protected Coordinator(@Nullable Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
     private final HashMap<Class<? extends XmlAdapter>,XmlAdapter> adapters =
             new HashMap<Class<? extends XmlAdapter>,XmlAdapter>();
 
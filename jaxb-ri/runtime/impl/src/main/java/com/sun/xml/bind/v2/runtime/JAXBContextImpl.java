@@ -84,6 +84,7 @@ import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 
 import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
 import com.sun.istack.Pool;
 import com.sun.xml.bind.v2.WellKnownNamespace;
 import com.sun.xml.bind.api.AccessorException;
@@ -91,6 +92,7 @@ import com.sun.xml.bind.api.Bridge;
 import com.sun.xml.bind.api.BridgeContext;
 import com.sun.xml.bind.api.CompositeStructure;
 import com.sun.xml.bind.api.ErrorListener;
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.api.JAXBRIContext;
 import com.sun.xml.bind.api.RawAccessor;
 import com.sun.xml.bind.api.TypeReference;
@@ -266,6 +268,13 @@ public final class JAXBContextImpl extends JAXBRIContext {
      */
     public Boolean backupWithParentNamespace = null;
 
+    /**
+     * Non-null if marshalling and unmarshalling are to be measured.
+     *
+     * @see JAXBRIContext#INSTRUMENTATION
+     */
+    public final @Nullable Instrumentation instrumentation;
+
     /**
      * Returns declared XmlNs annotations (from package-level annotation XmlSchema
      *
@@ -289,6 +298,7 @@ public final class JAXBContextImpl extends JAXBRIContext {
         this.improvedXsiTypeHandling = builder.improvedXsiTypeHandling;
         this.disableSecurityProcessing = builder.disableSecurityProcessing;
         this.backupWithParentNamespace = builder.backupWithParentNamespace;
+        this.instrumentation = builder.instrumentation;
 
         Collection<TypeReference> typeRefs = builder.typeRefs;
 
@@ -1051,6 +1061,7 @@ public final class JAXBContextImpl extends JAXBRIContext {
         private boolean improvedXsiTypeHandling = true;
         private boolean disableSecurityProcessing = true;
         private Boolean backupWithParentNamespace = null; // null for System property to be used
+        private Instrumentation instrumentation = null;
 
         public JAXBContextBuilder() {};
 
@@ -1067,6 +1078,7 @@ public final class JAXBContextImpl extends JAXBRIContext {
             this.allNillable = baseImpl.allNillable;
             this.disableSecurityProcessing = baseImpl.disableSecurityProcessing;
             this.backupWithParentNamespace = baseImpl.backupWithParentNamespace;
+            this.instrumentation = baseImpl.instrumentation;
         }
 
         public JAXBContextBuilder setRetainPropertyInfo(boolean val) {
@@ -1134,6 +1146,11 @@ public final class JAXBContextImpl extends JAXBRIContext {
             return this;
         }
 
+        public JAXBContextBuilder setInstrumentation(Instrumentation instrumentation) {
+            this.instrumentation = instrumentation;
+            return this;
+        }
+
         public JAXBContextImpl build() throws JAXBException {
 
             // fool-proof
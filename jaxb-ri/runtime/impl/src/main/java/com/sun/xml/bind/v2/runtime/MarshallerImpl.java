@@ -71,6 +71,7 @@ import javax.xml.validation.Schema;
 import javax.xml.validation.ValidatorHandler;
 import javax.xml.namespace.NamespaceContext;
 
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.api.JAXBRIContext;
 import com.sun.xml.bind.marshaller.CharacterEscapeHandler;
 import com.sun.xml.bind.marshaller.DataWriter;
@@ -78,9 +79,9 @@ import com.sun.xml.bind.marshaller.DumbEscapeHandler;
 import com.sun.xml.bind.marshaller.MinimumEscapeHandler;
 import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
 import com.sun.xml.bind.marshaller.NioEscapeHandler;
-import com.sun.xml.bind.marshaller.SAX2DOMEx;
 import com.sun.xml.bind.marshaller.XMLWriter;
 import com.sun.xml.bind.v2.runtime.output.C14nXmlOutput;
+import com.sun.xml.bind.v2.runtime.output.DOMOutput;
 import com.sun.xml.bind.v2.runtime.output.Encoded;
 import com.sun.xml.bind.v2.runtime.output.ForkXmlOutput;
 import com.sun.xml.bind.v2.runtime.output.IndentingUTF8XmlOutput;
@@ -90,7 +91,9 @@ import com.sun.xml.bind.v2.runtime.output.UTF8XmlOutput;
 import com.sun.xml.bind.v2.runtime.output.XMLEventWriterOutput;
 import com.sun.xml.bind.v2.runtime.output.XMLStreamWriterOutput;
 import com.sun.xml.bind.v2.runtime.output.XmlOutput;
+import com.sun.xml.bind.v2.util.CountingOutputStream;
 import com.sun.xml.bind.v2.util.FatalAdapter;
+import com.sun.xml.bind.v2.util.ValidatorPipe;
 
 import java.net.URISyntaxException;
 import java.util.logging.Level;
@@ -137,17 +140,29 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
      */
     private Schema schema;
 
+    /**
+     * True to validate on another thread while marshalling.
+     * @see #CONCURRENT_VALIDATION
+     */
+    private boolean concurrentValidation;
+
     /** Marshaller.Listener */
     private Listener externalListener = null;
 
     /** Configured for c14n? */
-    private boolean c14nSupport;
+    /*package*/ boolean c14nSupport;
 
     // while createing XmlOutput those values may be set.
     // if these are non-null they need to be cleaned up
     private Flushable toBeFlushed;
     private Closeable toBeClosed;
 
+    /**
+     * Set by {@link #createWriter(OutputStream, String)} to count the bytes written,
+     * if {@link JAXBContextImpl#instrumentation} is enabled.
+     */
+    private CountingOutputStream countingStream;
+
     /**
      * @param assoc
      *      non-null if the marshaller is working inside {@link BinderImpl}.
@@ -192,6 +207,14 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
         write(obj, output, null );
     }
 
+    /**
+     * Marshals to the given {@link XmlOutput} with the in-scope namespaces
+     * of the given DOM node taken into account.
+     */
+    void marshal(Object obj, XmlOutput output, Node inscope) throws JAXBException {
+        write(obj, output, new DomPostInitAction(inscope,serializer));
+    }
+
     /**
      * Creates {@link XmlOutput} from the given {@link Result} object.
      */
@@ -205,9 +228,9 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             if (node == null) {
                 Document doc = JAXBContextImpl.createDom(getContext().disableSecurityProcessing);
                 ((DOMResult) result).setNode(doc);
-                return new SAXOutput(new SAX2DOMEx(doc));
+                return new DOMOutput(doc);
             } else {
-                return new SAXOutput(new SAX2DOMEx(node));
+                return new DOMOutput(node);
             }
         }
         if (result instanceof StreamResult) {
@@ -295,6 +318,10 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
      * All the marshal method invocation eventually comes down to this call.
      */
     private void write(Object obj, XmlOutput out, Runnable postInitAction) throws JAXBException {
+        final Instrumentation instrumentation = context.instrumentation;
+        final long start = instrumentation!=null ? System.nanoTime() : 0;
+        boolean completed = false;
+        ValidatorPipe pipe = null;
         try {
             if( obj == null )
                 throw new IllegalArgumentException(Messages.NOT_MARSHALLABLE.format());
@@ -302,7 +329,6 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             if( schema!=null ) {
                 // send the output to the validator as well
                 ValidatorHandler validator = schema.newValidatorHandler();
-                validator.setErrorHandler(new FatalAdapter(serializer));
                 // work around a bug in JAXP validator in Tiger
                 XMLFilterImpl f = new XMLFilterImpl() {
                     @Override
@@ -310,7 +336,13 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
                         super.startPrefixMapping(prefix.intern(), uri.intern());
                     }
                 };
-                f.setContentHandler(validator);
+                if(concurrentValidation) {
+                    pipe = new ValidatorPipe(validator,new FatalAdapter(serializer));
+                    f.setContentHandler(pipe);
+                } else {
+                    validator.setErrorHandler(new FatalAdapter(serializer));
+                    f.setContentHandler(validator);
+                }
                 out = new ForkXmlOutput( new SAXOutput(f) {
                     @Override
                     public void startDocument(XMLSerializer serializer, boolean fragment, int[] nsUriIndex2prefixIndex, NamespaceContextImpl nsContext) throws SAXException, IOException, XMLStreamException {
@@ -327,6 +359,9 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
                 prewrite(out,isFragment(),postInitAction);
                 serializer.childAsRoot(obj);
                 postwrite();
+                if(pipe!=null)
+                    pipe.await();
+                completed = true;
             } catch( SAXException e ) {
                 throw new MarshalException(e);
             } catch (IOException e) {
@@ -338,6 +373,16 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             }
         } finally {
             cleanUp();
+            if(pipe!=null && !completed)
+                pipe.cancel();
+            if(instrumentation!=null) {
+                // report after cleanUp, so that all the buffered bytes are counted
+                if(completed)
+                    instrumentation.marshalled(System.nanoTime()-start,
+                        countingStream!=null ? countingStream.getCount() : -1,
+                        serializer.getElementCount());
+                countingStream = null;
+            }
         }
     }
 
@@ -457,6 +502,9 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
         // otherwise createWriter(Writer) inserts a buffering,
         // so no point in doing a buffering here.
 
+        if(context.instrumentation!=null)
+            os = countingStream = new CountingOutputStream(os);
+
         if(encoding.equals("UTF-8")) {
             Encoded[] table = context.getUTF8NameTable();
             final UTF8XmlOutput out;
@@ -465,7 +513,9 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
                 out = new IndentingUTF8XmlOutput(os, indent, table, ceh);
             else {
                 if(c14nSupport)
-                    out = new C14nXmlOutput(os, table, context.c14nSupport, ceh);
+                    // ClassBeanInfoImpl sends statically known attributes in the canonical order
+                    // when c14n is on, so there's no need to sort them again
+                    out = new C14nXmlOutput(os, table, true, ceh);
                 else
                     out = new UTF8XmlOutput(os, table, ceh);
             }
@@ -502,6 +552,10 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             return c14nSupport;
         if ( OBJECT_IDENTITY_CYCLE_DETECTION.equals(name)) 
         	return serializer.getObjectIdentityCycleDetection();
+        if( DANGLING_IDREF_CHECK.equals(name) )
+            return serializer.getDanglingIdrefCheck();
+        if( CONCURRENT_VALIDATION.equals(name) )
+            return concurrentValidation;
 
         return super.getProperty(name);
     }
@@ -555,6 +609,16 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             serializer.setObjectIdentityCycleDetection((Boolean)value);
             return;
         }
+        if( DANGLING_IDREF_CHECK.equals(name) ) {
+            checkBoolean(name,value);
+            serializer.setDanglingIdrefCheck((Boolean)value);
+            return;
+        }
+        if( CONCURRENT_VALIDATION.equals(name) ) {
+            checkBoolean(name,value);
+            concurrentValidation = (Boolean)value;
+            return;
+        }
 
         super.setProperty(name, value);
     }
@@ -648,4 +712,16 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
     protected static final String XML_HEADERS = "com.sun.xml.bind.xmlHeaders";
     protected static final String C14N = JAXBRIContext.CANONICALIZATION_SUPPORT;
     protected static final String OBJECT_IDENTITY_CYCLE_DETECTION = "com.sun.xml.bind.objectIdentitityCycleDetection";
+    /**
+     * Set to true to check that every object referenced through IDREF is also marshalled,
+     * and to report the ones that aren't as errors. Off by default, as the check keeps
+     * track of every object with an ID.
+     */
+    protected static final String DANGLING_IDREF_CHECK = "com.sun.xml.bind.danglingIdrefCheck";
+    /**
+     * Set to true to run the validation against the schema on another thread,
+     * in parallel with the marshalling. Validation errors are then reported later
+     * than the output they are about; see {@link ValidatorPipe}.
+     */
+    protected static final String CONCURRENT_VALIDATION = "com.sun.xml.bind.concurrentValidation";
 }
@@ -73,6 +73,8 @@ enum Messages {
     FAILED_TO_GENERATE_SCHEMA, // 0 args
     ERROR_PROCESSING_SCHEMA, // 0 args
     ILLEGAL_CONTENT, // 2 args
+    XML_CONSTRUCTOR_ARITY_MISMATCH, // 2 args
+    XML_CONSTRUCTOR_NO_SUCH_FIELD, // 2 args
     ;
 
     private static final ResourceBundle rb = ResourceBundle.getBundle(Messages.class.getName());
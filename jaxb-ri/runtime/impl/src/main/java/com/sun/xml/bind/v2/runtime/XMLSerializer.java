@@ -42,9 +42,7 @@ package com.sun.xml.bind.v2.runtime;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import javax.activation.MimeType;
 import javax.xml.bind.DatatypeConverter;
@@ -66,9 +64,11 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.sax.SAXResult;
 
+import com.sun.istack.Nullable;
 import com.sun.istack.SAXException2;
 import com.sun.xml.bind.CycleRecoverable;
 import com.sun.xml.bind.api.AccessorException;
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
 import com.sun.xml.bind.util.ValidationEventLocatorExImpl;
 import com.sun.xml.bind.v2.WellKnownNamespace;
@@ -81,6 +81,7 @@ import com.sun.xml.bind.v2.runtime.property.Property;
 import com.sun.xml.bind.v2.runtime.unmarshaller.Base64Data;
 import com.sun.xml.bind.v2.runtime.unmarshaller.IntData;
 import com.sun.xml.bind.v2.util.CollisionCheckStack;
+import com.sun.xml.bind.v2.util.IdentityHashSet;
 
 import org.xml.sax.SAXException;
 
@@ -163,10 +164,16 @@ public final class XMLSerializer extends Coordinator {
     private final MarshallerImpl marshaller;
 
     /** Objects referenced through IDREF. */
-    private final Set<Object> idReferencedObjects = new HashSet<Object>();
+    private final IdentityHashSet<Object> idReferencedObjects = new IdentityHashSet<Object>();
 
     /** Objects with ID. */
-    private final Set<Object> objectsWithId = new HashSet<Object>();
+    private final IdentityHashSet<Object> objectsWithId = new IdentityHashSet<Object>();
+
+    /**
+     * True to check that every object referenced through IDREF
+     * is also marshalled. Otherwise the two sets above are not maintained.
+     */
+    private boolean danglingIdrefCheck = false;
 
     /**
      * Used to detect cycles in the object.
@@ -196,9 +203,17 @@ public final class XMLSerializer extends Coordinator {
      */
     private final IntData intData = new IntData();
 
+    /**
+     * Number of elements written so far.
+     *
+     * @see Instrumentation#marshalled(long, long, int)
+     */
+    private int elementCount;
+
     public AttachmentMarshaller attachmentMarshaller;
 
     /*package*/ XMLSerializer( MarshallerImpl _owner ) {
+        super(_owner.context.instrumentation);
         this.marshaller = _owner;
         this.grammar = marshaller.context;
         nsContext = new NamespaceContextImpl(this);
@@ -321,6 +336,7 @@ public final class XMLSerializer extends Coordinator {
         if(seenRoot) {
             textHasAlreadyPrinted = false;
             nse = nse.push();
+            elementCount++;
             out.beginStartTag(tagName);
             out.endStartTag();
             if(data != null)
@@ -350,6 +366,7 @@ public final class XMLSerializer extends Coordinator {
         if(seenRoot) {
             textHasAlreadyPrinted = false;
             nse = nse.push();
+            elementCount++;
             out.beginStartTag(tagName);
             out.endStartTag();
             if(data != null)
@@ -451,11 +468,26 @@ public final class XMLSerializer extends Coordinator {
     }
     
     
+    /**
+     * Notifies the serializer of an object with an ID property,
+     * for the dangling IDREF check.
+     *
+     * @return
+     *      the value.
+     */
     public String onID( Object owner, String value ) {
-        objectsWithId.add(owner);
+        if(danglingIdrefCheck)
+            objectsWithId.add(owner);
         return value;
     }
     
+    /**
+     * Gets the ID of an object referenced through IDREF, and remembers the object
+     * for the dangling IDREF check.
+     *
+     * @return
+     *      null if the object has no ID, which is reported.
+     */
     public String onIDREF( Object obj ) throws SAXException {
         String id;
         try {
@@ -464,13 +496,10 @@ public final class XMLSerializer extends Coordinator {
             reportError(null,e);
             return null; // recover by returning null
         }
-        idReferencedObjects.add(obj);
-        if(id==null) {
-            reportError( new NotIdentifiableEventImpl(
-                ValidationEvent.ERROR,
-                Messages.NOT_IDENTIFIABLE.format(),
-                new ValidationEventLocatorImpl(obj) ) );
-        }
+        if(danglingIdrefCheck)
+            idReferencedObjects.add(obj);
+        if(id==null)
+            errorMissingId(obj);
         return id;
     }
     
@@ -586,6 +615,10 @@ public final class XMLSerializer extends Coordinator {
                 fireBeforeMarshalEvents(beanInfo, child);
             }
 
+            if (instrumentation != null) {
+                instrumentation.beanMarshalled(beanInfo.jaxbType);
+            }
+
             beanInfo.serializeURIs(child,this);
             endNamespaceDecls(child);
             beanInfo.serializeAttributes(child,this);
@@ -625,6 +658,18 @@ public final class XMLSerializer extends Coordinator {
      *      with 'o'.
      */
     public final void childAsXsiType( Object child, String fieldName, JaxBeanInfo expected, boolean nillable) throws SAXException, IOException, XMLStreamException {
+        childAsXsiType(child,fieldName,expected,nillable,null);
+    }
+
+    /**
+     * The same as {@link #childAsXsiType(Object, String, JaxBeanInfo, boolean)},
+     * except that the {@link JaxBeanInfo} of the child and its @xsi:type value
+     * are looked up from the given cache first.
+     *
+     * @param cache
+     *      owned by the calling property. Can be null.
+     */
+    public final void childAsXsiType( Object child, String fieldName, JaxBeanInfo expected, boolean nillable, @Nullable ActualTypeCache cache) throws SAXException, IOException, XMLStreamException {
         if(child==null) {
             handleMissingObjectError(fieldName);
         } else {
@@ -638,6 +683,7 @@ public final class XMLSerializer extends Coordinator {
             boolean asExpected = child.getClass()==expected.jaxbType;
             JaxBeanInfo actual = expected;
             QName actualTypeName = null;
+            ActualTypeCache.Entry cached = null;
 
             if((asExpected) && (actual.lookForLifecycleMethods())) {
                 fireBeforeMarshalEvents(actual, child);
@@ -645,7 +691,14 @@ public final class XMLSerializer extends Coordinator {
 
             if(!asExpected) {
                 try {
-                    actual = grammar.getBeanInfo(child,true);
+                    if(cache!=null) {
+                        cached = cache.get(child.getClass());
+                        if(cached==null)
+                            cached = cache.put(child,grammar.getBeanInfo(child,true));
+                        actual = cached.beanInfo;
+                    } else {
+                        actual = grammar.getBeanInfo(child,true);
+                    }
                     if (actual.lookForLifecycleMethods()) {
                         fireBeforeMarshalEvents(actual, child);
                     }
@@ -658,7 +711,7 @@ public final class XMLSerializer extends Coordinator {
                 if(actual==expected)
                     asExpected = true;
                 else {
-                    actualTypeName = actual.getTypeName(child);
+                    actualTypeName = (cached!=null && cached.typeName!=null) ? cached.typeName : actual.getTypeName(child);
                     if(actualTypeName==null) {
                         reportError(new ValidationEventImpl(
                                 ValidationEvent.ERROR,
@@ -683,7 +736,9 @@ public final class XMLSerializer extends Coordinator {
             endNamespaceDecls(child);
             if(!asExpected) {
                 attribute(WellKnownNamespace.XML_SCHEMA_INSTANCE,"type",
-                    DatatypeConverter.printQName(actualTypeName,getNamespaceContext()));
+                    (cached!=null && cached.typeName!=null)
+                        ? cache.printXsiType(cached,getNamespaceContext())
+                        : DatatypeConverter.printQName(actualTypeName,getNamespaceContext()));
             }
 
             actual.serializeAttributes(child,this);
@@ -693,6 +748,9 @@ public final class XMLSerializer extends Coordinator {
             }
             
             endAttributes();
+            if (instrumentation != null) {
+                instrumentation.beanMarshalled(actual.jaxbType);
+            }
             actual.serializeBody(child,this);
 
             if (actual.lookForLifecycleMethods()) {
@@ -837,6 +895,7 @@ public final class XMLSerializer extends Coordinator {
         idReferencedObjects.clear();
         textHasAlreadyPrinted = false;
         seenRoot = false;
+        elementCount = 0;
         this.schemaLocation = schemaLocation;
         this.noNsSchemaLocation = noNsSchemaLocation;
         this.fragment = fragment;
@@ -851,6 +910,13 @@ public final class XMLSerializer extends Coordinator {
         out.endDocument(fragment);
     }
 
+    /**
+     * Number of elements written since {@link #startDocument}.
+     */
+    /*package*/ int getElementCount() {
+        return elementCount;
+    }
+
     public void close() {
         out = null;
         clearCurrentProperty();
@@ -893,6 +959,7 @@ public final class XMLSerializer extends Coordinator {
 
     private void startElement() {
         nse = nse.push();
+        elementCount++;
 
         if( !seenRoot ) {
 
@@ -968,6 +1035,14 @@ public final class XMLSerializer extends Coordinator {
         return inlineBinaryFlag;
     }
 
+    /**
+     * True if the marshaller is configured to write canonical XML,
+     * in which case statically known attributes are written in the canonical order.
+     */
+    /*package*/ boolean isC14n() {
+        return marshaller.c14nSupport;
+    }
+
     /**
      * Field used to support an {@link XmlSchemaType} annotation.
      *
@@ -996,19 +1071,28 @@ public final class XMLSerializer extends Coordinator {
         return cycleDetectionStack.getUseIdentity();
     }
 
+    public void setDanglingIdrefCheck(boolean val) {
+        danglingIdrefCheck = val;
+    }
+    public boolean getDanglingIdrefCheck() {
+        return danglingIdrefCheck;
+    }
+
     void reconcileID() throws SAXException {
         // find objects that were not a part of the object graph
-        idReferencedObjects.removeAll(objectsWithId);
-
-        for( Object idObj : idReferencedObjects ) {
-            try {
-                String id = getIdFromObject(idObj);
-                reportError( new NotIdentifiableEventImpl(
-                    ValidationEvent.ERROR,
-                    Messages.DANGLING_IDREF.format(id),
-                    new ValidationEventLocatorImpl(idObj) ) );
-            } catch (JAXBException e) {
-                // this error should have been reported already. just ignore here.
+        if(!idReferencedObjects.isEmpty()) {
+            for( Object idObj : idReferencedObjects ) {
+                if(objectsWithId.contains(idObj))
+                    continue;
+                try {
+                    String id = getIdFromObject(idObj);
+                    reportError( new NotIdentifiableEventImpl(
+                        ValidationEvent.ERROR,
+                        Messages.DANGLING_IDREF.format(id),
+                        new ValidationEventLocatorImpl(idObj) ) );
+                } catch (JAXBException e) {
+                    // this error should have been reported already. just ignore here.
+                }
             }
         }
 
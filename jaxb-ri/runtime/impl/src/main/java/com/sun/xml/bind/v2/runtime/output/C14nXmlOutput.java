@@ -43,11 +43,9 @@ package com.sun.xml.bind.v2.runtime.output;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
-import java.util.Collections;
 
 import com.sun.xml.bind.api.JAXBRIContext;
 import com.sun.xml.bind.v2.runtime.Name;
-import com.sun.istack.FinalArrayList;
 import com.sun.xml.bind.marshaller.CharacterEscapeHandler;
 
 /**
@@ -62,6 +60,8 @@ public class C14nXmlOutput extends UTF8XmlOutput {
 
         for( int i=0; i<staticAttributes.length; i++ )
             staticAttributes[i] = new StaticAttribute();
+        for( int i=0; i<otherAttributes.length; i++ )
+            otherAttributes[i] = new DynamicAttribute();
     }
 
     /**
@@ -81,14 +81,17 @@ public class C14nXmlOutput extends UTF8XmlOutput {
      * Hosts other attributes whose name are not statically known
      * (AKA attribute wildcard.)
      *
-     * As long as this map is empty, there's no need for sorting.
+     * As long as this is empty, there's no need for sorting.
+     * {@link DynamicAttribute} instances are reused.
      */
-    private final FinalArrayList<DynamicAttribute> otherAttributes = new FinalArrayList<DynamicAttribute>();
+    private DynamicAttribute[] otherAttributes = new DynamicAttribute[8];
+    private int otherLen = 0;
 
     /**
-     * True if {@link JAXBRIContext} is created with c14n support on,
-     * in which case all named attributes are sorted by the marshaller
-     * and we won't have to do it here.
+     * True if all named attributes are sent to us in the canonical order,
+     * in which case we won't have to sort them here.
+     *
+     * @see JAXBRIContext#CANONICALIZATION_SUPPORT
      */
     private final boolean namedAttributesAreOrdered;
 
@@ -105,41 +108,47 @@ public class C14nXmlOutput extends UTF8XmlOutput {
             C14nXmlOutput.super.attribute(name,value);
         }
 
-        DynamicAttribute toDynamicAttribute() {
+        void toDynamicAttribute(DynamicAttribute a) {
             int nsUriIndex = name.nsUriIndex;
-            int prefix;
             if(nsUriIndex==-1)
-                prefix = -1;
+                a.set(-1, "", name.localName, value);
             else
-                prefix = nsUriIndex2prefixIndex[nsUriIndex];
-            return new DynamicAttribute(
-                prefix, name.localName, value );
+                a.set(nsUriIndex2prefixIndex[nsUriIndex], name.nsUri, name.localName, value);
         }
 
         public int compareTo(StaticAttribute that) {
+            if(this.name.nsUriIndex==that.name.nsUriIndex)
+                // same namespace URI, so skip the string comparison
+                return this.name.localName.compareTo(that.name.localName);
             return this.name.compareTo(that.name);
         }
 
     }
 
     final class DynamicAttribute implements Comparable<DynamicAttribute> {
-        final int prefix;
-        final String localName;
-        final String value;
+        int prefix;
+        String localName;
+        String value;
+
+        /**
+         * Namespace URI of the attribute. Computed once when this
+         * attribute is set, as it's repeatedly used during sorting.
+         */
+        String uri;
 
-        public DynamicAttribute(int prefix, String localName, String value) {
+        void set(int prefix, String uri, String localName, String value) {
             this.prefix = prefix;
+            this.uri = uri;
             this.localName = localName;
             this.value = value;
         }
 
-        private String getURI() {
-            if(prefix==-1)  return "";
-            else            return nsContext.getNamespaceURI(prefix);
+        void set(int prefix, String localName, String value) {
+            set(prefix, prefix==-1 ? "" : nsContext.getNamespaceURI(prefix), localName, value);
         }
 
         public int compareTo(DynamicAttribute that) {
-            int r = this.getURI().compareTo(that.getURI());
+            int r = this.uri.compareTo(that.uri);
             if(r!=0)    return r;
             return this.localName.compareTo(that.localName);
         }
@@ -153,7 +162,7 @@ public class C14nXmlOutput extends UTF8XmlOutput {
             StaticAttribute[] newbuf = new StaticAttribute[newLen];
             System.arraycopy(staticAttributes,0,newbuf,0,len);
             for(int i=len;i<newLen;i++)
-                staticAttributes[i] = new StaticAttribute();
+                newbuf[i] = new StaticAttribute();
             staticAttributes = newbuf;
         }
 
@@ -162,17 +171,33 @@ public class C14nXmlOutput extends UTF8XmlOutput {
 
     @Override
     public void attribute(int prefix, String localName, String value) throws IOException {
-        otherAttributes.add(new DynamicAttribute(prefix,localName,value));
+        nextOtherAttribute().set(prefix,localName,value);
+    }
+
+    /**
+     * Returns the next reusable {@link DynamicAttribute} to be filled.
+     */
+    private DynamicAttribute nextOtherAttribute() {
+        if(otherAttributes.length==otherLen) {
+            // reallocate
+            int newLen = otherLen*2;
+            DynamicAttribute[] newbuf = new DynamicAttribute[newLen];
+            System.arraycopy(otherAttributes,0,newbuf,0,otherLen);
+            for(int i=otherLen;i<newLen;i++)
+                newbuf[i] = new DynamicAttribute();
+            otherAttributes = newbuf;
+        }
+        return otherAttributes[otherLen++];
     }
 
     @Override
     public void endStartTag() throws IOException {
-        if(otherAttributes.isEmpty()) {
+        if(otherLen==0) {
             if(len!=0) {
                 // sort is expensive even for size 0 array,
                 // so it's worth checking len==0
                 if(!namedAttributesAreOrdered)
-                    Arrays.sort(staticAttributes,0,len);
+                    sort(staticAttributes,len);
                 // this is the common case
                 for( int i=0; i<len; i++ )
                     staticAttributes[i].write();
@@ -183,21 +208,46 @@ public class C14nXmlOutput extends UTF8XmlOutput {
 
             // sort all the attributes, not just the other attributes
             for( int i=0; i<len; i++ )
-                otherAttributes.add(staticAttributes[i].toDynamicAttribute());
+                staticAttributes[i].toDynamicAttribute(nextOtherAttribute());
             len = 0;
-            Collections.sort(otherAttributes);
+            sort(otherAttributes,otherLen);
 
             // write them all
-            int size = otherAttributes.size();
-            for( int i=0; i<size; i++ ) {
-                DynamicAttribute a = otherAttributes.get(i);
+            for( int i=0; i<otherLen; i++ ) {
+                DynamicAttribute a = otherAttributes[i];
                 super.attribute(a.prefix,a.localName,a.value);
             }
-            otherAttributes.clear();
+            otherLen = 0;
         }
         super.endStartTag();
     }
 
+    /**
+     * Sorts {@code a[0]} to {@code a[len-1]}.
+     *
+     * <p>
+     * Attributes on an element are normally few and often already in order,
+     * so we use an insertion sort, which is just a linear scan for sorted input
+     * and doesn't allocate. Large sets are left to {@link Arrays#sort(Object[], int, int)}.
+     */
+    private static <T extends Comparable<T>> void sort(T[] a, int len) {
+        if(len>INSERTION_SORT_THRESHOLD) {
+            Arrays.sort(a,0,len);
+            return;
+        }
+        for( int i=1; i<len; i++ ) {
+            T x = a[i];
+            int j = i-1;
+            while(j>=0 && a[j].compareTo(x)>0) {
+                a[j+1] = a[j];
+                j--;
+            }
+            a[j+1] = x;
+        }
+    }
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
     /**
      * Write namespace declarations after sorting them.
      */
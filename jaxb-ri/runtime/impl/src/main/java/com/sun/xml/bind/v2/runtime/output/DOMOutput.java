@@ -40,43 +40,201 @@
 
 package com.sun.xml.bind.v2.runtime.output;
 
+import java.io.IOException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+
+import com.sun.xml.bind.marshaller.Messages;
+import com.sun.xml.bind.util.Which;
 import com.sun.xml.bind.v2.runtime.AssociationMap;
-import com.sun.xml.bind.marshaller.SAX2DOMEx;
+import com.sun.xml.bind.v2.runtime.Name;
+import com.sun.xml.bind.v2.runtime.NameList;
+import com.sun.xml.bind.v2.runtime.XMLSerializer;
 
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 /**
- * {@link XmlOutput} implementation that does associative marshalling to DOM.
+ * {@link XmlOutput} implementation that builds a DOM tree.
  *
  * <p>
- * This is used for binder.
+ * Nodes are created directly, without going through SAX events.
+ * The qualified names of the statically known {@link Name}s are
+ * computed once per prefix and reused.
+ *
+ * <p>
+ * When an {@link AssociationMap} is given, this also does associative
+ * marshalling for binder.
  *
  * @author Kohsuke Kawaguchi
  */
-public final class DOMOutput extends SAXOutput {
+public final class DOMOutput extends XmlOutputAbstractImpl {
     private final AssociationMap assoc;
 
+    /**
+     * Document that owns {@link #current}.
+     */
+    private final Document document;
+
+    /**
+     * The node to which the new nodes are added.
+     * The element being written, between {@link #beginStartTag(int, String)} and {@link #endTag(int, String)}.
+     */
+    private Node current;
+
+    /**
+     * Qualified names of the element and attribute {@link Name}s,
+     * indexed by {@link Name#qNameIndex}.
+     * Each name takes two slots, the prefix and the qualified name built with it.
+     */
+    private String[] elementQNames, attributeQNames;
+
+    public DOMOutput(Node node) {
+        this(node,null);
+    }
+
+    /**
+     * @param assoc
+     *      If non-null, the elements are associated with the objects they are
+     *      marshalled from.
+     */
     public DOMOutput(Node node, AssociationMap assoc) {
-        super(new SAX2DOMEx(node));
+        this.current = node;
         this.assoc = assoc;
-        assert assoc!=null;
+        if(node instanceof Document)
+            this.document = (Document)node;
+        else
+            this.document = node.getOwnerDocument();
     }
 
-    private SAX2DOMEx getBuilder() {
-        return (SAX2DOMEx)out;
+    @Override
+    public void startDocument(XMLSerializer serializer, boolean fragment, int[] nsUriIndex2prefixIndex, NamespaceContextImpl nsContext) throws IOException, SAXException, XMLStreamException {
+        super.startDocument(serializer,fragment,nsUriIndex2prefixIndex,nsContext);
+        NameList names = serializer.grammar.nameList;
+        elementQNames = new String[names.numberOfElementNames*2];
+        attributeQNames = new String[names.numberOfAttributeNames*2];
     }
 
     @Override
+    public void beginStartTag(Name name) throws IOException, XMLStreamException {
+        int prefix = nsUriIndex2prefixIndex[name.nsUriIndex];
+        startElement(nsContext.getNamespaceURI(prefix),
+            getQName(elementQNames,name.qNameIndex,nsContext.getPrefix(prefix),name.localName));
+    }
+
+    public void beginStartTag(int prefix, String localName) {
+        String p = nsContext.getPrefix(prefix);
+        startElement(nsContext.getNamespaceURI(prefix),
+            p.length()==0 ? localName : p+':'+localName);
+    }
+
+    private void startElement(String nsUri, String qname) {
+        // some broken DOM implementation (we confirmed it with SAXON)
+        // return null from this method.
+        Element e = document.createElementNS(nsUri.length()==0 ? null : nsUri, qname);
+        if(e==null) {
+            // if so, report an user-friendly error message,
+            // rather than dying mysteriously with NPE.
+            throw new AssertionError(
+                Messages.format(Messages.DOM_IMPL_DOESNT_SUPPORT_CREATELEMENTNS,
+                    document.getClass().getName(),
+                    Which.which(document.getClass())));
+        }
+        current.appendChild(e);
+        current = e;
+    }
+
+    @Override
+    public void attribute(Name name, String value) throws IOException, XMLStreamException {
+        short idx = name.nsUriIndex;
+        if(idx==-1) {
+            ((Element)current).setAttributeNS(null,name.localName,value);
+        } else {
+            int prefix = nsUriIndex2prefixIndex[idx];
+            ((Element)current).setAttributeNS(nsContext.getNamespaceURI(prefix),
+                getQName(attributeQNames,name.qNameIndex,nsContext.getPrefix(prefix),name.localName),
+                value);
+        }
+    }
+
+    public void attribute(int prefix, String localName, String value) {
+        if(prefix==-1) {
+            ((Element)current).setAttributeNS(null,localName,value);
+        } else {
+            String p = nsContext.getPrefix(prefix);
+            // an empty prefix here is more likely a bug in the application code (NamespacePrefixMapper implementation).
+            // see SAXOutput.attribute
+            ((Element)current).setAttributeNS(nsContext.getNamespaceURI(prefix),
+                p.length()==0 ? localName : p+':'+localName,
+                value);
+        }
+    }
+
+    /**
+     * Gets the qualified name of a {@link Name} from the cache,
+     * or computes it if the cached one was built with a different prefix.
+     */
+    private static String getQName(String[] cache, int qNameIndex, String prefix, String localName) {
+        int i = qNameIndex*2;
+        if(prefix.equals(cache[i]))
+            return cache[i+1];
+        String qname = prefix.length()==0 ? localName : prefix+':'+localName;
+        cache[i] = prefix;
+        cache[i+1] = qname;
+        return qname;
+    }
+
     public void endStartTag() throws SAXException {
-        super.endStartTag();
+        Element e = (Element)current;
+
+        NamespaceContextImpl.Element ns = nsContext.getCurrent();
+        if(ns==null)
+            return;
+
+        int sz = ns.count();
+        for( int i=0; i<sz; i++ ) {
+            String p = ns.getPrefix(i);
+            String uri = ns.getNsUri(i);
+            if(uri.length()==0 && ns.getBase()==1)
+                continue;   // no point in defining xmlns='' on the root
+            e.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                p.length()==0 ? XMLConstants.XMLNS_ATTRIBUTE : "xmlns:"+p, uri);
+        }
+
+        if(assoc!=null) {
+            Object op = ns.getOuterPeer();
+            if(op!=null)
+                assoc.addOuter( e, op );
+
+            Object ip = ns.getInnerPeer();
+            if(ip!=null)
+                assoc.addInner( e, ip );
+        }
+    }
 
-        Object op = nsContext.getCurrent().getOuterPeer();
-        if(op!=null)
-            assoc.addOuter( getBuilder().getCurrentElement(), op );
+    @Override
+    public void endTag(Name name) {
+        current = current.getParentNode();
+    }
 
-        Object ip = nsContext.getCurrent().getInnerPeer();
-        if(ip!=null)
-            assoc.addInner( getBuilder().getCurrentElement(), ip );
+    public void endTag(int prefix, String localName) {
+        current = current.getParentNode();
+    }
+
+    public void text(String value, boolean needsSP) {
+        current.appendChild(document.createTextNode(needsSP ? ' '+value : value));
+    }
+
+    public void text(Pcdata value, boolean needsSP) {
+        text(value.toString(),needsSP);
+    }
+
+    @Override
+    public void endDocument(boolean fragment) throws IOException, SAXException, XMLStreamException {
+        elementQNames = attributeQNames = null;
+        super.endDocument(fragment);
     }
 }
@@ -0,0 +1,373 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.output;
+
+import java.io.IOException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+
+import com.sun.xml.bind.v2.runtime.AssociationMap;
+import com.sun.xml.bind.v2.util.IdentityHashSet;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link XmlOutput} implementation that updates an existing DOM element
+ * so that it matches what is marshalled, for binder.
+ *
+ * <p>
+ * Each element written is matched against the existing children at the same place:
+ * first the element associated with the same object, then the next element if it has
+ * the same name and isn't associated with another object. A matched element is kept,
+ * and only the attributes and text that differ are written to it. Other elements are
+ * created, and the existing nodes that nothing matched are removed, along with their
+ * associations.
+ *
+ * <p>
+ * So the object graph is marshalled once, and the nodes of the unchanged objects
+ * keep their identity.
+ *
+ * @since 2.4.0
+ */
+public final class DOMUpdateOutput extends XmlOutputAbstractImpl {
+    private final AssociationMap<Node> assoc;
+
+    private final Document document;
+
+    /**
+     * The element being updated.
+     */
+    private final Element target;
+
+    /**
+     * The node after {@link #target}, which is left alone.
+     */
+    private final Node limit;
+
+    /**
+     * The element that is the result of the update, once its start tag is written.
+     */
+    private Element result;
+
+    /**
+     * The element being written, or the parent of {@link #target}.
+     */
+    private Node current;
+
+    /**
+     * The next existing child of {@link #current} to match, or null to append.
+     * Every child before it has been written by this output.
+     */
+    private Node cursor;
+
+    /**
+     * Depth of {@link #current}, the parent of {@link #target} being 0.
+     */
+    private int depth;
+
+    /**
+     * Depth from which the elements are created by this output,
+     * so there is nothing to match, or {@link Integer#MAX_VALUE}.
+     */
+    private int freshDepth = Integer.MAX_VALUE;
+
+    /**
+     * Existing elements that were matched.
+     */
+    private final IdentityHashSet<Node> matched = new IdentityHashSet<Node>();
+
+    /**
+     * Attributes written to the current element.
+     */
+    private final IdentityHashSet<Node> attributes = new IdentityHashSet<Node>();
+
+    /**
+     * @param assoc
+     *      The associations of the existing nodes, which are updated.
+     */
+    public DOMUpdateOutput(Element target, AssociationMap<Node> assoc) {
+        this.target = target;
+        this.assoc = assoc;
+        this.document = target.getOwnerDocument();
+        this.current = target.getParentNode();
+        this.cursor = target;
+        this.limit = target.getNextSibling();
+    }
+
+    /**
+     * Gets the updated element, which is {@link #target} unless it had to be replaced.
+     */
+    public Element getResult() {
+        return result;
+    }
+
+    private boolean isFresh() {
+        return depth>=freshDepth;
+    }
+
+    public void beginStartTag(int prefix, String localName) {
+        String nsUri = nsContext.getNamespaceURI(prefix);
+        if(nsUri.length()==0)
+            nsUri = null;
+        String p = nsContext.getPrefix(prefix);
+
+        Element e = isFresh() ? null : match(nsUri,localName);
+        if(e==null) {
+            e = document.createElementNS(nsUri, p.length()==0 ? localName : p+':'+localName);
+            if(depth==0) {
+                current.replaceChild(e,target);
+                forget(target);
+            } else
+                current.insertBefore(e,cursor);
+            freshDepth = Math.min(freshDepth,depth+1);
+        } else {
+            matched.add(e);
+            if(e!=cursor)
+                current.insertBefore(e,cursor);
+            if(!equals(e.getPrefix(),p.length()==0 ? null : p))
+                e.setPrefix(p.length()==0 ? null : p);
+            // re-associated in endStartTag
+            if(assoc!=null)
+                assoc.remove(e);
+        }
+
+        if(depth==0)
+            result = e;
+        depth++;
+        current = e;
+        cursor = isFresh() ? null : e.getFirstChild();
+    }
+
+    /**
+     * Finds the existing child of {@link #current} that the new element is written to.
+     */
+    private Element match(String nsUri, String localName) {
+        NamespaceContextImpl.Element ns = nsContext.getCurrent();
+        Object inner = ns.getInnerPeer();
+        if(assoc!=null) {
+            Element e = matchPeer(inner,nsUri,localName);
+            if(e==null)
+                e = matchPeer(ns.getOuterPeer(),nsUri,localName);
+            if(e!=null)
+                return e;
+        }
+
+        // the parent of the target is only matched against the target
+        Node n = cursor;
+        if(depth>0) {
+            while(n!=null && isWhitespace(n))
+                n = n.getNextSibling();
+        }
+        if(!(n instanceof Element) || n!=target && depth==0 || !sameName(n,nsUri,localName))
+            return null;
+        if(assoc!=null) {
+            Object p = assoc.getInnerPeer(n);
+            if(p!=null && p!=inner)
+                return null;    // the element of another object
+        }
+        return (Element)n;
+    }
+
+    private Element matchPeer(Object peer, String nsUri, String localName) {
+        if(peer==null)
+            return null;
+        Node n = assoc.getElement(peer);
+        if(!(n instanceof Element) || matched.contains(n))
+            return null;
+        Element e = (Element)n;
+        if(e.getParentNode()!=current || depth==0 && e!=target || !sameName(e,nsUri,localName))
+            return null;
+        return e;
+    }
+
+    private static boolean sameName(Node n, String nsUri, String localName) {
+        return localName.equals(n.getLocalName()) && equals(nsUri,n.getNamespaceURI());
+    }
+
+    private static boolean equals(String a, String b) {
+        return a==null ? b==null : a.equals(b);
+    }
+
+    private static boolean isWhitespace(Node n) {
+        if(n.getNodeType()!=Node.TEXT_NODE)
+            return false;
+        String s = n.getNodeValue();
+        for( int i=0; i<s.length(); i++ ) {
+            char ch = s.charAt(i);
+            if(ch!=' ' && ch!='\t' && ch!='\n' && ch!='\r')
+                return false;
+        }
+        return true;
+    }
+
+    public void attribute(int prefix, String localName, String value) {
+        if(prefix==-1) {
+            setAttribute(null,localName,localName,value);
+        } else {
+            String p = nsContext.getPrefix(prefix);
+            // an empty prefix here is more likely a bug in the application code (NamespacePrefixMapper implementation).
+            // see SAXOutput.attribute
+            setAttribute(nsContext.getNamespaceURI(prefix),localName,
+                p.length()==0 ? localName : p+':'+localName, value);
+        }
+    }
+
+    /**
+     * Sets the attribute of the current element, unless it already has that value.
+     */
+    private void setAttribute(String nsUri, String localName, String qname, String value) {
+        Element e = (Element)current;
+        if(isFresh()) {
+            e.setAttributeNS(nsUri,qname,value);
+            return;
+        }
+        Attr a = e.getAttributeNodeNS(nsUri,localName);
+        if(a==null || !value.equals(a.getValue()) || !qname.equals(a.getName())) {
+            e.setAttributeNS(nsUri,qname,value);
+            a = e.getAttributeNodeNS(nsUri,localName);
+        }
+        attributes.add(a);
+    }
+
+    public void endStartTag() throws SAXException {
+        Element e = (Element)current;
+
+        NamespaceContextImpl.Element ns = nsContext.getCurrent();
+        if(ns==null)
+            return;
+
+        int sz = ns.count();
+        for( int i=0; i<sz; i++ ) {
+            String p = ns.getPrefix(i);
+            String uri = ns.getNsUri(i);
+            if(uri.length()==0 && ns.getBase()==1)
+                continue;   // no point in defining xmlns='' on the root
+            if(p.length()==0)
+                setAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,XMLConstants.XMLNS_ATTRIBUTE,XMLConstants.XMLNS_ATTRIBUTE,uri);
+            else
+                setAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,p,"xmlns:"+p,uri);
+        }
+
+        if(!isFresh()) {
+            // remove the attributes that weren't written this time
+            NamedNodeMap atts = e.getAttributes();
+            for( int i=atts.getLength()-1; i>=0; i-- ) {
+                Attr a = (Attr)atts.item(i);
+                if(!attributes.contains(a))
+                    e.removeAttributeNode(a);
+            }
+            attributes.clear();
+        }
+
+        if(assoc!=null) {
+            Object op = ns.getOuterPeer();
+            if(op!=null)
+                assoc.addOuter( e, op );
+
+            Object ip = ns.getInnerPeer();
+            if(ip!=null)
+                assoc.addInner( e, ip );
+        }
+    }
+
+    public void endTag(int prefix, String localName) {
+        if(!isFresh())
+            removeFrom(cursor,null);
+        if(depth==freshDepth)
+            freshDepth = Integer.MAX_VALUE;
+        depth--;
+        cursor = current.getNextSibling();
+        current = current.getParentNode();
+    }
+
+    public void text(String value, boolean needsSP) {
+        if(needsSP)
+            value = ' '+value;
+        if(!isFresh() && cursor!=null && cursor.getNodeType()==Node.TEXT_NODE) {
+            if(!value.equals(cursor.getNodeValue()))
+                cursor.setNodeValue(value);
+            cursor = cursor.getNextSibling();
+        } else
+            current.insertBefore(document.createTextNode(value),cursor);
+    }
+
+    public void text(Pcdata value, boolean needsSP) {
+        text(value.toString(),needsSP);
+    }
+
+    @Override
+    public void endDocument(boolean fragment) throws IOException, SAXException, XMLStreamException {
+        // the target, if it was replaced by an element of another name
+        removeFrom(cursor,limit);
+        matched.clear();
+        super.endDocument(fragment);
+    }
+
+    /**
+     * Removes the children of {@link #current} from the given one up to the limit.
+     */
+    private void removeFrom(Node n, Node limit) {
+        while(n!=limit) {
+            Node next = n.getNextSibling();
+            current.removeChild(n);
+            forget(n);
+            n = next;
+        }
+    }
+
+    /**
+     * Discards the associations of the given node and its descendants,
+     * after they are removed from the document.
+     */
+    private void forget(Node n) {
+        if(assoc==null || n.getNodeType()!=Node.ELEMENT_NODE)
+            return;
+        assoc.remove(n);
+        for( Node c=n.getFirstChild(); c!=null; c=c.getNextSibling() )
+            forget(c);
+    }
+}
@@ -41,6 +41,7 @@
 package com.sun.xml.bind.v2.runtime.output;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 import java.io.StringWriter;
@@ -92,6 +93,14 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
     /** Index in buffer to write to. */
     protected int octetBufferIndex;
 
+    /**
+     * Buffer used to read binary data from an {@link InputStream} before
+     * it gets base64 encoded. Allocated lazily since most documents have no
+     * streamed binary data. The size is a multiple of 3 so that no padding
+     * is produced except for the last chunk.
+     */
+    private byte[] binaryBuffer;
+
     /**
      * Set to true to indicate that we need to write {@code '>'}
      * to close a start tag. Deferring the write of this char
@@ -376,6 +385,36 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
         }
     }
 
+    /**
+     * Writes the contents of the given {@link InputStream} as base64 encoded binary
+     * to the output.
+     *
+     * <p>
+     * Unlike {@link #text(byte[], int)}, the binary data is read and encoded
+     * chunk by chunk, so the whole data never needs to be in memory at once.
+     * The caller is responsible for closing the stream.
+     */
+    public void text(InputStream in) throws IOException {
+        closeStartTag();
+
+        if(binaryBuffer==null)
+            binaryBuffer = new byte[BINARY_CHUNK_SIZE];
+        final byte[] buf = binaryBuffer;
+
+        while(true) {
+            // fill the whole chunk, so that only the last one may need padding
+            int len = 0;
+            int n;
+            while(len<buf.length && (n=in.read(buf,len,buf.length-len))>=0)
+                len += n;
+
+            if(len>0)
+                text(buf,len);
+            if(len<buf.length)
+                return; // hit EOF
+        }
+    }
+
 //
 //
 // series of the write method that places bytes to the output
@@ -445,4 +484,6 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
 
     // no need to copy
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    private static final int BINARY_CHUNK_SIZE = 3*1024;
 }
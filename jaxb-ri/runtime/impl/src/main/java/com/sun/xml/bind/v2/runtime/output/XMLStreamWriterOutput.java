@@ -51,6 +51,7 @@ import com.sun.xml.bind.marshaller.CharacterEscapeHandler;
 import com.sun.xml.bind.marshaller.NoEscapeHandler;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.XMLSerializer;
+import com.sun.xml.bind.v2.runtime.unmarshaller.Base64Data;
 
 import org.xml.sax.SAXException;
 
@@ -170,6 +171,12 @@ public class XMLStreamWriterOutput extends XmlOutputAbstractImpl {
         if(needsSeparatingWhitespace)
             out.writeCharacters(" ");
 
+        if(value instanceof Base64Data) {
+            // avoid computing the length, which would force the binary data into memory
+            ((Base64Data)value).writeTo(out);
+            return;
+        }
+
         int len = value.length();
         if(len <buf.length) {
             value.writeTo(buf,0);
@@ -45,6 +45,7 @@ import java.io.IOException;
 import javax.xml.stream.XMLStreamException;
 
 import com.sun.xml.bind.v2.model.runtime.RuntimeElementPropertyInfo;
+import com.sun.xml.bind.v2.runtime.ActualTypeCache;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
 import com.sun.xml.bind.v2.runtime.XMLSerializer;
@@ -58,6 +59,8 @@ import org.xml.sax.SAXException;
  */
 final class ArrayElementNodeProperty<BeanT,ListT,ItemT> extends ArrayElementProperty<BeanT,ListT,ItemT> {
 
+    private final ActualTypeCache actualTypes = new ActualTypeCache();
+
     public ArrayElementNodeProperty(JAXBContextImpl p, RuntimeElementPropertyInfo prop) {
         super(p, prop);
     }
@@ -66,7 +69,7 @@ final class ArrayElementNodeProperty<BeanT,ListT,ItemT> extends ArrayElementProp
         if(item==null) {
             w.writeXsiNilTrue();
         } else {
-            w.childAsXsiType(item,fieldName,expected, false);
+            w.childAsXsiType(item,fieldName,expected, false, actualTypes);
         }
     }
 }
@@ -55,6 +55,7 @@ import com.sun.xml.bind.v2.model.core.TypeRef;
 import com.sun.xml.bind.v2.model.runtime.RuntimeElementPropertyInfo;
 import com.sun.xml.bind.v2.model.runtime.RuntimeTypeInfo;
 import com.sun.xml.bind.v2.model.runtime.RuntimeTypeRef;
+import com.sun.xml.bind.v2.runtime.ActualTypeCache;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
 import com.sun.xml.bind.v2.runtime.Name;
@@ -89,6 +90,8 @@ final class SingleElementNodeProperty<BeanT,ValueT> extends PropertyImpl<BeanT>
      */
     private final Name nullTagName;
 
+    private final ActualTypeCache actualTypes = new ActualTypeCache();
+
     public SingleElementNodeProperty(JAXBContextImpl context, RuntimeElementPropertyInfo prop) {
         super(context,prop);
         acc = prop.getAccessor().optimize(context);
@@ -155,7 +158,7 @@ final class SingleElementNodeProperty<BeanT,ValueT> extends PropertyImpl<BeanT>
                 w.childAsXsiType(v,fieldName,w.grammar.getBeanInfo(Object.class), addNilDecl && nillable);
             } else {
                 w.startElement(tt.tagName,null);
-                w.childAsXsiType(v,fieldName,tt.beanInfo, addNilDecl && nillable);
+                w.childAsXsiType(v,fieldName,tt.beanInfo, addNilDecl && nillable, actualTypes);
             }
             w.endElement();
         } else if (nillable) {
@@ -58,6 +58,7 @@ import com.sun.xml.bind.v2.ClassFactory;
 import com.sun.xml.bind.v2.util.QNameMap;
 import com.sun.xml.bind.v2.model.core.PropertyKind;
 import com.sun.xml.bind.v2.model.runtime.RuntimeMapPropertyInfo;
+import com.sun.xml.bind.v2.runtime.ActualTypeCache;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
 import com.sun.xml.bind.v2.runtime.Name;
@@ -91,6 +92,9 @@ final class SingleMapNodeProperty<BeanT,ValueT extends Map> extends PropertyImpl
 
     private final boolean nillable;
 
+    private final ActualTypeCache keyActualTypes = new ActualTypeCache();
+    private final ActualTypeCache valueActualTypes = new ActualTypeCache();
+
     private JaxBeanInfo keyBeanInfo;
     private JaxBeanInfo valueBeanInfo;
 
@@ -267,14 +271,14 @@ final class SingleMapNodeProperty<BeanT,ValueT extends Map> extends PropertyImpl
                 Object key = e.getKey();
                 if(key!=null) {
                     w.startElement(keyTag,key);
-                    w.childAsXsiType(key,fieldName,keyBeanInfo, false);
+                    w.childAsXsiType(key,fieldName,keyBeanInfo, false, keyActualTypes);
                     w.endElement();
                 }
 
                 Object value = e.getValue();
                 if(value!=null) {
                     w.startElement(valueTag,value);
-                    w.childAsXsiType(value,fieldName,valueBeanInfo, false);
+                    w.childAsXsiType(value,fieldName,valueBeanInfo, false, valueActualTypes);
                     w.endElement();
                 }
 
@@ -71,8 +71,15 @@ final class AdaptedAccessor<BeanT,InMemValueT,OnWireValueT> extends Accessor<Bea
     public OnWireValueT get(BeanT bean) throws AccessorException {
         InMemValueT v = core.get(bean);
 
-        XmlAdapter<OnWireValueT,InMemValueT> a = getAdapter();
+        Coordinator coordinator = Coordinator._getInstance();
+        XmlAdapter<OnWireValueT,InMemValueT> a = getAdapter(coordinator);
         try {
+            if(coordinator!=null && coordinator.instrumentation!=null) {
+                long start = System.nanoTime();
+                OnWireValueT r = a.marshal(v);
+                coordinator.instrumentation.adapterInvoked(adapter, System.nanoTime()-start);
+                return r;
+            }
             return a.marshal(v);
         } catch (Exception e) {
             throw new AccessorException(e);
@@ -80,9 +87,20 @@ final class AdaptedAccessor<BeanT,InMemValueT,OnWireValueT> extends Accessor<Bea
     }
 
     public void set(BeanT bean, OnWireValueT o) throws AccessorException {
-        XmlAdapter<OnWireValueT, InMemValueT> a = getAdapter();
+        Coordinator coordinator = Coordinator._getInstance();
+        XmlAdapter<OnWireValueT, InMemValueT> a = getAdapter(coordinator);
         try {
-            core.set(bean, (o == null ? null : a.unmarshal(o)));
+            InMemValueT v = null;
+            if(o != null) {
+                if(coordinator!=null && coordinator.instrumentation!=null) {
+                    long start = System.nanoTime();
+                    v = a.unmarshal(o);
+                    coordinator.instrumentation.adapterInvoked(adapter, System.nanoTime()-start);
+                } else {
+                    v = a.unmarshal(o);
+                }
+            }
+            core.set(bean, v);
         } catch (Exception e) {
             throw new AccessorException(e);
         }
@@ -103,8 +121,7 @@ final class AdaptedAccessor<BeanT,InMemValueT,OnWireValueT> extends Accessor<Bea
      */
     private XmlAdapter<OnWireValueT, InMemValueT> staticAdapter;
 
-    private XmlAdapter<OnWireValueT, InMemValueT> getAdapter() {
-        Coordinator coordinator = Coordinator._getInstance();
+    private XmlAdapter<OnWireValueT, InMemValueT> getAdapter(Coordinator coordinator) {
         if(coordinator!=null)
             return coordinator.getAdapter(adapter);
         else {
@@ -64,8 +64,8 @@ final class AdaptedLister<BeanT,PropT,InMemItemT,OnWireItemT,PackT> extends List
         this.adapter = adapter;
     }
 
-    private XmlAdapter<OnWireItemT,InMemItemT> getAdapter() {
-        return Coordinator._getInstance().getAdapter(adapter);
+    private XmlAdapter<OnWireItemT,InMemItemT> getAdapter(Coordinator coordinator) {
+        return coordinator.getAdapter(adapter);
     }
 
     public ListIterator<OnWireItemT> iterator(PropT prop, XMLSerializer context) {
@@ -79,7 +79,14 @@ final class AdaptedLister<BeanT,PropT,InMemItemT,OnWireItemT,PackT> extends List
     public void addToPack(PackT pack, OnWireItemT item) throws AccessorException {
         InMemItemT r;
         try {
-            r = getAdapter().unmarshal(item);
+            Coordinator coordinator = Coordinator._getInstance();
+            if(coordinator.instrumentation!=null) {
+                long start = System.nanoTime();
+                r = getAdapter(coordinator).unmarshal(item);
+                coordinator.instrumentation.adapterInvoked(adapter, System.nanoTime()-start);
+            } else {
+                r = getAdapter(coordinator).unmarshal(item);
+            }
         } catch (Exception e) {
             throw new AccessorException(e);
         }
@@ -110,7 +117,14 @@ final class AdaptedLister<BeanT,PropT,InMemItemT,OnWireItemT,PackT> extends List
         public OnWireItemT next() throws SAXException, JAXBException {
             InMemItemT next = core.next();
             try {
-                return getAdapter().marshal(next);
+                Coordinator coordinator = Coordinator._getInstance();
+                if(coordinator.instrumentation!=null) {
+                    long start = System.nanoTime();
+                    OnWireItemT r = getAdapter(coordinator).marshal(next);
+                    coordinator.instrumentation.adapterInvoked(adapter, System.nanoTime()-start);
+                    return r;
+                }
+                return getAdapter(coordinator).marshal(next);
             } catch (Exception e) {
                 serializer.reportError(null,e);
                 return null; // recover this error by returning null
@@ -273,6 +273,22 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
          */
         private final Class<? extends T> implClass;
 
+        /**
+         * Expected number of items, learned from the collections this lister packed so far.
+         * It jumps up to the largest size seen and decays towards smaller ones,
+         * so a single huge document doesn't inflate all the collections after it.
+         *
+         * <p>
+         * Updated without synchronization. A stale value only costs a resize.
+         */
+        private int expectedSize;
+
+        /**
+         * Collections are never presized beyond this; past it,
+         * the geometric growth of {@link ArrayList} is cheap enough.
+         */
+        private static final int MAX_EXPECTED_SIZE = 4096;
+
         public CollectionLister(Class<? extends T> implClass) {
             this.implClass = implClass;
         }
@@ -291,12 +307,19 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
 
         public T startPacking(BeanT bean, Accessor<BeanT, T> acc) throws AccessorException {
             T collection = acc.get(bean);
+            int expected = expectedSize;
             if(collection==null) {
-                collection = ClassFactory.create(implClass);
+                if(implClass==ArrayList.class && expected>0)
+                    collection = (T)new ArrayList(expected);
+                else
+                    collection = ClassFactory.create(implClass);
                 if(!acc.isAdapted())
                     acc.set(bean,collection);
+            } else {
+                collection.clear();
+                if(expected>0 && collection instanceof ArrayList)
+                    ((ArrayList)collection).ensureCapacity(expected);
             }
-            collection.clear();
             return collection;
         }
 
@@ -305,6 +328,10 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
         }
 
         public void endPacking( T collection, BeanT bean, Accessor<BeanT,T> acc ) throws AccessorException {
+            int size = Math.min(collection.size(),MAX_EXPECTED_SIZE);
+            int expected = expectedSize;
+            expectedSize = size>=expected ? size : expected-(expected-size)/2;
+
             // this needs to be done in the endPacking, because
             // sometimes the accessor uses an adapter, and the adapter needs to see
             // the whole thing.
@@ -395,17 +422,22 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
             public void run() throws SAXException {
                 try {
                     Object pack = core.startPacking(bean,acc);
+                    boolean eager = context.isEagerIdResolution();
 
                     for( String id : idrefs ) {
-                        Callable callable = context.getObjectFromId(id,itemType);
                         Object t;
 
-                        try {
-                            t = (callable!=null) ? callable.call() : null;
-                        } catch (SAXException e) {
-                            throw e;
-                        } catch (Exception e) {
-                            throw new SAXException2(e);
+                        if(eager) {
+                            t = context.getBoundObject(id);
+                        } else {
+                            Callable callable = context.getObjectFromId(id,itemType);
+                            try {
+                                t = (callable!=null) ? callable.call() : null;
+                            } catch (SAXException e) {
+                                throw e;
+                            } catch (Exception e) {
+                                throw new SAXException2(e);
+                            }
                         }
 
                         if(t==null) {
@@ -454,11 +486,7 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
 
         public String next() throws SAXException, JAXBException {
             last = i.next();
-            String id = context.grammar.getBeanInfo(last,true).getId(last,context);
-            if(id==null) {
-                context.errorMissingId(last);
-            }
-            return id;
+            return context.onIDREF(last);
         }
     }
 
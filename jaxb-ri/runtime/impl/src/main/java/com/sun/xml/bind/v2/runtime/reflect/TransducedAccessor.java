@@ -43,7 +43,6 @@ package com.sun.xml.bind.v2.runtime.reflect;
 import java.io.IOException;
 import java.util.concurrent.Callable;
 
-import javax.xml.bind.JAXBException;
 import javax.xml.bind.annotation.XmlValue;
 import javax.xml.stream.XMLStreamException;
 
@@ -260,7 +259,8 @@ public abstract class TransducedAccessor<BeanT> {
      * BeanT: the type of the bean that contains this the IDREF field.
      * TargetT: the type of the bean pointed by IDREF.
      */
-    private static final class IDREFTransducedAccessorImpl<BeanT,TargetT> extends DefaultTransducedAccessor<BeanT> {
+    private static final class IDREFTransducedAccessorImpl<BeanT,TargetT> extends DefaultTransducedAccessor<BeanT>
+            implements UnmarshallingContext.IDREFAssigner {
         private final Accessor<BeanT,TargetT> acc;
         /**
          * The object that an IDREF resolves to should be
@@ -277,16 +277,7 @@ public abstract class TransducedAccessor<BeanT> {
             TargetT target = acc.get(bean);
             if(target==null)    return null;
             
-            XMLSerializer w = XMLSerializer.getInstance();
-            try {
-                String id = w.grammar.getBeanInfo(target,true).getId(target,w);
-                if(id==null)
-                    w.errorMissingId(target);
-                return id;
-            } catch (JAXBException e) {
-                w.reportError(null,e);
-                return null;
-            }
+            return XMLSerializer.getInstance().onIDREF(target);
         }
 
         private void assign( BeanT bean, TargetT t, UnmarshallingContext context ) throws AccessorException {
@@ -296,10 +287,24 @@ public abstract class TransducedAccessor<BeanT> {
                 acc.set(bean,t);
         }
 
+        public void assign(Object bean, Object target) throws AccessorException {
+            assign((BeanT)bean,(TargetT)target,UnmarshallingContext.getInstance());
+        }
+
         public void parse(final BeanT bean, CharSequence lexical) throws AccessorException, SAXException {
             final String idref = WhiteSpaceProcessor.trim(lexical).toString();
             final UnmarshallingContext context = UnmarshallingContext.getInstance();
 
+            if(context.isEagerIdResolution()) {
+                // resolve backward references right away, and only remember the forward ones
+                Object t = context.getBoundObject(idref);
+                if(t!=null)
+                    assign(bean,(TargetT)t,context);
+                else
+                    context.addForwardReference(bean,this,idref);
+                return;
+            }
+
             final Callable callable = context.getObjectFromId(idref,acc.valueType);
             if(callable==null) {
                 // the IDResolver decided to abort it now
@@ -309,14 +309,57 @@ public final class Base64Data extends Pcdata {
     }
 
     public void writeTo(UTF8XmlOutput output) throws IOException {
-        // TODO: this is inefficient if the data source is note byte[] but DataHandler
-        get();
+        if (data == null) {
+            // stream the data from DataHandler without buffering it all in memory
+            InputStream is = dataHandler.getInputStream();
+            try {
+                output.text(is);
+            } finally {
+                is.close();
+            }
+            return;
+        }
         output.text(data, dataLen);
     }
 
     public void writeTo(XMLStreamWriter output) throws IOException, XMLStreamException {
-        get();
+        if (data == null) {
+            InputStream is = dataHandler.getInputStream();
+            try {
+                writeTo(is, output);
+            } finally {
+                is.close();
+            }
+            return;
+        }
         DatatypeConverterImpl._printBase64Binary(data, 0, dataLen, output);
     }
+
+    /**
+     * Reads the binary data from the given stream chunk by chunk and writes
+     * them out as base64 encoded characters.
+     */
+    private static void writeTo(InputStream is, XMLStreamWriter output) throws IOException, XMLStreamException {
+        // the chunk size must be a multiple of 3 so that only the last chunk has padding
+        byte[] buf = new byte[CHUNK_SIZE];
+        char[] chars = new char[CHUNK_SIZE / 3 * 4];
+
+        while (true) {
+            int len = 0;
+            int n;
+            while (len < buf.length && (n = is.read(buf, len, buf.length - len)) >= 0) {
+                len += n;
+            }
+            if (len > 0) {
+                int clen = DatatypeConverterImpl._printBase64Binary(buf, 0, len, chars, 0);
+                output.writeCharacters(chars, 0, clen);
+            }
+            if (len < buf.length) {
+                return; // EOF
+            }
+        }
+    }
+
+    private static final int CHUNK_SIZE = 3 * 1024;
     
 }
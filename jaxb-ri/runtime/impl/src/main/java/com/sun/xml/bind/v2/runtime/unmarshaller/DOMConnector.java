@@ -0,0 +1,411 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.unmarshaller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.ValidationEventLocator;
+import javax.xml.bind.helpers.ValidationEventLocatorImpl;
+
+import com.sun.xml.bind.WhiteSpaceProcessor;
+import com.sun.xml.bind.unmarshaller.DOMScanner;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * Visits a W3C DOM tree and feeds events to {@link XmlVisitor}.
+ *
+ * <p>
+ * Unlike {@link DOMScanner} with {@link SAXConnector}, this doesn't go through SAX.
+ * Names are taken from the DOM level 2 namespace information of the nodes,
+ * attributes are read through a view over the {@link NamedNodeMap} instead of being copied,
+ * and text nodes are passed as they are. Only the namespace declarations of the ancestors
+ * of the scanned element need to be reconstructed, once per scan.
+ *
+ * <p>
+ * DOMs built without namespace support are handled like {@link DOMScanner} does,
+ * by using the qualified names as the local names.
+ *
+ * <p>
+ * This is only used by {@link UnmarshallerImpl#unmarshal(Node)}. The binder needs an
+ * {@link com.sun.xml.bind.unmarshaller.InfosetScanner} that reports to a
+ * {@link org.xml.sax.ContentHandler}, so it keeps using {@link DOMScanner}.
+ *
+ * @since 2.4.0
+ */
+public final class DOMConnector implements LocatorEx {
+
+    private final XmlVisitor visitor;
+    private final UnmarshallingContext context;
+    private final XmlVisitor.TextPredictor predictor;
+
+    /** The node being visited, for the location information. */
+    private Node currentNode;
+
+    private final class TagNameImpl extends TagName {
+        /** The element being started or ended. */
+        Element element;
+
+        public String getQname() {
+            return element.getTagName();
+        }
+    }
+
+    private final TagNameImpl tagName = new TagNameImpl();
+
+    private final AttributesView atts = new AttributesView();
+
+    /**
+     * Text seen since the last tag. {@link #text} if there was only one text node,
+     * otherwise {@link #buffer} has the concatenation of them.
+     */
+    private String text;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Names coming from DOM are not necessarily interned, but DOM implementations
+     * usually keep one instance per name. So remember the interned string by identity
+     * to avoid calling {@link String#intern()} over and over again.
+     */
+    private final String[] internCache = new String[256*2];
+
+    /**
+     * @param visitor
+     *      receives the events. It doesn't have to intern names.
+     */
+    public DOMConnector(XmlVisitor visitor) {
+        this.visitor = visitor;
+        this.context = visitor.getContext();
+        this.predictor = visitor.getPredictor();
+    }
+
+    public UnmarshallingContext getContext() {
+        return context;
+    }
+
+    /**
+     * Visits the given {@link Document} or {@link Element}.
+     *
+     * @throws IllegalArgumentException
+     *      if the node is neither a document nor an element.
+     */
+    public void scan(Node node) throws SAXException {
+        Element e;
+        if(node.getNodeType()==Node.ELEMENT_NODE)
+            e = (Element)node;
+        else
+        if(node.getNodeType()==Node.DOCUMENT_NODE)
+            e = ((Document)node).getDocumentElement();
+        else
+            throw new IllegalArgumentException("Unexpected node type: "+node);
+
+        currentNode = e;
+        visitor.startDocument(this,null);
+
+        // declare the bindings in scope at the element
+        List<String> inscope = new ArrayList<String>();
+        for( Node n=e.getParentNode(); n!=null && n.getNodeType()==Node.ELEMENT_NODE; n=n.getParentNode() ) {
+            NamedNodeMap attributes = n.getAttributes();
+            int len = attributes==null ? 0 : attributes.getLength();
+            for( int i=0; i<len; i++ ) {
+                Attr a = (Attr)attributes.item(i);
+                String prefix = getDeclaredPrefix(a);
+                if(prefix!=null && !inscope.contains(prefix)) {
+                    // the nearest declaration wins
+                    inscope.add(prefix);
+                    visitor.startPrefixMapping(prefix,intern(a.getValue()));
+                }
+            }
+        }
+
+        visit(e);
+
+        for( int i=inscope.size()-1; i>=0; i-- )
+            visitor.endPrefixMapping(inscope.get(i));
+
+        currentNode = e;
+        visitor.endDocument();
+    }
+
+    /**
+     * If the given attribute is a namespace declaration, returns the interned prefix it declares.
+     * Otherwise null.
+     */
+    private String getDeclaredPrefix(Attr a) {
+        String nsUri = a.getNamespaceURI();
+        if(nsUri!=null) {
+            if(!nsUri.equals(XMLConstants.XMLNS_ATTRIBUTE_NS_URI))
+                return null;
+            String local = a.getLocalName();
+            return local.equals(XMLConstants.XMLNS_ATTRIBUTE) ? "" : intern(local);
+        }
+        // DOM built without namespace support
+        String name = a.getName();
+        if(!name.startsWith(XMLConstants.XMLNS_ATTRIBUTE))
+            return null;
+        if(name.length()==5)
+            return "";
+        if(name.charAt(5)!=':')
+            return null;
+        return intern(name.substring(6));
+    }
+
+    private void visit(Element e) throws SAXException {
+        currentNode = e;
+        processText(!context.getCurrentState().isMixed());
+
+        NamedNodeMap attributes = e.getAttributes();
+        int len = attributes==null ? 0 : attributes.getLength();
+        int nsDecls = 0;
+        atts.reset(attributes);
+        for( int i=0; i<len; i++ ) {
+            Attr a = (Attr)attributes.item(i);
+            String prefix = getDeclaredPrefix(a);
+            if(prefix!=null) {
+                visitor.startPrefixMapping(prefix,intern(a.getValue()));
+                nsDecls++;
+            } else {
+                atts.add(i);
+            }
+        }
+
+        setTagName(e);
+        tagName.atts = atts;
+        visitor.startElement(tagName);
+
+        for( Node n=e.getFirstChild(); n!=null; n=n.getNextSibling() ) {
+            switch(n.getNodeType()) {
+            case Node.CDATA_SECTION_NODE:
+            case Node.TEXT_NODE:
+                if(predictor.expectText())
+                    addText(n.getNodeValue());
+                break;
+            case Node.ELEMENT_NODE:
+                visit((Element)n);
+                break;
+            default:
+                // entity references, processing instructions and comments are ignored,
+                // just like SAXConnector does.
+                break;
+            }
+        }
+
+        currentNode = e;
+        processText(false);
+        setTagName(e);
+        visitor.endElement(tagName);
+
+        if(nsDecls>0) {
+            for( int i=len-1; i>=0; i-- ) {
+                String prefix = getDeclaredPrefix((Attr)attributes.item(i));
+                if(prefix!=null)
+                    visitor.endPrefixMapping(prefix);
+            }
+        }
+    }
+
+    private void setTagName(Element e) {
+        tagName.element = e;
+        String local = e.getLocalName();
+        if(local==null) {
+            // DOM built without namespace support
+            tagName.uri = "";
+            tagName.local = intern(e.getTagName());
+        } else {
+            tagName.uri = intern(fixNull(e.getNamespaceURI()));
+            tagName.local = intern(local);
+        }
+    }
+
+    private void addText(String s) {
+        if(text==null && buffer.length()==0) {
+            text = s;
+        } else {
+            if(text!=null) {
+                buffer.append(text);
+                text = null;
+            }
+            buffer.append(s);
+        }
+    }
+
+    private void processText(boolean ignorable) throws SAXException {
+        CharSequence pcdata = text!=null ? text : buffer;
+        if(predictor.expectText() && (!ignorable || !WhiteSpaceProcessor.isWhiteSpace(pcdata)))
+            visitor.text(pcdata);
+        text = null;
+        buffer.setLength(0);
+    }
+
+    private static String fixNull(String s) {
+        if(s==null) return "";
+        else        return s;
+    }
+
+    private String intern(String s) {
+        int i = (System.identityHashCode(s)&0xFF)*2;
+        if(internCache[i]==s)
+            return internCache[i+1];
+        String interned = s.intern();
+        internCache[i] = s;
+        internCache[i+1] = interned;
+        return interned;
+    }
+
+    /**
+     * {@link Attributes} of the current element, minus the namespace declarations.
+     * Reads directly from the {@link NamedNodeMap}.
+     */
+    private final class AttributesView implements Attributes {
+        private NamedNodeMap attributes;
+        /** Indices in {@link #attributes} of the attributes that are visible. */
+        private int[] indices = new int[16];
+        private int len;
+
+        void reset(NamedNodeMap attributes) {
+            this.attributes = attributes;
+            len = 0;
+        }
+
+        void add(int index) {
+            if(len==indices.length) {
+                int[] n = new int[len*2];
+                System.arraycopy(indices,0,n,0,len);
+                indices = n;
+            }
+            indices[len++] = index;
+        }
+
+        private Attr attr(int index) {
+            if(index<0 || index>=len)
+                return null;
+            return (Attr)attributes.item(indices[index]);
+        }
+
+        public int getLength() {
+            return len;
+        }
+
+        public String getURI(int index) {
+            Attr a = attr(index);
+            if(a==null)     return null;
+            if(a.getLocalName()==null)  return "";  // DOM built without namespace support
+            return intern(fixNull(a.getNamespaceURI()));
+        }
+
+        public String getLocalName(int index) {
+            Attr a = attr(index);
+            if(a==null)     return null;
+            String local = a.getLocalName();
+            return intern(local!=null ? local : a.getName());
+        }
+
+        public String getQName(int index) {
+            Attr a = attr(index);
+            return a==null ? null : intern(a.getName());
+        }
+
+        public String getType(int index) {
+            return index<0 || index>=len ? null : "CDATA";
+        }
+
+        public String getValue(int index) {
+            Attr a = attr(index);
+            return a==null ? null : a.getValue();
+        }
+
+        public int getIndex(String uri, String localName) {
+            for( int i=0; i<len; i++ ) {
+                Attr a = (Attr)attributes.item(indices[i]);
+                String local = a.getLocalName();
+                if(local==null) {
+                    if(uri.length()==0 && localName.equals(a.getName()))
+                        return i;
+                } else
+                if(localName.equals(local) && uri.equals(fixNull(a.getNamespaceURI())))
+                    return i;
+            }
+            return -1;
+        }
+
+        public int getIndex(String qName) {
+            for( int i=0; i<len; i++ )
+                if(qName.equals(((Attr)attributes.item(indices[i])).getName()))
+                    return i;
+            return -1;
+        }
+
+        public String getType(String uri, String localName) {
+            return getType(getIndex(uri,localName));
+        }
+
+        public String getType(String qName) {
+            return getType(getIndex(qName));
+        }
+
+        public String getValue(String uri, String localName) {
+            return getValue(getIndex(uri,localName));
+        }
+
+        public String getValue(String qName) {
+            return getValue(getIndex(qName));
+        }
+    }
+
+
+    // LocatorEx implementation
+    public String getPublicId() { return null; }
+    public String getSystemId() { return null; }
+    public int getLineNumber() { return -1; }
+    public int getColumnNumber() { return -1; }
+
+    public ValidationEventLocator getLocation() {
+        return new ValidationEventLocatorImpl(currentNode);
+    }
+}
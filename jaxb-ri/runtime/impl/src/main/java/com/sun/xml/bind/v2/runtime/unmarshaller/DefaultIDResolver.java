@@ -70,12 +70,19 @@ final class DefaultIDResolver extends IDResolver {
         idmap.put(id,obj);
     }
 
+    /**
+     * Gets the object bound to the given ID, or null if there's none (yet).
+     */
+    Object get(String id) {
+        if(idmap==null)     return null;
+        return idmap.get(id);
+    }
+
     @Override
     public Callable resolve(final String id, Class targetType) {
         return new Callable() {
             public Object call() throws Exception {
-                if(idmap==null)     return null;
-                return idmap.get(id);
+                return get(id);
             }
         };
     }
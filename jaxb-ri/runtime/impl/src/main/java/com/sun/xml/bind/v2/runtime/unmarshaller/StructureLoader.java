@@ -42,7 +42,9 @@ package com.sun.xml.bind.v2.runtime.unmarshaller;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
@@ -50,6 +52,7 @@ import com.sun.xml.bind.Util;
 import com.sun.xml.bind.api.AccessorException;
 import com.sun.xml.bind.api.JAXBRIContext;
 import com.sun.xml.bind.v2.WellKnownNamespace;
+import com.sun.xml.bind.v2.runtime.BeanCodec;
 import com.sun.xml.bind.v2.runtime.ClassBeanInfoImpl;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
@@ -100,6 +103,12 @@ public final class StructureLoader extends Loader {
      */
     private /*final*/ QNameMap<TransducedAccessor> attUnmarshallers;
 
+    /**
+     * Unmarshallers for attribute values of the classes that use a {@link BeanCodec}.
+     * Null if there's none, otherwise {@link #attUnmarshallers} isn't null either.
+     */
+    private /*final*/ QNameMap<BeanCodec<?>.AttributeSlot> codecAttUnmarshallers;
+
     /**
      * This will receive all the attributes
      * that were not processed. Never be null.
@@ -108,6 +117,12 @@ public final class StructureLoader extends Loader {
 
     private final JaxBeanInfo beanInfo;
 
+    /**
+     * True if the bean is created by {@link ClassBeanInfoImpl#construct(Object, UnmarshallingContext)}
+     * after its properties are unmarshalled into a scratch instance.
+     */
+    private final boolean construct;
+
     /**
      * The number of scopes this dispatcher needs to keep active.
      */
@@ -119,6 +134,7 @@ public final class StructureLoader extends Loader {
     public StructureLoader(ClassBeanInfoImpl beanInfo) {
         super(true);
         this.beanInfo = beanInfo;
+        this.construct = beanInfo.hasXmlConstructor();
     }
 
     /**
@@ -131,6 +147,9 @@ public final class StructureLoader extends Loader {
     public void init( JAXBContextImpl context, ClassBeanInfoImpl beanInfo, Accessor<?,Map<QName,String>> attWildcard) {
         UnmarshallerChain chain = new UnmarshallerChain(context);
         for (ClassBeanInfoImpl bi = beanInfo; bi != null; bi = bi.superClazz) {
+            // the codec parses leaves in place of the properties below,
+            // unless they need to handle xsi:nil. Its attributes are looked up first.
+            boolean useCodec = bi.useCodec(context) && !context.allNillable;
             for (int i = bi.properties.length - 1; i >= 0; i--) {
                 Property p = bi.properties[i];
 
@@ -149,6 +168,17 @@ public final class StructureLoader extends Loader {
                     break;
                 }
             }
+            if(useCodec) {
+                if(codecAttUnmarshallers==null)
+                    codecAttUnmarshallers = new QNameMap<BeanCodec<?>.AttributeSlot>();
+                bi.codec.buildLoaders(childUnmarshallers,codecAttUnmarshallers);
+            }
+        }
+        if(codecAttUnmarshallers!=null) {
+            if(codecAttUnmarshallers.isEmpty())
+                codecAttUnmarshallers = null;
+            else if(attUnmarshallers==null)
+                attUnmarshallers = EMPTY;
         }
 
         this.frameSize = chain.getScopeSize();
@@ -175,8 +205,9 @@ public final class StructureLoader extends Loader {
         Object child;
         assert !beanInfo.isImmutable();
 
-        // let's see if we can reuse the existing peer object
-        child = context.getInnerPeer();
+        // let's see if we can reuse the existing peer object.
+        // immutable objects can't be updated in place, so they always start from scratch.
+        child = construct ? null : context.getInnerPeer();
 
         if(child != null && beanInfo.jaxbType!=child.getClass()) 
             child = null;   // unexpected type.
@@ -206,6 +237,17 @@ public final class StructureLoader extends Loader {
                     alocal = atts.getQName(i);
                 }
                 String avalue = atts.getValue(i);                
+                if(codecAttUnmarshallers!=null) {
+                    BeanCodec<?>.AttributeSlot slot = codecAttUnmarshallers.get(auri, alocal);
+                    if(slot!=null) {
+                        try {
+                            slot.parse(child,avalue);
+                        } catch (RuntimeException e) {
+                            handleParseConversionException(state,e);
+                        }
+                        continue;
+                    }
+                }
                 TransducedAccessor xacc = attUnmarshallers.get(auri, alocal);
                 try {
                     if(xacc!=null) {
@@ -282,6 +324,11 @@ public final class StructureLoader extends Loader {
 
     @Override
     public Collection<QName> getExpectedAttributes() {
+        if(codecAttUnmarshallers!=null) {
+            Set<QName> names = new HashSet<QName>(attUnmarshallers.keySet());
+            names.addAll(codecAttUnmarshallers.keySet());
+            return names;
+        }
         return attUnmarshallers.keySet();
     }
 
@@ -293,7 +340,16 @@ public final class StructureLoader extends Loader {
 
     @Override
     public void leaveElement(UnmarshallingContext.State state, TagName ea) throws SAXException {
-        state.getContext().endScope(frameSize);
+        UnmarshallingContext context = state.getContext();
+        context.endScope(frameSize);
+        if(construct) {
+            Object scratch = state.getTarget();
+            Object bean = ((ClassBeanInfoImpl)beanInfo).construct(scratch,context);
+            if(bean!=scratch) {
+                context.recordInnerPeer(bean,scratch);
+                state.setTarget(bean);
+            }
+        }
         fireAfterUnmarshal(beanInfo, state.getTarget(), state.getPrev());
     }
 
@@ -68,20 +68,18 @@ import javax.xml.validation.Schema;
 
 import com.sun.xml.bind.IDResolver;
 import com.sun.xml.bind.api.ClassResolver;
-import com.sun.xml.bind.unmarshaller.DOMScanner;
 import com.sun.xml.bind.unmarshaller.InfosetScanner;
 import com.sun.xml.bind.unmarshaller.Messages;
 import com.sun.xml.bind.v2.ClassFactory;
 import com.sun.xml.bind.v2.runtime.AssociationMap;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
+import com.sun.xml.bind.v2.util.CountingInputStream;
 import com.sun.xml.bind.v2.util.XmlFactory;
 
 import java.io.Closeable;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -108,6 +106,24 @@ import org.xml.sax.helpers.DefaultHandler;
      */
     private Schema schema;
 
+    /**
+     * True to validate on another thread while unmarshalling.
+     * @see #CONCURRENT_VALIDATION
+     */
+    private boolean concurrentValidation;
+
+    /**
+     * True to skip the validation of the text that can't be invalid.
+     * @see #BINDING_AWARE_VALIDATION
+     */
+    private boolean bindingAwareValidation;
+
+    /**
+     * The validator of the pipe line last created by {@link #createUnmarshallerHandler},
+     * or null if there's no schema.
+     */
+    private ValidatingUnmarshaller validatingUnmarshaller;
+
     public final UnmarshallingContext coordinator;
 
     /** Unmarshaller.Listener */
@@ -194,7 +210,9 @@ import org.xml.sax.helpers.DefaultHandler;
 
         // delegate to JAXP 1.3 for validation if the client provided a schema
         if (schema != null) {
-            unmarshaller = new ValidatingUnmarshaller(schema,unmarshaller);
+            unmarshaller = validatingUnmarshaller = new ValidatingUnmarshaller(schema,unmarshaller,concurrentValidation,bindingAwareValidation);
+        } else {
+            validatingUnmarshaller = null;
         }
 
         if(attachmentUnmarshaller!=null && attachmentUnmarshaller.isXOPPackage()) {
@@ -240,6 +258,17 @@ import org.xml.sax.helpers.DefaultHandler;
 
         SAXConnector connector = getUnmarshallerHandler(needsInterning(reader),expectedType);
 
+        if(context.instrumentation!=null && source.getByteStream()!=null && source.getCharacterStream()==null) {
+            // count the bytes. copy the InputSource so that we won't modify what the user gave us
+            CountingInputStream in = new CountingInputStream(source.getByteStream());
+            InputSource counted = new InputSource(in);
+            counted.setSystemId(source.getSystemId());
+            counted.setPublicId(source.getPublicId());
+            counted.setEncoding(source.getEncoding());
+            source = counted;
+            coordinator.countingInput = in;
+        }
+
         reader.setContentHandler(connector);
         // saxErrorHandler will be set by the getUnmarshallerHandler method.
         // configure XMLReader so that the error will be sent to it.
@@ -262,6 +291,8 @@ import org.xml.sax.helpers.DefaultHandler;
         } catch( SAXException e ) {
             coordinator.clearStates();
             throw createUnmarshalException(e);
+        } finally {
+            cancelValidation();
         }
 
         Object result = connector.getResult();
@@ -360,24 +391,16 @@ import org.xml.sax.helpers.DefaultHandler;
 
     public final Object unmarshal0( Node node, JaxBeanInfo expectedType ) throws JAXBException {
         try {
-            final DOMScanner scanner = new DOMScanner();
+            final DOMConnector connector = new DOMConnector(createUnmarshallerHandler(null,false,expectedType));
+            connector.scan(node);
 
-            InterningXmlVisitor handler = new InterningXmlVisitor(createUnmarshallerHandler(null,false,expectedType));
-            scanner.setContentHandler(new SAXConnector(handler,scanner));
-
-            if(node.getNodeType() == Node.ELEMENT_NODE) {
-                scanner.scan((Element)node);
-            } else if(node.getNodeType() == Node.DOCUMENT_NODE) {
-                scanner.scan((Document)node);
-            } else {
-                throw new IllegalArgumentException("Unexpected node type: "+node);
-            }
-
-            Object retVal = handler.getContext().getResult();
-            handler.getContext().clearResult();
+            Object retVal = connector.getContext().getResult();
+            connector.getContext().clearResult();
             return retVal;
         } catch( SAXException e ) {
             throw createUnmarshalException(e);
+        } finally {
+            cancelValidation();
         }
     }
 
@@ -415,6 +438,8 @@ import org.xml.sax.helpers.DefaultHandler;
             connector.bridge();
         } catch (XMLStreamException e) {
             throw handleStreamException(e);
+        } finally {
+            cancelValidation();
         }
 
         Object retVal = h.getContext().getResult();
@@ -461,6 +486,20 @@ import org.xml.sax.helpers.DefaultHandler;
             return h.getContext().getResult();
         } catch (XMLStreamException e) {
             throw handleStreamException(e);
+        } finally {
+            cancelValidation();
+        }
+    }
+
+    /**
+     * Stops the concurrent validation of a document that wasn't unmarshalled to the end,
+     * so that the validator thread doesn't wait for the rest of it.
+     * Does nothing if the document was completed.
+     */
+    private void cancelValidation() {
+        if(validatingUnmarshaller!=null) {
+            validatingUnmarshaller.cancel();
+            validatingUnmarshaller = null;
         }
     }
 
@@ -490,6 +529,12 @@ import org.xml.sax.helpers.DefaultHandler;
         if(name.equals(IDResolver.class.getName())) {
             return idResolver;
         }
+        if(name.equals(CONCURRENT_VALIDATION)) {
+            return concurrentValidation;
+        }
+        if(name.equals(BINDING_AWARE_VALIDATION)) {
+            return bindingAwareValidation;
+        }
         return super.getProperty(name);
     }
 
@@ -511,11 +556,45 @@ import org.xml.sax.helpers.DefaultHandler;
             coordinator.classLoader = (ClassLoader)value;
             return;
         }
+        if(name.equals(CONCURRENT_VALIDATION)) {
+            if(!(value instanceof Boolean))
+                throw new PropertyException(name,value);
+            concurrentValidation = (Boolean)value;
+            return;
+        }
+        if(name.equals(BINDING_AWARE_VALIDATION)) {
+            if(!(value instanceof Boolean))
+                throw new PropertyException(name,value);
+            bindingAwareValidation = (Boolean)value;
+            return;
+        }
         super.setProperty(name, value);
     }
 
     public static final String FACTORY = "com.sun.xml.bind.ObjectFactory";
 
+    /**
+     * Set to true to run the validation against {@link #setSchema(Schema) the schema}
+     * on another thread, in parallel with the unmarshalling.
+     * The result is returned only after the validation has completed.
+     * Validation errors are reported later than the events they are about,
+     * see {@link com.sun.xml.bind.v2.util.ValidatorPipe}.
+     *
+     * @since 2.4.0
+     */
+    public static final String CONCURRENT_VALIDATION = "com.sun.xml.bind.concurrentValidation";
+
+    /**
+     * Set to true to have the validation against {@link #setSchema(Schema) the schema}
+     * skip the text that can't make the document invalid, such as the values of
+     * {@code xs:string} elements and the whitespace between elements.
+     * Identity constraints and fixed values on {@code xs:string} elements are then not checked.
+     * Has no effect together with {@link #CONCURRENT_VALIDATION}.
+     *
+     * @since 2.4.0
+     */
+    public static final String BINDING_AWARE_VALIDATION = "com.sun.xml.bind.bindingAwareValidation";
+
     @Override
     public void setSchema(Schema schema) {
         this.schema = schema;
@@ -43,6 +43,7 @@ package com.sun.xml.bind.v2.runtime.unmarshaller;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -71,12 +72,14 @@ import com.sun.xml.bind.IDResolver;
 import com.sun.xml.bind.Util;
 import com.sun.xml.bind.api.AccessorException;
 import com.sun.xml.bind.api.ClassResolver;
+import com.sun.xml.bind.api.Instrumentation;
 import com.sun.xml.bind.unmarshaller.InfosetScanner;
 import com.sun.xml.bind.v2.ClassFactory;
 import com.sun.xml.bind.v2.runtime.AssociationMap;
 import com.sun.xml.bind.v2.runtime.Coordinator;
 import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
 import com.sun.xml.bind.v2.runtime.JaxBeanInfo;
+import com.sun.xml.bind.v2.util.CountingInputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -104,6 +107,25 @@ public final class UnmarshallingContext extends Coordinator
      */
     private final State root;
 
+    /**
+     * Number of elements seen so far in the current document.
+     *
+     * @see Instrumentation#unmarshalled(long, long, int)
+     */
+    private int elementCount;
+
+    /**
+     * {@link System#nanoTime()} at the start of the current document.
+     * Only set if {@link #instrumentation} is enabled.
+     */
+    private long startTime;
+
+    /**
+     * If non-null, counts the bytes of the current document.
+     * Only set if {@link #instrumentation} is enabled.
+     */
+    /*package*/ CountingInputStream countingInput;
+
     /**
      * The currently active state.
      */
@@ -141,6 +163,13 @@ public final class UnmarshallingContext extends Coordinator
      */
     private IDResolver idResolver;
 
+    /**
+     * {@link #idResolver} if it's the {@link DefaultIDResolver}, which allows
+     * IDREFs to be resolved without going through {@link Callable}s.
+     * Otherwise null.
+     */
+    private DefaultIDResolver defaultIdResolver;
+
     /**
      * This flag is set to true at the startDocument event
      * and false at the endDocument event.
@@ -427,6 +456,7 @@ public final class UnmarshallingContext extends Coordinator
      *      in-place unmarshalling. Otherwise must be both null.
      */
     public UnmarshallingContext( UnmarshallerImpl _parent, AssociationMap assoc) {
+        super(_parent.context.instrumentation);
         this.parent = _parent;
         this.assoc = assoc;
         this.root = this.current = new State(null);
@@ -437,6 +467,8 @@ public final class UnmarshallingContext extends Coordinator
         this.isInplaceMode = isInplaceMode;
         this.expectedType = expectedType;
         this.idResolver = idResolver;
+        this.defaultIdResolver = idResolver instanceof DefaultIDResolver ? (DefaultIDResolver)idResolver : null;
+        this.countingInput = null;
     }
 
     public JAXBContextImpl getJAXBContext() {
@@ -537,9 +569,14 @@ public final class UnmarshallingContext extends Coordinator
         current = root;
 
         patchersLen=0;
+        forwardRefsLen=0;
         aborted = false;
         isUnmarshalInProgress = true;
         nsLen=0;
+        nsGeneration++;     // environmentNamespaceContext may have changed
+        elementCount=0;
+        if(instrumentation!=null)
+            startTime = System.nanoTime();
 
         if(expectedType!=null)
             root.loader = EXPECTED_TYPE_ROOT_LOADER;
@@ -551,6 +588,7 @@ public final class UnmarshallingContext extends Coordinator
 
     @Override
     public void startElement(TagName tagName) throws SAXException {
+        elementCount++;
         pushCoordinator();
         try {
             _startElement(tagName);
@@ -620,8 +658,19 @@ public final class UnmarshallingContext extends Coordinator
 
     @Override
     public void endDocument() throws SAXException {
-        runPatchers();
-        idResolver.endDocument();
+        if(instrumentation!=null) {
+            int count = patchersLen+forwardRefsLen;
+            long patchStart = System.nanoTime();
+            runPatchers();
+            idResolver.endDocument();
+            long now = System.nanoTime();
+            instrumentation.referencesResolved(count,now-patchStart);
+            instrumentation.unmarshalled(now-startTime,
+                countingInput!=null ? countingInput.getCount() : -1, elementCount);
+        } else {
+            runPatchers();
+            idResolver.endDocument();
+        }
 
         isUnmarshalInProgress = false;
         currentElement = null;
@@ -693,6 +742,8 @@ public final class UnmarshallingContext extends Coordinator
      * In the unmarshaller, we need to check the user-specified factory class.
      */
     public Object createInstance( JaxBeanInfo beanInfo ) throws SAXException {
+        if(instrumentation!=null)
+            instrumentation.beanUnmarshalled(beanInfo.jaxbType);
         if(!factories.isEmpty()) {
             Factory factory = factories.get(beanInfo.jaxbType);
             if(factory!=null)
@@ -832,8 +883,125 @@ public final class UnmarshallingContext extends Coordinator
         patchers[patchersLen++] = job;
     }
 
+    /**
+     * IDREFs whose targets were not known yet when they were found,
+     * registered by {@link #addForwardReference(Object, IDREFAssigner, String)}.
+     *
+     * <p>
+     * Each reference takes {@link #FORWARD_REF_SIZE} slots of {@link #forwardRefs}:
+     * the bean, the {@link IDREFAssigner}, the IDREF value, and either the system ID or,
+     * when the input doesn't have line numbers, a {@link LocatorEx.Snapshot}.
+     * The line and column numbers go to {@link #forwardRefPositions}.
+     * This way a forward reference costs no object of its own.
+     */
+    private Object[] forwardRefs = null;
+    private int[] forwardRefPositions = null;
+    private int forwardRefsLen = 0;
+
+    private static final int FORWARD_REF_SIZE = 4;
+
+    /**
+     * Sets the target of an IDREF that couldn't be resolved right away.
+     *
+     * @see UnmarshallingContext#addForwardReference(Object, IDREFAssigner, String)
+     */
+    public interface IDREFAssigner {
+        /**
+         * Called at the end of the unmarshalling with the object
+         * that the IDREF found on the given bean resolved to.
+         */
+        void assign(Object bean, Object target) throws AccessorException, SAXException;
+    }
+
+    /**
+     * Returns true if the IDREFs can be resolved by {@link #getBoundObject(String)}
+     * and {@link #addForwardReference(Object, IDREFAssigner, String)}
+     * instead of {@link #getObjectFromId(String, Class)}.
+     *
+     * <p>
+     * This is the case unless the application has set its own {@link IDResolver}.
+     */
+    public boolean isEagerIdResolution() {
+        return defaultIdResolver!=null;
+    }
+
+    /**
+     * Gets the object that has already been bound to the given ID.
+     *
+     * @return
+     *      null if no such object has been unmarshalled yet.
+     * @see #isEagerIdResolution()
+     */
+    public Object getBoundObject( String id ) {
+        return defaultIdResolver.get(id);
+    }
+
+    /**
+     * Remembers an IDREF whose target hasn't been unmarshalled yet.
+     * The reference is resolved at the end of the unmarshalling, and
+     * reported as an error if the ID is still unknown then.
+     *
+     * @see #isEagerIdResolution()
+     */
+    public void addForwardReference( Object bean, IDREFAssigner assigner, String id ) {
+        if( forwardRefs==null ) {
+            forwardRefs = new Object[16*FORWARD_REF_SIZE];
+            forwardRefPositions = new int[16*2];
+        }
+        int i = forwardRefsLen*FORWARD_REF_SIZE;
+        if( forwardRefs.length == i ) {
+            Object[] buf = new Object[i*2];
+            System.arraycopy(forwardRefs,0,buf,0,i);
+            forwardRefs = buf;
+            int[] pos = new int[forwardRefsLen*4];
+            System.arraycopy(forwardRefPositions,0,pos,0,forwardRefsLen*2);
+            forwardRefPositions = pos;
+        }
+        forwardRefs[i] = bean;
+        forwardRefs[i+1] = assigner;
+        forwardRefs[i+2] = id;
+        int line = locator.getLineNumber();
+        forwardRefs[i+3] = line==-1 ? new LocatorEx.Snapshot(locator) : locator.getSystemId();
+        forwardRefPositions[forwardRefsLen*2] = line;
+        forwardRefPositions[forwardRefsLen*2+1] = locator.getColumnNumber();
+        forwardRefsLen++;
+    }
+
+    /** Resolves all the references added by {@link #addForwardReference(Object, IDREFAssigner, String)}. */
+    private void resolveForwardReferences() throws SAXException {
+        for( int i=0; i<forwardRefsLen; i++ ) {
+            int j = i*FORWARD_REF_SIZE;
+            Object bean = forwardRefs[j];
+            String id = (String)forwardRefs[j+2];
+            Object target = defaultIdResolver.get(id);
+            if(target==null) {
+                Object loc = forwardRefs[j+3];
+                if(loc instanceof LocatorEx) {
+                    errorUnresolvedIDREF(bean,id,(LocatorEx)loc);
+                } else {
+                    LocatorImpl l = new LocatorImpl();
+                    l.setSystemId((String)loc);
+                    l.setLineNumber(forwardRefPositions[i*2]);
+                    l.setColumnNumber(forwardRefPositions[i*2+1]);
+                    errorUnresolvedIDREF(bean,id,new LocatorExWrapper(l));
+                }
+            } else {
+                try {
+                    ((IDREFAssigner)forwardRefs[j+1]).assign(bean,target);
+                } catch (AccessorException e) {
+                    handleError(e);
+                }
+            }
+        }
+        // free memory
+        Arrays.fill(forwardRefs,0,forwardRefsLen*FORWARD_REF_SIZE,null);
+        forwardRefsLen = 0;
+    }
+
     /** Executes all the patchers. */
     private void runPatchers() throws SAXException {
+        if( forwardRefsLen>0 )
+            resolveForwardReferences();
         if( patchers!=null ) {
             for( int i=0; i<patchersLen; i++ ) {
                 patchers[i].run();
@@ -897,8 +1065,34 @@ public final class UnmarshallingContext extends Coordinator
     private String[] nsBind = new String[16];
     private int nsLen=0;
 
+    /**
+     * Changes every time the in-scope namespace bindings may have changed,
+     * so that the information derived from them can be cached.
+     */
+    private int nsGeneration=0;
+
+    /**
+     * Resolved @xsi:type values. Created when first used.
+     */
+    private XsiTypeLoader.TypeCache xsiTypeCache;
+
+    /**
+     * Gets a number that stays the same as long as the in-scope namespace bindings
+     * are unchanged. When it's different, the bindings may or may not have changed.
+     */
+    public int getNamespaceGeneration() {
+        return nsGeneration;
+    }
+
+    /*package*/ XsiTypeLoader.TypeCache getXsiTypeCache() {
+        if(xsiTypeCache==null)
+            xsiTypeCache = new XsiTypeLoader.TypeCache();
+        return xsiTypeCache;
+    }
+
     @Override
     public void startPrefixMapping( String prefix, String uri ) {
+        nsGeneration++;
         if(nsBind.length==nsLen) {
             // expand the buffer
             String[] n = new String[nsLen*2];
@@ -910,6 +1104,7 @@ public final class UnmarshallingContext extends Coordinator
     }
     @Override
     public void endPrefixMapping( String prefix ) {
+        nsGeneration++;
         nsLen-=2;
     }
     private String resolveNamespacePrefix( String prefix ) {
@@ -1221,6 +1416,17 @@ public final class UnmarshallingContext extends Coordinator
             assoc.addInner(currentElement,innerPeer);
     }
 
+    /**
+     * Notifies the context that the given inner peer replaces
+     * the one recorded earlier for an element that has ended since.
+     *
+     * @see #recordInnerPeer(Object)
+     */
+    public void recordInnerPeer(Object innerPeer, Object replaced) {
+        if(assoc!=null)
+            assoc.replaceInner(replaced,innerPeer);
+    }
+
     /**
      * Gets the inner peer JAXB object associated with the current element.
      *
@@ -40,13 +40,22 @@
 
 package com.sun.xml.bind.v2.runtime.unmarshaller;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.validation.Schema;
+import javax.xml.validation.TypeInfoProvider;
 import javax.xml.validation.ValidatorHandler;
 
+import com.sun.xml.bind.api.Instrumentation;
+import com.sun.xml.bind.v2.runtime.output.Pcdata;
 import com.sun.xml.bind.v2.util.FatalAdapter;
+import com.sun.xml.bind.v2.util.ValidatorPipe;
 
+import org.w3c.dom.TypeInfo;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * {@link XmlVisitor} decorator that validates the events by using JAXP validation API.
@@ -56,7 +65,14 @@ import org.xml.sax.SAXException;
 final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredictor {
     
     private final XmlVisitor next;
-    private final ValidatorHandler validator;
+    /**
+     * Either the {@link ValidatorHandler} itself or {@link #pipe}.
+     */
+    private final ContentHandler validator;
+    /**
+     * Non-null if the validation runs on another thread.
+     */
+    private final ValidatorPipe pipe;
     private NamespaceContext nsContext = null;
 
     /**
@@ -66,32 +82,126 @@ final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredict
 
     private char[] buf = new char[256];
 
+    /**
+     * Non-null in the binding-aware mode, where the text that can't
+     * make the document invalid isn't sent to the validator.
+     */
+    private final TypeInfoProvider typeInfo;
+
+    /**
+     * True while in an element whose type accepts any text.
+     */
+    private boolean anyText;
+
+    /**
+     * True if the last element event was an end tag, which means that the
+     * validator accepted a child element in the current element. Its type is
+     * then neither simple nor empty, so it accepts whitespace.
+     */
+    private boolean afterChild;
+
+    /**
+     * Non-null if the time spent in {@link #validator} is measured.
+     */
+    private final Instrumentation instrumentation;
+
+    /**
+     * Time spent in {@link #validator} so far in the current document.
+     */
+    private long validationTime;
+
     /**
      * Creates a new instance of ValidatingUnmarshaller.
      */
     public ValidatingUnmarshaller( Schema schema, XmlVisitor next ) {
-        this.validator = schema.newValidatorHandler();
+        this(schema,next,false,false);
+    }
+
+    /**
+     * @param concurrent
+     *      if true, the validation runs on another thread while the unmarshalling continues.
+     *      The unmarshalling still completes only after the validation does.
+     * @param bindingAware
+     *      if true, the text that can't be invalid isn't validated.
+     *      That is the text of elements of the {@code xs:string} and {@code xs:anySimpleType} types,
+     *      and the whitespace after child elements. Both are decided from what the validator
+     *      saw of the document, not from the binding, which may not match the schema.
+     *      Identity constraints and fixed values of such elements are then not checked.
+     *      This needs the type information from the validator, so it only works
+     *      when not {@code concurrent}.
+     */
+    public ValidatingUnmarshaller( Schema schema, XmlVisitor next, boolean concurrent, boolean bindingAware ) {
+        ValidatorHandler vh = schema.newValidatorHandler();
+        this.typeInfo = bindingAware && !concurrent ? vh.getTypeInfoProvider() : null;
+        if(typeInfo!=null) {
+            // the type information is only available while the validator calls startElement downstream
+            vh.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes atts) {
+                    anyText = acceptsAnyText(typeInfo.getElementTypeInfo());
+                }
+            });
+        }
         this.next = next;
         this.predictor = next.getPredictor();
         // if the user bothers to use a validator, make validation errors fatal
         // so that it will abort unmarshalling.
-        validator.setErrorHandler(new FatalAdapter(getContext()));
+        FatalAdapter errorHandler = new FatalAdapter(getContext());
+        if(concurrent) {
+            this.pipe = new ValidatorPipe(vh,errorHandler);
+            this.validator = pipe;
+        } else {
+            vh.setErrorHandler(errorHandler);
+            this.pipe = null;
+            this.validator = vh;
+        }
+        this.instrumentation = getContext().instrumentation;
+    }
+
+    private long startTimer() {
+        return instrumentation!=null ? System.nanoTime() : 0;
+    }
+
+    private void stopTimer(long start) {
+        if(instrumentation!=null)
+            validationTime += System.nanoTime()-start;
     }
 
     public void startDocument(LocatorEx locator, NamespaceContext nsContext) throws SAXException {
         this.nsContext = nsContext;
+        validationTime = 0;
+        anyText = afterChild = false;
+        long start = startTimer();
         validator.setDocumentLocator(locator);
         validator.startDocument();
+        stopTimer(start);
         next.startDocument(locator,nsContext);
     }
 
+    /**
+     * Abandons the validation of the current document, if it runs on another thread.
+     *
+     * @see ValidatorPipe#cancel()
+     */
+    void cancel() {
+        if(pipe!=null)
+            pipe.cancel();
+    }
+
     public void endDocument() throws SAXException {
         this.nsContext = null;
+        long start = startTimer();
         validator.endDocument();
+        if(pipe!=null)
+            pipe.await();
+        stopTimer(start);
+        if(instrumentation!=null)
+            instrumentation.validated(validationTime);
         next.endDocument();
     }
 
     public void startElement(TagName tagName) throws SAXException {
+        long start = startTimer();
         if(nsContext != null) {
             String tagNamePrefix = tagName.getPrefix().intern();
             if(tagNamePrefix != "") {
@@ -99,37 +209,78 @@ final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredict
             }
         }
         validator.startElement(tagName.uri,tagName.local,tagName.getQname(),tagName.atts);
+        afterChild = false;
+        stopTimer(start);
         next.startElement(tagName);
     }
 
+    /**
+     * Checks if the type is one of the built-in types that accept any text.
+     * Types derived from them may have facets, so they don't qualify.
+     */
+    private static boolean acceptsAnyText(TypeInfo type) {
+        if(type==null || !XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(type.getTypeNamespace()))
+            return false;
+        String name = type.getTypeName();
+        return "string".equals(name) || "anySimpleType".equals(name);
+    }
+
     public void endElement(TagName tagName ) throws SAXException {
+        // the parent can't be of a simple type, as it has a child element
+        anyText = false;
+        afterChild = true;
+        long start = startTimer();
         validator.endElement(tagName.uri,tagName.local,tagName.getQname());
+        stopTimer(start);
         next.endElement(tagName);
     }
 
     public void startPrefixMapping(String prefix, String nsUri) throws SAXException {
+        long start = startTimer();
         validator.startPrefixMapping(prefix,nsUri);
+        stopTimer(start);
         next.startPrefixMapping(prefix,nsUri);
     }
 
     public void endPrefixMapping(String prefix) throws SAXException {
+        long start = startTimer();
         validator.endPrefixMapping(prefix);
+        stopTimer(start);
         next.endPrefixMapping(prefix);
     }
 
     public void text( CharSequence pcdata ) throws SAXException {
-        int len = pcdata.length();
-        if(buf.length<len) {
-            buf = new char[len];
-        }
-        for( int i=0;i<len; i++ )
-            buf[i] = pcdata.charAt(i);  // isn't this kinda slow?
+        if(typeInfo==null || !(anyText || afterChild && isWhitespace(pcdata))) {
+            int len = pcdata.length();
+            if(buf.length<len) {
+                buf = new char[len];
+            }
+            if(pcdata instanceof String) {
+                ((String)pcdata).getChars(0,len,buf,0);
+            } else if(pcdata instanceof Pcdata) {
+                ((Pcdata)pcdata).writeTo(buf,0);
+            } else {
+                for( int i=0;i<len; i++ )
+                    buf[i] = pcdata.charAt(i);
+            }
 
-        validator.characters(buf,0,len);
+            long start = startTimer();
+            validator.characters(buf,0,len);
+            stopTimer(start);
+        }
         if(predictor.expectText())
             next.text(pcdata);
     }
 
+    private static boolean isWhitespace(CharSequence s) {
+        for( int i=s.length()-1; i>=0; i-- ) {
+            char ch = s.charAt(i);
+            if(ch!=' ' && ch!='\t' && ch!='\n' && ch!='\r')
+                return false;
+        }
+        return true;
+    }
+
     public UnmarshallingContext getContext() {
         return next.getContext();
     }
@@ -93,43 +93,106 @@ public class XsiTypeLoader extends Loader {
             // so don't consume it just yet.
             String value = atts.getValue(idx);
 
-            QName type = DatatypeConverterImpl._parseQName(value,context);
-            if(type==null) {
-                reportError(Messages.NOT_A_QNAME.format(value),true);
-            } else {
-                if(defaultBeanInfo!=null && defaultBeanInfo.getTypeNames().contains(type))
-                    // if this xsi:type is something that the default type can already handle,
-                    // let it do so. This is added as a work around to bug https://jax-ws.dev.java.net/issues/show_bug.cgi?id=195
-                    // where a redundant xsi:type="xs:dateTime" causes JAXB to unmarshal XMLGregorianCalendar,
-                    // where Date is expected.
-                    // this is not a complete fix, as we still won't be able to handle simple type substitution in general,
-                    // but none-the-less
-                    return defaultBeanInfo;
-
-                beanInfo = context.getJAXBContext().getGlobalType(type);
-                if(beanInfo==null) { // let's report an error
-                    if (context.parent.hasEventHandler() // is somebody listening?
-                            && context.shouldErrorBeReported()) { // should we report error?
-                        String nearest = context.getJAXBContext().getNearestTypeName(type);
-                        if(nearest!=null)
-                            reportError(Messages.UNRECOGNIZED_TYPE_NAME_MAYBE.format(type,nearest),true);
-                        else
-                            reportError(Messages.UNRECOGNIZED_TYPE_NAME.format(type),true);
-                    }
+            TypeCache cache = context.getXsiTypeCache();
+            TypeCache.Entry e = cache.get(value,context);
+            if(e==null) {
+                QName type = DatatypeConverterImpl._parseQName(value,context);
+                if(type==null) {
+                    reportError(Messages.NOT_A_QNAME.format(value),true);
+                    return null;
                 }
-                // TODO: resurrect the following check
-        //                    else
-        //                    if(!target.isAssignableFrom(actual)) {
-        //                        reportError(context,
-        //                            Messages.UNSUBSTITUTABLE_TYPE.format(value,actual.getName(),target.getName()),
-        //                            true);
-        //                        actual = targetBeanInfo;  // ditto
-        //                    }
+                e = cache.put(value,type,context.getJAXBContext().getGlobalType(type),context);
             }
+            QName type = e.type;
+            if(defaultBeanInfo!=null && defaultBeanInfo.getTypeNames().contains(type))
+                // if this xsi:type is something that the default type can already handle,
+                // let it do so. This is added as a work around to bug https://jax-ws.dev.java.net/issues/show_bug.cgi?id=195
+                // where a redundant xsi:type="xs:dateTime" causes JAXB to unmarshal XMLGregorianCalendar,
+                // where Date is expected.
+                // this is not a complete fix, as we still won't be able to handle simple type substitution in general,
+                // but none-the-less
+                return defaultBeanInfo;
+
+            beanInfo = e.beanInfo;
+            if(beanInfo==null) { // let's report an error
+                if (context.parent.hasEventHandler() // is somebody listening?
+                        && context.shouldErrorBeReported()) { // should we report error?
+                    String nearest = context.getJAXBContext().getNearestTypeName(type);
+                    if(nearest!=null)
+                        reportError(Messages.UNRECOGNIZED_TYPE_NAME_MAYBE.format(type,nearest),true);
+                    else
+                        reportError(Messages.UNRECOGNIZED_TYPE_NAME.format(type),true);
+                }
+            }
+            // TODO: resurrect the following check
+    //                    else
+    //                    if(!target.isAssignableFrom(actual)) {
+    //                        reportError(context,
+    //                            Messages.UNSUBSTITUTABLE_TYPE.format(value,actual.getName(),target.getName()),
+    //                            true);
+    //                        actual = targetBeanInfo;  // ditto
+    //                    }
         }
         return beanInfo;
     }
 
+    /**
+     * Remembers the result of the recent @xsi:type resolutions, so that the values that
+     * repeat over and over again don't have to be parsed into a {@link QName} and
+     * looked up each time.
+     *
+     * <p>
+     * Keyed by the raw attribute value. The namespace URI its prefix resolved to
+     * is rechecked whenever the namespace bindings may have changed.
+     * The cache is direct-mapped and a colliding value simply replaces the old entry.
+     */
+    static final class TypeCache {
+        static final class Entry {
+            final String value;
+            final QName type;
+            /**
+             * {@link com.sun.xml.bind.v2.runtime.JAXBContextImpl#getGlobalType(QName)}
+             * of {@link #type}, which can be null.
+             */
+            final JaxBeanInfo beanInfo;
+            /** {@link UnmarshallingContext#getNamespaceGeneration()} when {@link #type} was known to be valid. */
+            int generation;
+
+            Entry(String value, QName type, JaxBeanInfo beanInfo, int generation) {
+                this.value = value;
+                this.type = type;
+                this.beanInfo = beanInfo;
+                this.generation = generation;
+            }
+        }
+
+        private final Entry[] entries = new Entry[32];
+
+        /**
+         * Returns the cached resolution of the given @xsi:type value
+         * in the current namespace context, or null if none.
+         */
+        Entry get(String value, UnmarshallingContext context) {
+            Entry e = entries[value.hashCode()&(entries.length-1)];
+            if(e==null || !e.value.equals(value))
+                return null;
+            int generation = context.getNamespaceGeneration();
+            if(e.generation!=generation) {
+                // bindings may have changed. see if the prefix still means the same
+                if(!e.type.getNamespaceURI().equals(context.getNamespaceURI(e.type.getPrefix())))
+                    return null;
+                e.generation = generation;
+            }
+            return e;
+        }
+
+        Entry put(String value, QName type, JaxBeanInfo beanInfo, UnmarshallingContext context) {
+            Entry e = new Entry(value,type,beanInfo,context.getNamespaceGeneration());
+            entries[value.hashCode()&(entries.length-1)] = e;
+            return e;
+        }
+    }
+
     static final QName XsiTypeQNAME = new QName(WellKnownNamespace.XML_SCHEMA_INSTANCE,"type");
 
     @Override
@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of objects that compares them by their identity.
+ *
+ * <p>
+ * Unlike {@link java.util.HashSet}, this never calls {@link Object#hashCode()}
+ * or {@link Object#equals(Object)} of the user objects, and unlike
+ * {@link java.util.IdentityHashMap} it doesn't need a wrapper.
+ * The objects are kept in a single open addressing table with linear probing,
+ * which is normally kept by {@link #clear()}, so that the set can be reused
+ * across marshalling without being reallocated.
+ *
+ * <p>
+ * Only addition is supported, as that's all we need.
+ */
+public final class IdentityHashSet<E> implements Iterable<E> {
+    /**
+     * Hash table. Its length is always a power of two,
+     * and null denotes an empty slot.
+     */
+    private Object[] table;
+    private int size = 0;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    public IdentityHashSet() {
+        table = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds the given object.
+     *
+     * @return
+     *      true if the object wasn't in the set yet.
+     */
+    public boolean add(E o) {
+        int mask = table.length-1;
+        int i = hash(o)&mask;
+        Object existing;
+        while((existing=table[i])!=null) {
+            if(existing==o)     return false;
+            i = (i+1)&mask;
+        }
+        table[i] = o;
+        // keep the load factor under 2/3, so that the probe sequences stay short
+        if(++size*3 > table.length*2)
+            expandCapacity();
+        return true;
+    }
+
+    public boolean contains(Object o) {
+        int mask = table.length-1;
+        int i = hash(o)&mask;
+        Object existing;
+        while((existing=table[i])!=null) {
+            if(existing==o)     return true;
+            i = (i+1)&mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size==0;
+    }
+
+    /**
+     * Removes all the objects.
+     *
+     * <p>
+     * The table is kept for the next use, unless it's much larger than what
+     * this use needed, in which case it's reallocated to fit.
+     */
+    public void clear() {
+        if(size==0)
+            return;
+        if(table.length>INITIAL_CAPACITY && size*4<table.length) {
+            int capacity = INITIAL_CAPACITY;
+            while(size*3 > capacity*2)
+                capacity *= 2;
+            table = new Object[capacity];
+        } else
+            Arrays.fill(table,null);   // keeping references too long == memory leak
+        size = 0;
+    }
+
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index = advance(0);
+
+            private int advance(int i) {
+                while(i<table.length && table[i]==null)
+                    i++;
+                return i;
+            }
+
+            public boolean hasNext() {
+                return index<table.length;
+            }
+
+            @SuppressWarnings("unchecked")  // only add(E) puts objects in the table
+            public E next() {
+                if(index>=table.length)
+                    throw new NoSuchElementException();
+                E o = (E)table[index];
+                index = advance(index+1);
+                return o;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static int hash(Object o) {
+        int h = System.identityHashCode(o);
+        // identity hash codes tend to be sequential, so spread them over the table
+        h *= 0x9E3779B9;
+        return h ^ (h>>>16);
+    }
+
+    private void expandCapacity() {
+        Object[] old = table;
+        table = new Object[old.length*2];
+        int mask = table.length-1;
+        for (Object o : old) {
+            if(o==null)     continue;
+            int i = hash(o)&mask;
+            while(table[i]!=null)
+                i = (i+1)&mask;
+            table[i] = o;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * {@link ContentHandler} that feeds a {@link ValidatorHandler} on another thread,
+ * so that validation runs in parallel with the (un)marshalling that produces the events.
+ *
+ * <p>
+ * Events are copied into chunks that go around a small ring, so the producer only
+ * blocks when the validator falls behind by more than the ring can hold.
+ * Problems found by the validator are reported to the given {@link ErrorHandler}
+ * on the producer thread, in the order they were found.
+ *
+ * <p>
+ * The producer only looks for them when it hands over a chunk (every
+ * {@value Chunk#SIZE} events) and in {@link #await()}, so they are reported
+ * late: the producer may be well past the event that caused a problem, and
+ * a document with fewer events than a chunk sees all of them only in {@link #await()}.
+ * An error handler that aborts on the first error therefore can't stop
+ * the output at the offending element.
+ *
+ * <p>
+ * An instance handles one document.
+ *
+ * @since 2.4.0
+ */
+public final class ValidatorPipe implements ContentHandler {
+
+    /**
+     * Number of chunks that go around the ring.
+     */
+    private static final int RING = 8;
+
+    /**
+     * Milliseconds the producer waits for the validator thread
+     * before it checks whether that thread is still alive.
+     */
+    private static final long POLL_INTERVAL = 100;
+
+    private static final Executor executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r,"jaxb-validator");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final Worker worker;
+    private final ErrorHandler errorHandler;
+
+    private Locator locator;
+
+    /**
+     * Chunk currently being filled.
+     */
+    private Chunk chunk = new Chunk();
+    private int allocated = 1;
+
+    private boolean started;
+
+    /**
+     * @param errorHandler
+     *      receives the warnings and errors of the validator, on the thread that calls this object.
+     */
+    public ValidatorPipe(ValidatorHandler validator, ErrorHandler errorHandler) {
+        this.worker = new Worker(validator,this);
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Waits for the validator to see the end of the document,
+     * and reports the problems it found.
+     */
+    public void await() throws SAXException {
+        try {
+            worker.done.await();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new SAXException(e);
+        }
+        report();
+
+        Throwable t = worker.failure;
+        if(t!=null)
+            rethrow(t);
+    }
+
+    private static void rethrow(Throwable t) throws SAXException {
+        if(t instanceof SAXException)       throw (SAXException)t;
+        if(t instanceof RuntimeException)   throw (RuntimeException)t;
+        if(t instanceof Error)              throw (Error)t;
+        throw new SAXException((Exception)t);
+    }
+
+    /**
+     * Abandons the validation of the current document.
+     * Does nothing if the validation has already completed.
+     */
+    public void cancel() {
+        worker.cancelled = true;
+        worker.filled.clear();
+    }
+
+    public void setDocumentLocator(Locator locator) {
+        this.locator = locator;
+        if(locator!=null) {
+            worker.locator.setPublicId(locator.getPublicId());
+            worker.locator.setSystemId(locator.getSystemId());
+        }
+    }
+
+    public void startDocument() throws SAXException {
+        if(!started) {
+            started = true;
+            executor.execute(worker);
+        }
+        add(START_DOCUMENT);
+    }
+
+    public void endDocument() throws SAXException {
+        add(END_DOCUMENT);
+        flush(true);
+    }
+
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        int i = add(START_PREFIX)*3;
+        chunk.names[i] = prefix;
+        chunk.names[i+1] = uri;
+    }
+
+    public void endPrefixMapping(String prefix) throws SAXException {
+        chunk.names[add(END_PREFIX)*3] = prefix;
+    }
+
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        int i = add(START_ELEMENT);
+        Chunk c = chunk;
+        c.names[i*3] = uri;
+        c.names[i*3+1] = localName;
+        c.names[i*3+2] = qName;
+        AttributesImpl a = c.atts[i];
+        if(a==null)
+            a = c.atts[i] = new AttributesImpl();
+        if(atts.getLength()>0)
+            a.setAttributes(atts);
+    }
+
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        int i = add(END_ELEMENT)*3;
+        chunk.names[i] = uri;
+        chunk.names[i+1] = localName;
+        chunk.names[i+2] = qName;
+    }
+
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        addText(CHARACTERS,ch,start,length);
+    }
+
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        addText(IGNORABLE_WHITESPACE,ch,start,length);
+    }
+
+    public void processingInstruction(String target, String data) throws SAXException {
+        int i = add(PROCESSING_INSTRUCTION)*3;
+        chunk.names[i] = target;
+        chunk.names[i+1] = data;
+    }
+
+    public void skippedEntity(String name) throws SAXException {
+        chunk.names[add(SKIPPED_ENTITY)*3] = name;
+    }
+
+    private void addText(byte kind, char[] ch, int start, int length) throws SAXException {
+        int i = add(kind);
+        Chunk c = chunk;
+        int end = c.textLen+length;
+        if(end>c.text.length) {
+            char[] buf = new char[Math.max(end,c.text.length*2)];
+            System.arraycopy(c.text,0,buf,0,c.textLen);
+            c.text = buf;
+        }
+        System.arraycopy(ch,start,c.text,c.textLen,length);
+        c.ints[i*4+2] = c.textLen;
+        c.ints[i*4+3] = length;
+        c.textLen = end;
+    }
+
+    /**
+     * Allocates a new event in the current chunk.
+     *
+     * @return
+     *      index of the event in the chunk.
+     */
+    private int add(byte kind) throws SAXException {
+        if(chunk.len==Chunk.SIZE)
+            flush(false);
+        Chunk c = chunk;
+        int i = c.len++;
+        c.kinds[i] = kind;
+        if(locator!=null) {
+            c.ints[i*4] = locator.getLineNumber();
+            c.ints[i*4+1] = locator.getColumnNumber();
+        } else {
+            c.ints[i*4] = c.ints[i*4+1] = -1;
+        }
+        return i;
+    }
+
+    /**
+     * Hands over the current chunk to the validator thread.
+     */
+    private void flush(boolean last) throws SAXException {
+        try {
+            chunk.last = last;
+            while(!worker.filled.offer(chunk,POLL_INTERVAL,TimeUnit.MILLISECONDS))
+                checkWorker();
+            if(!last) {
+                Chunk c = worker.free.poll();
+                if(c==null) {
+                    if(allocated<RING) {
+                        allocated++;
+                        c = new Chunk();
+                    } else {
+                        while((c=worker.free.poll(POLL_INTERVAL,TimeUnit.MILLISECONDS))==null)
+                            checkWorker();
+                    }
+                }
+                chunk = c;
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new SAXException(e);
+        }
+        report();
+    }
+
+    /**
+     * Called while waiting for the validator thread, so that the producer
+     * doesn't wait forever for a thread that is gone.
+     */
+    private void checkWorker() throws SAXException {
+        Throwable t = worker.failure;
+        if(t==null && worker.done.getCount()>0)
+            return; // still working
+        report();
+        cancel();
+        if(t==null)
+            t = worker.failure;
+        if(t!=null)
+            rethrow(t);
+        throw new SAXException("the validator thread terminated before the end of the document");
+    }
+
+    /**
+     * Passes the problems found so far to {@link #errorHandler}.
+     */
+    private void report() throws SAXException {
+        boolean completed = false;
+        try {
+            SAXParseException[] r;
+            while((r=worker.reports.poll())!=null) {
+                if(r[0]!=null)          errorHandler.warning(r[0]);
+                else if(r[1]!=null)     errorHandler.error(r[1]);
+                else                    errorHandler.fatalError(r[2]);
+            }
+            completed = true;
+        } finally {
+            if(!completed)
+                cancel();
+        }
+    }
+
+    private static final byte START_DOCUMENT = 0;
+    private static final byte END_DOCUMENT = 1;
+    private static final byte START_PREFIX = 2;
+    private static final byte END_PREFIX = 3;
+    private static final byte START_ELEMENT = 4;
+    private static final byte END_ELEMENT = 5;
+    private static final byte CHARACTERS = 6;
+    private static final byte IGNORABLE_WHITESPACE = 7;
+    private static final byte PROCESSING_INSTRUCTION = 8;
+    private static final byte SKIPPED_ENTITY = 9;
+
+    /**
+     * Block of events.
+     */
+    private static final class Chunk {
+        static final int SIZE = 256;
+
+        final byte[] kinds = new byte[SIZE];
+        /**
+         * Up to three strings per event.
+         */
+        final String[] names = new String[SIZE*3];
+        /**
+         * Attributes of start tags. Kept with the chunk so that they can be reused.
+         */
+        final AttributesImpl[] atts = new AttributesImpl[SIZE];
+        /**
+         * Line, column, text offset and text length per event.
+         */
+        final int[] ints = new int[SIZE*4];
+        /**
+         * Characters of all the text events.
+         */
+        char[] text = new char[1024];
+        int textLen;
+        int len;
+        /**
+         * True if this is the last chunk of the document.
+         */
+        boolean last;
+
+        void reset() {
+            for( int i=0; i<len; i++ ) {
+                if(atts[i]!=null)
+                    atts[i].clear();
+            }
+            Arrays.fill(names,0,len*3,null);
+            len = 0;
+            textLen = 0;
+        }
+    }
+
+    /**
+     * Runs on the validator thread.
+     *
+     * <p>
+     * This only keeps a weak reference to the {@link ValidatorPipe}, so that it
+     * can notice and quit when the producer goes away without finishing the document.
+     */
+    private static final class Worker implements Runnable, ErrorHandler {
+        final ValidatorHandler validator;
+        final WeakReference<ValidatorPipe> owner;
+
+        final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<Chunk>(RING);
+        final BlockingQueue<Chunk> free = new ArrayBlockingQueue<Chunk>(RING);
+
+        /**
+         * Problems found by the validator, as {warning,error,fatalError} triples
+         * where only one of them is non-null.
+         */
+        final ConcurrentLinkedQueue<SAXParseException[]> reports = new ConcurrentLinkedQueue<SAXParseException[]>();
+
+        final LocatorImpl locator = new LocatorImpl();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        volatile boolean cancelled;
+        /**
+         * Non-null if the validator failed abnormally.
+         * The rest of the document is then skipped.
+         */
+        volatile Throwable failure;
+
+        Worker(ValidatorHandler validator, ValidatorPipe owner) {
+            this.validator = validator;
+            this.owner = new WeakReference<ValidatorPipe>(owner);
+            validator.setErrorHandler(this);
+            validator.setDocumentLocator(locator);
+        }
+
+        public void run() {
+            try {
+                while(!cancelled) {
+                    Chunk c = filled.poll(1,TimeUnit.SECONDS);
+                    if(c==null) {
+                        if(owner.get()==null)
+                            return; // abandoned
+                        continue;
+                    }
+                    if(failure==null) {
+                        try {
+                            replay(c);
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                    boolean last = c.last;
+                    c.reset();
+                    free.offer(c);
+                    if(last)
+                        return;
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void replay(Chunk c) throws SAXException {
+            ValidatorHandler v = validator;
+            String[] names = c.names;
+            int[] ints = c.ints;
+            for( int i=0; i<c.len; i++ ) {
+                locator.setLineNumber(ints[i*4]);
+                locator.setColumnNumber(ints[i*4+1]);
+                int n = i*3;
+                switch(c.kinds[i]) {
+                case START_DOCUMENT:
+                    v.startDocument();
+                    break;
+                case END_DOCUMENT:
+                    v.endDocument();
+                    break;
+                case START_PREFIX:
+                    v.startPrefixMapping(names[n],names[n+1]);
+                    break;
+                case END_PREFIX:
+                    v.endPrefixMapping(names[n]);
+                    break;
+                case START_ELEMENT:
+                    v.startElement(names[n],names[n+1],names[n+2],c.atts[i]);
+                    break;
+                case END_ELEMENT:
+                    v.endElement(names[n],names[n+1],names[n+2]);
+                    break;
+                case CHARACTERS:
+                    v.characters(c.text,ints[i*4+2],ints[i*4+3]);
+                    break;
+                case IGNORABLE_WHITESPACE:
+                    v.ignorableWhitespace(c.text,ints[i*4+2],ints[i*4+3]);
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    v.processingInstruction(names[n],names[n+1]);
+                    break;
+                case SKIPPED_ENTITY:
+                    v.skippedEntity(names[n]);
+                    break;
+                default:
+                    throw new AssertionError();
+                }
+            }
+        }
+
+        public void warning(SAXParseException e) {
+            reports.add(new SAXParseException[]{e,null,null});
+        }
+
+        public void error(SAXParseException e) {
+            reports.add(new SAXParseException[]{null,e,null});
+        }
+
+        public void fatalError(SAXParseException e) throws SAXException {
+            reports.add(new SAXParseException[]{null,null,e});
+            // the validator can't continue after this
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+
+public class DatatypeConverterImplTest extends TestCase {
+
+    private static byte[] random(int len) {
+        byte[] b = new byte[len];
+        new Random(len).nextBytes(b);
+        return b;
+    }
+
+    /**
+     * Every remainder modulo 3, with and without an offset into the input.
+     */
+    public void testPrintMatchesJdk() {
+        for (int len = 0; len < 70; len++) {
+            byte[] data = random(len + 5);
+            String expected = Base64.getEncoder().encodeToString(Arrays.copyOfRange(data, 5, 5 + len));
+
+            assertEquals(expected, DatatypeConverterImpl._printBase64Binary(data, 5, len));
+
+            char[] chars = new char[expected.length() + 2];
+            assertEquals(expected.length() + 2, DatatypeConverterImpl._printBase64Binary(data, 5, len, chars, 2));
+            assertEquals(expected, new String(chars, 2, expected.length()));
+
+            byte[] bytes = new byte[expected.length() + 3];
+            assertEquals(expected.length() + 3, DatatypeConverterImpl._printBase64Binary(data, 5, len, bytes, 3));
+            assertEquals(expected, new String(bytes, 3, expected.length(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * The XMLStreamWriter version writes in chunks; check the sizes around the chunk boundary.
+     */
+    public void testPrintToXMLStreamWriterAcrossChunks() throws Exception {
+        for (int len : new int[] {0, 1, 2, 3, 3071, 3072, 3073, 3074, 3075, 10000}) {
+            byte[] data = random(len);
+            StringWriter w = new StringWriter();
+            XMLStreamWriter xsw = XMLOutputFactory.newInstance().createXMLStreamWriter(w);
+            xsw.writeStartElement("a");
+            DatatypeConverterImpl._printBase64Binary(data, 0, len, xsw);
+            xsw.writeEndElement();
+            xsw.close();
+
+            String xml = w.toString();
+            String text = len == 0 ? "" : xml.substring(3, xml.length() - 4);
+            assertEquals("length " + len, Base64.getEncoder().encodeToString(data), text);
+        }
+    }
+
+    public void testParseMatchesJdk() {
+        for (int len = 0; len < 70; len++) {
+            byte[] data = random(len);
+            String text = Base64.getEncoder().encodeToString(data);
+            assertTrue("length " + len, Arrays.equals(data, DatatypeConverterImpl._parseBase64Binary(text)));
+        }
+    }
+
+    /**
+     * Whitespace and line breaks anywhere, including inside a quadruplet and
+     * next to the padding, take the decoder off its fast path.
+     */
+    public void testParseWithWhitespace() {
+        for (int len = 0; len < 40; len++) {
+            byte[] data = random(len);
+            String text = Base64.getEncoder().encodeToString(data);
+            for (int at = 0; at <= text.length(); at++) {
+                String spaced = text.substring(0, at) + " \n\t" + text.substring(at);
+                assertTrue("length " + len + " at " + at,
+                        Arrays.equals(data, DatatypeConverterImpl._parseBase64Binary(spaced)));
+            }
+        }
+
+        byte[] data = random(1000);
+        String mime = Base64.getMimeEncoder().encodeToString(data);
+        assertTrue(Arrays.equals(data, DatatypeConverterImpl._parseBase64Binary(mime)));
+    }
+
+    public void testParsePadding() {
+        assertTrue(Arrays.equals(new byte[] {'a'}, DatatypeConverterImpl._parseBase64Binary("YQ==")));
+        assertTrue(Arrays.equals(new byte[] {'a', 'b'}, DatatypeConverterImpl._parseBase64Binary("YWI=")));
+        assertTrue(Arrays.equals(new byte[] {'a', 'b', 'c'}, DatatypeConverterImpl._parseBase64Binary("YWJj")));
+        assertTrue(Arrays.equals(new byte[] {'a', 'b', 'c', 'a'}, DatatypeConverterImpl._parseBase64Binary("YWJjYQ==")));
+        // a fast-path run followed by a padded quadruplet and trailing whitespace
+        assertTrue(Arrays.equals("abcdefa".getBytes(StandardCharsets.US_ASCII),
+                DatatypeConverterImpl._parseBase64Binary("YWJjZGVmYQ==  \n")));
+    }
+}
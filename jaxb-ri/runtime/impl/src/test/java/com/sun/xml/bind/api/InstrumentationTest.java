@@ -0,0 +1,272 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.SchemaOutputResolver;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.transform.Result;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+
+import junit.framework.TestCase;
+
+public class InstrumentationTest extends TestCase {
+
+    @XmlRootElement
+    static class Root {
+        // a forward reference, resolved at the end of the document
+        @XmlIDREF
+        @XmlElement
+        Item first;
+        @XmlElement
+        List<Item> item = new ArrayList<Item>();
+        @XmlJavaTypeAdapter(Upper.class)
+        @XmlElement
+        String name;
+    }
+
+    static class Item {
+        @XmlID
+        @XmlAttribute
+        String id;
+    }
+
+    public static class Upper extends XmlAdapter<String,String> {
+        public String unmarshal(String v) {
+            return v.toLowerCase();
+        }
+        public String marshal(String v) {
+            return v.toUpperCase();
+        }
+    }
+
+    static class Recorder extends Instrumentation {
+        int marshalled, unmarshalled, validated;
+        long bytes = -2;
+        int elements;
+        final Map<Class<?>,Integer> beans = new HashMap<Class<?>,Integer>();
+        final List<Class<?>> adapters = new ArrayList<Class<?>>();
+        int references = -1;
+
+        @Override
+        public void marshalled(long durationNanos, long bytesWritten, int elementCount) {
+            assertTrue(durationNanos >= 0);
+            marshalled++;
+            bytes = bytesWritten;
+            elements = elementCount;
+        }
+
+        @Override
+        public void unmarshalled(long durationNanos, long bytesRead, int elementCount) {
+            assertTrue(durationNanos >= 0);
+            unmarshalled++;
+            bytes = bytesRead;
+            elements = elementCount;
+        }
+
+        @Override
+        public void beanMarshalled(Class<?> type) {
+            count(type);
+        }
+
+        @Override
+        public void beanUnmarshalled(Class<?> type) {
+            count(type);
+        }
+
+        private void count(Class<?> type) {
+            Integer n = beans.get(type);
+            beans.put(type, n == null ? 1 : n + 1);
+        }
+
+        @Override
+        public void adapterInvoked(Class<? extends XmlAdapter> adapterType, long durationNanos) {
+            assertTrue(durationNanos >= 0);
+            adapters.add(adapterType);
+        }
+
+        @Override
+        public void referencesResolved(int referenceCount, long durationNanos) {
+            references = referenceCount;
+        }
+
+        @Override
+        public void validated(long durationNanos) {
+            assertTrue(durationNanos >= 0);
+            validated++;
+        }
+    }
+
+    private static final String XML =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+        + "<root><first>b</first><item id=\"a\"/><item id=\"b\"/><name>X</name></root>";
+
+    private Recorder recorder;
+    private JAXBContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        recorder = new Recorder();
+        context = JAXBContext.newInstance(new Class[] {Root.class},
+            Collections.singletonMap(JAXBRIContext.INSTRUMENTATION, recorder));
+    }
+
+    private static Root sample() {
+        Root r = new Root();
+        for (String id : new String[] {"a", "b"}) {
+            Item i = new Item();
+            i.id = id;
+            r.item.add(i);
+        }
+        r.first = r.item.get(1);
+        r.name = "x";
+        return r;
+    }
+
+    public void testMarshalToOutputStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        context.createMarshaller().marshal(sample(), out);
+
+        assertEquals(XML, out.toString("UTF-8"));
+        assertEquals(1, recorder.marshalled);
+        assertEquals(out.size(), recorder.bytes);
+        assertEquals(5, recorder.elements);
+        assertEquals(Integer.valueOf(1), recorder.beans.get(Root.class));
+        assertEquals(Integer.valueOf(2), recorder.beans.get(Item.class));
+        assertEquals(Collections.<Class<?>>singletonList(Upper.class), recorder.adapters);
+    }
+
+    public void testMarshalToWriter() throws Exception {
+        context.createMarshaller().marshal(sample(), new StringWriter());
+        assertEquals(1, recorder.marshalled);
+        assertEquals(-1, recorder.bytes);
+        assertEquals(5, recorder.elements);
+    }
+
+    /**
+     * A failed marshal isn't reported as a completed one.
+     */
+    public void testMarshalFailure() throws Exception {
+        Marshaller m = context.createMarshaller();
+        try {
+            m.marshal(new Item(), new StringWriter());
+            fail();
+        } catch (JAXBException e) {
+            // not a root element
+        }
+        assertEquals(0, recorder.marshalled);
+    }
+
+    public void testUnmarshalFromInputStream() throws Exception {
+        byte[] bytes = XML.getBytes("UTF-8");
+        Root r = (Root) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(bytes));
+
+        assertSame(r.item.get(1), r.first);
+        assertEquals(1, recorder.unmarshalled);
+        assertEquals(bytes.length, recorder.bytes);
+        assertEquals(5, recorder.elements);
+        assertEquals(1, recorder.references);
+        assertEquals(Integer.valueOf(1), recorder.beans.get(Root.class));
+        assertEquals(Integer.valueOf(2), recorder.beans.get(Item.class));
+        assertEquals(Collections.<Class<?>>singletonList(Upper.class), recorder.adapters);
+        assertEquals(0, recorder.validated);
+    }
+
+    public void testUnmarshalFromReader() throws Exception {
+        context.createUnmarshaller().unmarshal(new StringReader(XML));
+        assertEquals(1, recorder.unmarshalled);
+        assertEquals(-1, recorder.bytes);
+    }
+
+    public void testValidation() throws Exception {
+        final StringWriter xsd = new StringWriter();
+        context.generateSchema(new SchemaOutputResolver() {
+            @Override
+            public Result createOutput(String namespaceUri, String suggestedFileName) {
+                StreamResult r = new StreamResult(xsd);
+                r.setSystemId("root.xsd");
+                return r;
+            }
+        });
+        Unmarshaller u = context.createUnmarshaller();
+        u.setSchema(SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new StreamSource(new StringReader(xsd.toString()))));
+        u.unmarshal(new StringReader(XML));
+        u.unmarshal(new StringReader(XML));
+        assertEquals(2, recorder.validated);
+        assertEquals(2, recorder.unmarshalled);
+    }
+
+    /**
+     * Nothing is reported for a context created without the property.
+     */
+    public void testDisabled() throws Exception {
+        JAXBContext plain = JAXBContext.newInstance(Root.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        plain.createMarshaller().marshal(sample(), out);
+        plain.createUnmarshaller().unmarshal(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(0, recorder.marshalled);
+        assertEquals(0, recorder.unmarshalled);
+        assertTrue(recorder.beans.isEmpty());
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.api;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import junit.framework.TestCase;
+
+public class SchemaCacheTest extends TestCase {
+
+    @XmlRootElement(namespace = "urn:test")
+    static class Bean {
+        @XmlElement(required = true)
+        int value;
+    }
+
+    private String accessExternalSchema;
+
+    @Override
+    protected void setUp() {
+        // included and imported files can only be read with this
+        accessExternalSchema = System.setProperty("javax.xml.accessExternalSchema", "file");
+    }
+
+    @Override
+    protected void tearDown() {
+        if (accessExternalSchema == null)
+            System.clearProperty("javax.xml.accessExternalSchema");
+        else
+            System.setProperty("javax.xml.accessExternalSchema", accessExternalSchema);
+    }
+
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'><xs:element name='e'/></xs:schema>";
+
+    public void testSources() throws Exception {
+        SchemaCache cache = new SchemaCache();
+        Schema s1 = cache.getSchema(new StreamSource(new StringReader(XSD), "e.xsd"));
+        assertSame(s1, cache.getSchema(new StreamSource(new StringReader(XSD), "e.xsd")));
+        // same system ID, different content
+        assertNotSame(s1, cache.getSchema(new StreamSource(new StringReader(XSD + ' '), "e.xsd")));
+    }
+
+    public void testGeneratedSchema() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Bean.class);
+        SchemaCache cache = new SchemaCache();
+        Schema schema = cache.getSchema(context);
+        assertSame(schema, cache.getSchema(context));
+
+        Unmarshaller u = context.createUnmarshaller();
+        u.setSchema(schema);
+        u.unmarshal(new StringReader("<t:bean xmlns:t='urn:test'><value>1</value></t:bean>"));
+        try {
+            u.unmarshal(new StringReader("<t:bean xmlns:t='urn:test'><value>x</value></t:bean>"));
+            fail();
+        } catch (UnmarshalException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A source given by its system ID is looked up by its content, and the documents
+     * it includes and imports are only read when the schema is compiled.
+     */
+    public void testReferencedDocuments() throws Exception {
+        File dir = createTempDir();
+        File a = write(dir, "a.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:include schemaLocation='sub/b.xsd'/></xs:schema>");
+        File b = write(dir, "sub/b.xsd", schemaOf("xs:int"));
+
+        SchemaCache cache = new SchemaCache();
+        Schema s1 = cache.getSchema(new StreamSource(a.toURI().toString()));
+        assertFalse(isValid(s1, "<v>x</v>"));
+
+        // the included document isn't read again
+        assertTrue(b.delete());
+        assertSame(s1, cache.getSchema(new StreamSource(a.toURI().toString())));
+
+        // until the schema is compiled again
+        write(dir, "sub/b.xsd", schemaOf("xs:string"));
+        cache.clear();
+        Schema s2 = cache.getSchema(new StreamSource(a.toURI().toString()));
+        assertNotSame(s1, s2);
+        assertTrue(isValid(s2, "<v>x</v>"));
+
+        // an edit of the document itself is noticed
+        write(dir, "a.xsd", schemaOf("xs:int"));
+        Schema s3 = cache.getSchema(new StreamSource(a.toURI().toString()));
+        assertNotSame(s2, s3);
+        assertFalse(isValid(s3, "<v>x</v>"));
+    }
+
+    /**
+     * Sources that can't be cached are compiled as they are, even after cacheable ones.
+     */
+    public void testMixedSources() throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element schema = doc.createElementNS(XMLConstants.W3C_XML_SCHEMA_NS_URI, "xs:schema");
+        // a different namespace, as the SchemaFactory only reads the first document of each
+        schema.setAttribute("targetNamespace", "urn:f");
+        Element e = doc.createElementNS(XMLConstants.W3C_XML_SCHEMA_NS_URI, "xs:element");
+        e.setAttribute("name", "f");
+        schema.appendChild(e);
+        doc.appendChild(schema);
+
+        Schema s = new SchemaCache().getSchema(
+            new StreamSource(new StringReader(XSD), "e.xsd"), new DOMSource(doc, "f.xsd"));
+        assertTrue(isValid(s, "<e/>"));
+        assertTrue(isValid(s, "<f xmlns='urn:f'/>"));
+    }
+
+    /**
+     * Documents that include each other, and references that can't be read.
+     */
+    public void testCyclesAndMissingReferences() throws Exception {
+        File dir = createTempDir();
+        File a = write(dir, "a.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:include schemaLocation='b.xsd'/>"
+            + "<xs:import namespace='urn:missing' schemaLocation='missing.xsd'/>"
+            + "<xs:element name='v' type='xs:int'/></xs:schema>");
+        write(dir, "b.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:include schemaLocation='a.xsd'/>"
+            + "<xs:element name='w' type='xs:int'/></xs:schema>");
+
+        SchemaCache cache = new SchemaCache();
+        Schema s = cache.getSchema(new StreamSource(a.toURI().toString()));
+        assertSame(s, cache.getSchema(new StreamSource(a.toURI().toString())));
+        assertTrue(isValid(s, "<w>1</w>"));
+        assertFalse(isValid(s, "<v>x</v>"));
+    }
+
+    /**
+     * References the schema factory isn't allowed to read aren't read for it either.
+     */
+    public void testRestrictedReferences() throws Exception {
+        System.clearProperty("javax.xml.accessExternalSchema");
+        File dir = createTempDir();
+        File a = write(dir, "a.xsd", "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:include schemaLocation='b.xsd'/></xs:schema>");
+        write(dir, "b.xsd", schemaOf("xs:int"));
+
+        try {
+            new SchemaCache().getSchema(new StreamSource(a.toURI().toString()));
+            fail("the include should have been refused");
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+
+    private static String schemaOf(String type) {
+        return "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'><xs:element name='v' type='" + type + "'/></xs:schema>";
+    }
+
+    private static boolean isValid(Schema schema, String xml) throws IOException {
+        try {
+            schema.newValidator().validate(new StreamSource(new StringReader(xml)));
+            return true;
+        } catch (SAXException e) {
+            return false;
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("schemacache", "");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static File write(File dir, String name, String content) throws IOException {
+        File f = new File(dir, name);
+        f.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(f);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return f;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.Binder;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+public class BinderTest extends TestCase {
+
+    @XmlRootElement(name = "config")
+    static class Config {
+        @XmlAttribute
+        String version;
+        @XmlElement(name = "entry")
+        List<Entry> entries = new ArrayList<Entry>();
+    }
+
+    static class Entry {
+        @XmlAttribute
+        String key;
+        @XmlElement
+        String value;
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        return dbf.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static Element child(Node parent, int index) {
+        int i = 0;
+        for( Node n=parent.getFirstChild(); n!=null; n=n.getNextSibling() ) {
+            if(n.getNodeType()==Node.ELEMENT_NODE && i++==index)
+                return (Element)n;
+        }
+        return null;
+    }
+
+    /**
+     * {@link Binder#updateXML(Object)} updates the bound element in place,
+     * and only touches the nodes that changed.
+     */
+    public void testUpdateXML() throws Exception {
+        Document doc = parse("<wrapper><before/><config version='1'>"
+            + "<entry key='a'><value>1</value></entry>"
+            + "<entry key='b'><value>2</value></entry>"
+            + "<entry key='c'><value>3</value></entry>"
+            + "</config><after/></wrapper>");
+        Binder<Node> binder = JAXBContext.newInstance(Config.class).createBinder();
+        Element wrapper = doc.getDocumentElement();
+        Element root = child(wrapper,1);
+        Config c = (Config) binder.unmarshal(root);
+
+        Element a = child(root,0);
+        Element b = child(root,1);
+        Element cc = child(root,2);
+        Node bValue = child(b,0).getFirstChild();
+        Node cValue = child(cc,0).getFirstChild();
+        Node version = root.getAttributeNode("version");
+
+        c.version = "2";
+        c.entries.get(1).value = "two";
+        c.entries.remove(0);
+
+        Element updated = (Element) binder.updateXML(c);
+        assertSame(root, updated);
+        assertSame(wrapper, root.getParentNode());
+        assertEquals("before", child(wrapper,0).getLocalName());
+        assertEquals("after", child(wrapper,2).getLocalName());
+        assertEquals("2", root.getAttribute("version"));
+        assertSame(version, root.getAttributeNode("version"));
+        assertEquals(1, root.getAttributes().getLength());
+
+        // the nodes of the entries that are left are kept, and only the changed text is written
+        assertSame(b, child(root,0));
+        assertSame(cc, child(root,1));
+        assertNull(child(root,2));
+        assertNull(a.getParentNode());
+        assertSame(bValue, child(b,0).getFirstChild());
+        assertEquals("two", bValue.getNodeValue());
+        assertSame(cValue, child(cc,0).getFirstChild());
+        assertEquals("3", cValue.getNodeValue());
+
+        // the associations follow the nodes, and those of the removed ones are forgotten
+        assertSame(root, binder.getXMLNode(c));
+        assertSame(b, binder.getXMLNode(c.entries.get(0)));
+        assertSame(c.entries.get(1), binder.getJAXBNode(cc));
+        assertNull(binder.getJAXBNode(a));
+    }
+
+    /**
+     * Entries added or moved get their own nodes, without rewriting their siblings.
+     */
+    public void testInsertAndMove() throws Exception {
+        Document doc = parse("<config>"
+            + "<entry key='a'><value>1</value></entry>"
+            + "<entry key='b'><value>2</value></entry>"
+            + "<entry key='c'><value>3</value></entry>"
+            + "</config>");
+        Binder<Node> binder = JAXBContext.newInstance(Config.class).createBinder();
+        Element root = doc.getDocumentElement();
+        Config c = (Config) binder.unmarshal(root);
+        Element a = child(root,0);
+        Element b = child(root,1);
+        Element cc = child(root,2);
+
+        Entry x = new Entry();
+        x.key = "x";
+        x.value = "new";
+        c.entries.add(1, x);
+        Entry last = c.entries.remove(3);
+        c.entries.add(0, last);
+        c.version = "1";
+
+        assertSame(root, binder.updateXML(c));
+        assertEquals("1", root.getAttribute("version"));
+        assertSame(cc, child(root,0));
+        assertSame(a, child(root,1));
+        Element xe = child(root,2);
+        assertEquals("x", xe.getAttribute("key"));
+        assertEquals("new", xe.getTextContent());
+        assertSame(b, child(root,3));
+        assertNull(child(root,4));
+        assertSame(x, binder.getJAXBNode(xe));
+        assertSame(xe, binder.getXMLNode(x));
+
+        // an unchanged object leaves the document as it is
+        assertSame(root, binder.updateXML(c));
+        assertSame(cc, child(root,0));
+        assertSame(xe, child(root,2));
+        assertEquals("<config version=\"1\">"
+            + "<entry key=\"c\"><value>3</value></entry>"
+            + "<entry key=\"a\"><value>1</value></entry>"
+            + "<entry key=\"x\"><value>new</value></entry>"
+            + "<entry key=\"b\"><value>2</value></entry>"
+            + "</config>", serialize(root));
+    }
+
+    /**
+     * Whitespace between the elements is dropped, but the elements are kept.
+     */
+    public void testIndentedDocument() throws Exception {
+        Document doc = parse("<config version='1'>\n  <entry key='a'>\n    <value>1</value>\n  </entry>\n</config>");
+        Binder<Node> binder = JAXBContext.newInstance(Config.class).createBinder();
+        Element root = doc.getDocumentElement();
+        Config c = (Config) binder.unmarshal(root);
+        Element a = child(root,0);
+        Element value = child(a,0);
+
+        c.entries.get(0).value = "one";
+        assertSame(root, binder.updateXML(c));
+        assertSame(a, child(root,0));
+        assertSame(value, child(a,0));
+        assertEquals("<config version=\"1\"><entry key=\"a\"><value>one</value></entry></config>", serialize(root));
+    }
+
+    private static String serialize(Node n) throws Exception {
+        Transformer t = TransformerFactory.newInstance().newTransformer();
+        t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter w = new StringWriter();
+        t.transform(new DOMSource(n), new StreamResult(w));
+        return w.toString();
+    }
+
+    /**
+     * Repeated updates of a large document keep the association tables consistent.
+     */
+    public void testRepeatedUpdates() throws Exception {
+        StringBuilder xml = new StringBuilder("<config>");
+        for (int i = 0; i < 500; i++)
+            xml.append("<entry key='k").append(i).append("'><value>").append(i).append("</value></entry>");
+        xml.append("</config>");
+        Document doc = parse(xml.toString());
+        Binder<Node> binder = JAXBContext.newInstance(Config.class).createBinder();
+        Config c = (Config) binder.unmarshal(doc.getDocumentElement());
+
+        for (int round = 0; round < 3; round++) {
+            c.entries.remove(c.entries.size() / 2);
+            Element root = (Element) binder.updateXML(c);
+            assertSame(root, doc.getDocumentElement());
+            for (int i = 0; i < c.entries.size(); i++) {
+                Element e = child(root,i);
+                assertSame(e, binder.getXMLNode(c.entries.get(i)));
+                assertSame(c.entries.get(i), binder.getJAXBNode(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2;
+
+import java.io.StringReader;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+public class DOMUnmarshalTest extends TestCase {
+
+    @XmlRootElement(name = "root", namespace = "urn:a")
+    @XmlType(name = "root", namespace = "urn:a")
+    @XmlSeeAlso(Sub.class)
+    static class Root {
+        @XmlAttribute
+        String id;
+        @XmlElement(namespace = "urn:a")
+        String text;
+    }
+
+    @XmlType(name = "sub", namespace = "urn:t")
+    static class Sub extends Root {
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        dbf.setCoalescing(false);
+        return dbf.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    public void testDocument() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Root.class).createUnmarshaller();
+        Root r = (Root) u.unmarshal(parse(
+            "<root xmlns='urn:a' id='x'><text>a<![CDATA[<b>]]>c</text></root>"));
+        assertEquals("x", r.id);
+        assertEquals("a<b>c", r.text);
+    }
+
+    /**
+     * Prefixes declared on the ancestors of the unmarshalled element are in scope.
+     */
+    public void testSubtree() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Root.class).createUnmarshaller();
+        Document doc = parse("<envelope xmlns:t='urn:t' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>"
+            + "<a:root xmlns:a='urn:a' xsi:type='t:sub'><a:text>t</a:text></a:root></envelope>");
+        Element e = (Element) doc.getDocumentElement().getFirstChild();
+        Root r = (Root) u.unmarshal(e);
+        assertEquals(Sub.class, r.getClass());
+        assertEquals("t", r.text);
+    }
+}
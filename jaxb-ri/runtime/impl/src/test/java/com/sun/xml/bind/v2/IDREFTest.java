@@ -0,0 +1,215 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import junit.framework.TestCase;
+
+public class IDREFTest extends TestCase {
+
+    @XmlRootElement(name = "graph")
+    static class Graph {
+        @XmlElement(name = "node")
+        List<Node> nodes = new ArrayList<>();
+    }
+
+    static class Node {
+        @XmlID @XmlAttribute
+        String id;
+        @XmlIDREF @XmlAttribute
+        Node next;
+    }
+
+    @XmlRootElement(name = "items")
+    static class Items {
+        @XmlElement(name = "item")
+        List<Item> items = new ArrayList<>();
+    }
+
+    /**
+     * Equal to any other item with the same ID.
+     */
+    static class Item {
+        @XmlID @XmlAttribute
+        String id;
+        @XmlIDREF @XmlAttribute
+        Item ref;
+
+        Item() {
+        }
+
+        Item(String id, Item ref) {
+            this.id = id;
+            this.ref = ref;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).id.equals(id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+
+    private static String chain(int size, boolean forward) {
+        StringBuilder sb = new StringBuilder("<graph>");
+        for (int i = 0; i < size; i++) {
+            int next = forward ? (i + 1) % size : (i + size - 1) % size;
+            sb.append("<node id='n").append(i).append("' next='n").append(next).append("'/>");
+        }
+        return sb.append("</graph>").toString();
+    }
+
+    private static void assertChain(Graph g, int size, boolean forward) {
+        assertEquals(size, g.nodes.size());
+        for (int i = 0; i < size; i++) {
+            int next = forward ? (i + 1) % size : (i + size - 1) % size;
+            assertSame(g.nodes.get(next), g.nodes.get(i).next);
+        }
+    }
+
+    public void testBackwardReferences() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Graph.class).createUnmarshaller();
+        assertChain((Graph) u.unmarshal(new StringReader(chain(5, false))), 5, false);
+    }
+
+    public void testForwardReferences() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Graph.class).createUnmarshaller();
+        // more than the initial capacity of the forward reference queue
+        assertChain((Graph) u.unmarshal(new StringReader(chain(100, true))), 100, true);
+        // the unmarshaller is reusable
+        assertChain((Graph) u.unmarshal(new StringReader(chain(3, true))), 3, true);
+    }
+
+    public void testUnresolvedReference() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Graph.class).createUnmarshaller();
+        final List<ValidationEvent> events = new ArrayList<>();
+        u.setEventHandler(new ValidationEventHandler() {
+            public boolean handleEvent(ValidationEvent event) {
+                events.add(event);
+                return false;
+            }
+        });
+        try {
+            u.unmarshal(new StringReader("<graph><node id='a' next='c'/>\n<node id='c' next='x'/></graph>"));
+            fail();
+        } catch (UnmarshalException e) {
+            assertEquals(1, events.size());
+            assertTrue(events.get(0).getMessage().contains("\"x\""));
+            assertEquals(2, events.get(0).getLocator().getLineNumber());
+        }
+    }
+
+    /**
+     * Marshals the items, and returns the events reported.
+     */
+    private static List<ValidationEvent> marshal(Items items, Boolean danglingIdrefCheck) throws Exception {
+        Marshaller m = JAXBContext.newInstance(Items.class).createMarshaller();
+        if (danglingIdrefCheck != null) {
+            m.setProperty("com.sun.xml.bind.danglingIdrefCheck", danglingIdrefCheck);
+            assertEquals(danglingIdrefCheck, m.getProperty("com.sun.xml.bind.danglingIdrefCheck"));
+        }
+        final List<ValidationEvent> events = new ArrayList<>();
+        m.setEventHandler(new ValidationEventHandler() {
+            public boolean handleEvent(ValidationEvent event) {
+                events.add(event);
+                return true;
+            }
+        });
+        m.marshal(items, new StringWriter());
+        return events;
+    }
+
+    /**
+     * Referenced objects that aren't marshalled are reported when the check is on.
+     */
+    public void testDanglingIdref() throws Exception {
+        Items items = new Items();
+        items.items.add(new Item("a", new Item("b", null)));
+
+        assertEquals(0, marshal(items, null).size());
+        assertEquals(0, marshal(items, false).size());
+        List<ValidationEvent> events = marshal(items, true);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).getMessage(), events.get(0).getMessage().contains("b"));
+
+        // a reference within the document is fine
+        items.items.add(items.items.get(0).ref);
+        assertEquals(0, marshal(items, true).size());
+    }
+
+    /**
+     * A referenced object is only found if that very object is marshalled,
+     * not another one that is equal to it.
+     */
+    public void testIdsTrackedByIdentity() throws Exception {
+        Items items = new Items();
+        Item a = new Item("a", null);
+        items.items.add(a);
+        items.items.add(new Item("b", a));
+        assertEquals(0, marshal(items, true).size());
+
+        items.items.set(1, new Item("b", new Item("a", null)));
+        assertEquals(a, items.items.get(1).ref);
+        List<ValidationEvent> events = marshal(items, true);
+        assertEquals(1, events.size());
+        assertSame(items.items.get(1).ref, events.get(0).getLocator().getObject());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlType;
+
+import junit.framework.TestCase;
+
+public class XsiTypeTest extends TestCase {
+
+    @XmlRootElement(name = "root")
+    static class Root {
+        @XmlElement(name = "shape")
+        List<Shape> shapes = new ArrayList<>();
+    }
+
+    @XmlSeeAlso({Circle.class, Square.class})
+    static class Shape {
+    }
+
+    @XmlType(name = "t", namespace = "urn:circle")
+    static class Circle extends Shape {
+    }
+
+    @XmlType(name = "t", namespace = "urn:square")
+    static class Square extends Shape {
+    }
+
+    /**
+     * The same @xsi:type value has to be resolved again when its prefix is rebound.
+     */
+    public void testPrefixRebinding() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Root.class).createUnmarshaller();
+        String xml = "<root xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xmlns:p='urn:circle'>"
+            + "<shape xsi:type='p:t'/>"
+            + "<shape xmlns:p='urn:square' xsi:type='p:t'/>"
+            + "<shape xsi:type='p:t'/>"
+            + "<shape xmlns:p='urn:square' xsi:type='p:t'/>"
+            + "</root>";
+        for (int i = 0; i < 2; i++) {
+            Root r = (Root) u.unmarshal(new StringReader(xml));
+            assertEquals(4, r.shapes.size());
+            assertEquals(Circle.class, r.shapes.get(0).getClass());
+            assertEquals(Square.class, r.shapes.get(1).getClass());
+            assertEquals(Circle.class, r.shapes.get(2).getClass());
+            assertEquals(Square.class, r.shapes.get(3).getClass());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+public class ActualTypeCacheTest extends TestCase {
+
+    @XmlRootElement
+    static class Zoo {
+        @XmlElement
+        List<Animal> animal = new ArrayList<Animal>();
+        @XmlElement
+        Animal keeper;
+    }
+
+    @XmlSeeAlso({Cat.class, Dog.class, Bird.class})
+    static class Animal {
+        @XmlElement
+        String name;
+    }
+
+    @XmlType(namespace = "urn:cat")
+    static class Cat extends Animal {}
+
+    @XmlType(namespace = "urn:dog")
+    static class Dog extends Animal {}
+
+    static class Bird extends Animal {}
+
+    /**
+     * A type not known to the context.
+     */
+    static class Fish extends Animal {}
+
+    private JAXBContextImpl context;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = (JAXBContextImpl) JAXBContext.newInstance(Zoo.class);
+    }
+
+    public void testTwoMostRecent() throws Exception {
+        ActualTypeCache cache = new ActualTypeCache();
+        assertNull(cache.get(Cat.class));
+
+        ActualTypeCache.Entry cat = cache.put(new Cat(), context.getBeanInfo(Cat.class));
+        assertSame(cat, cache.get(Cat.class));
+        assertSame(context.getBeanInfo(Cat.class), cat.beanInfo);
+        assertEquals(new QName("urn:cat", "cat"), cat.typeName);
+
+        ActualTypeCache.Entry dog = cache.put(new Dog(), context.getBeanInfo(Dog.class));
+        assertSame(cat, cache.get(Cat.class));
+        assertSame(dog, cache.get(Dog.class));
+
+        // the least recently added one goes
+        ActualTypeCache.Entry bird = cache.put(new Bird(), context.getBeanInfo(Bird.class));
+        assertNull(cache.get(Cat.class));
+        assertSame(dog, cache.get(Dog.class));
+        assertSame(bird, cache.get(Bird.class));
+    }
+
+    /**
+     * An unknown subclass is cached under its own class, with the bean info of its known ancestor.
+     */
+    public void testUnknownSubclass() throws Exception {
+        ActualTypeCache cache = new ActualTypeCache();
+        ActualTypeCache.Entry e = cache.put(new Fish(), context.getBeanInfo(new Fish(), true));
+        assertSame(e, cache.get(Fish.class));
+        assertNull(cache.get(Animal.class));
+        assertSame(context.getBeanInfo(Animal.class), e.beanInfo);
+    }
+
+    public void testPrintXsiType() throws Exception {
+        ActualTypeCache cache = new ActualTypeCache();
+        ActualTypeCache.Entry e = cache.put(new Cat(), context.getBeanInfo(Cat.class));
+
+        String v = cache.printXsiType(e, new Prefixes("c"));
+        assertEquals("c:cat", v);
+        // the printed value replaces the entry
+        ActualTypeCache.Entry printed = cache.get(Cat.class);
+        assertNotSame(e, printed);
+        assertSame(v, cache.printXsiType(printed, new Prefixes("c")));
+
+        // a different prefix needs a new value
+        assertEquals("k:cat", cache.printXsiType(printed, new Prefixes("k")));
+        assertEquals("k:cat", cache.get(Cat.class).xsiType);
+    }
+
+    /**
+     * Marshalling with the cache gives the same documents while the types on a property keep changing.
+     */
+    public void testMarshal() throws Exception {
+        Zoo zoo = new Zoo();
+        Animal[] animals = {new Cat(), new Dog(), new Cat(), new Bird(), new Fish(), new Dog(), new Animal(), new Cat()};
+        for (int i = 0; i < animals.length; i++) {
+            animals[i].name = "a" + i;
+            zoo.animal.add(animals[i]);
+        }
+        zoo.keeper = new Dog();
+
+        String xml = marshal(zoo);
+        Zoo read = (Zoo) context.createUnmarshaller().unmarshal(new StringReader(xml));
+        assertEquals(animals.length, read.animal.size());
+        for (int i = 0; i < animals.length; i++) {
+            // Fish is written as its known ancestor
+            Class<?> expected = animals[i] instanceof Fish ? Animal.class : animals[i].getClass();
+            assertSame(expected, read.animal.get(i).getClass());
+            assertEquals("a" + i, read.animal.get(i).name);
+        }
+        assertSame(Dog.class, read.keeper.getClass());
+
+        // the caches are warm now
+        assertEquals(xml, marshal(zoo));
+        assertEquals(xml, marshal(read));
+    }
+
+    private String marshal(Zoo zoo) throws Exception {
+        StringWriter w = new StringWriter();
+        context.createMarshaller().marshal(zoo, w);
+        return w.toString();
+    }
+
+    /**
+     * Binds every namespace URI to the same prefix.
+     */
+    private static final class Prefixes implements NamespaceContext {
+        private final String prefix;
+
+        Prefixes(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getNamespaceURI(String prefix) {
+            return null;
+        }
+
+        public String getPrefix(String namespaceURI) {
+            return prefix;
+        }
+
+        public Iterator getPrefixes(String namespaceURI) {
+            return Collections.singletonList(prefix).iterator();
+        }
+    }
+}
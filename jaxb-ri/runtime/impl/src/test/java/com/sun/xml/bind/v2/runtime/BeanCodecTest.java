@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import com.sun.xml.bind.DatatypeConverterImpl;
+import com.sun.xml.bind.api.JAXBRIContext;
+import com.sun.xml.bind.annotation.XmlCodec;
+
+import org.xml.sax.SAXException;
+
+import junit.framework.TestCase;
+
+public class BeanCodecTest extends TestCase {
+
+    @XmlRootElement(name = "order")
+    @XmlType(propOrder = {"qty", "tag", "line"})
+    @XmlCodec(OrderCodec.class)
+    static class Order {
+        @XmlAttribute
+        String id;
+        @XmlAttribute
+        Integer code;
+        @XmlElement
+        int qty;
+        @XmlElement
+        List<String> tag = new ArrayList<String>();
+        @XmlElement
+        Line line;
+    }
+
+    static class Line {
+        @XmlElement
+        String sku;
+    }
+
+    static final class OrderCodec extends BeanCodec<Order> {
+        static int written;
+        static int attributesWritten;
+        static int parsed;
+
+        OrderCodec() {
+            super(new QName[]{new QName("","qty"), new QName("","tag"), new QName("","line")},
+                new Class[]{null, null, Line.class},
+                new QName[]{new QName("","id"), new QName("","code")});
+        }
+
+        @Override
+        protected void serializeAttributes(Order bean, XMLSerializer target) throws SAXException, IOException, XMLStreamException {
+            attributesWritten++;
+            if (bean.id != null)
+                target.attribute(attributes[0], bean.id);
+            if (bean.code != null)
+                target.attribute(attributes[1], DatatypeConverterImpl._printInt(bean.code));
+        }
+
+        @Override
+        protected void serializeBody(Order bean, XMLSerializer target) throws SAXException, IOException, XMLStreamException {
+            written++;
+            target.leafElement(elements[0], bean.qty, "qty");
+            for (String v : bean.tag)
+                target.leafElement(elements[1], v, "tag");
+            if (bean.line != null) {
+                target.startElement(elements[2], null);
+                target.childAsXsiType(bean.line, "line", beanInfos[2], false);
+                target.endElement();
+            }
+        }
+
+        @Override
+        protected void parseElement(Order bean, int index, CharSequence text) {
+            parsed++;
+            switch (index) {
+            case 0:
+                bean.qty = DatatypeConverterImpl._parseInt(text);
+                break;
+            case 1:
+                bean.tag.add(text.toString());
+                break;
+            }
+        }
+
+        @Override
+        protected void parseAttribute(Order bean, int index, CharSequence text) {
+            parsed++;
+            switch (index) {
+            case 0:
+                bean.id = text.toString();
+                break;
+            case 1:
+                bean.code = DatatypeConverterImpl._parseInt(text);
+                break;
+            }
+        }
+    }
+
+    private static final String XML = "<order id=\"o1\" code=\"7\"><qty>3</qty><tag>a</tag><tag>b</tag><line><sku>x</sku></line></order>";
+
+    @Override
+    protected void setUp() {
+        OrderCodec.written = 0;
+        OrderCodec.attributesWritten = 0;
+        OrderCodec.parsed = 0;
+    }
+
+    public void testRoundTrip() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Order.class);
+
+        Order o = (Order) context.createUnmarshaller().unmarshal(new StringReader(XML));
+        assertEquals(5, OrderCodec.parsed);
+        assertEquals("o1", o.id);
+        assertEquals(Integer.valueOf(7), o.code);
+        assertEquals(3, o.qty);
+        assertEquals(2, o.tag.size());
+        assertEquals("x", o.line.sku);
+
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(o, w);
+        assertEquals(1, OrderCodec.written);
+        assertEquals(1, OrderCodec.attributesWritten);
+        assertEquals(XML, w.toString());
+    }
+
+    /**
+     * The codec writes the attributes in the order of the properties,
+     * so it isn't used for the canonical order.
+     */
+    public void testCanonicalization() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Order.class);
+        Order o = (Order) context.createUnmarshaller().unmarshal(new StringReader(XML));
+
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        m.setProperty(JAXBRIContext.CANONICALIZATION_SUPPORT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(o, w);
+        assertEquals(0, OrderCodec.attributesWritten);
+        assertTrue(w.toString(), w.toString().startsWith("<order code=\"7\" id=\"o1\">"));
+    }
+
+    /**
+     * An attribute the codec can't parse is reported as a recoverable error.
+     */
+    public void testAttributeError() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Order.class).createUnmarshaller();
+        final List<ValidationEvent> events = new ArrayList<ValidationEvent>();
+        u.setEventHandler(new ValidationEventHandler() {
+            public boolean handleEvent(ValidationEvent event) {
+                events.add(event);
+                return true;
+            }
+        });
+        Order o = (Order) u.unmarshal(new StringReader(XML.replace("\"7\"", "\"x\"")));
+        assertEquals(1, events.size());
+        assertEquals(ValidationEvent.ERROR, events.get(0).getSeverity());
+        assertNull(o.code);
+        assertEquals("o1", o.id);
+        assertEquals(3, o.qty);
+    }
+}
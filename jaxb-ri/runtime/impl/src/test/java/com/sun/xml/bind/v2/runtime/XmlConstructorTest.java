@@ -0,0 +1,290 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.Binder;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import com.sun.xml.bind.annotation.XmlConstructor;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+public class XmlConstructorTest extends TestCase {
+
+    @XmlRootElement(name = "point")
+    static class Point {
+        @XmlAttribute
+        final int x;
+        @XmlAttribute
+        final int y;
+
+        transient Object afterTarget;
+        transient boolean constructed;
+
+        Point() {
+            x = 0;
+            y = 0;
+        }
+
+        @XmlConstructor({"x", "y"})
+        Point(int x, int y) {
+            if (x < 0)
+                throw new IllegalArgumentException("negative");
+            this.x = x;
+            this.y = y;
+            this.constructed = true;
+        }
+
+        void afterUnmarshal(Unmarshaller u, Object parent) {
+            afterTarget = this;
+        }
+    }
+
+    static class Shape {
+        @XmlAttribute
+        final String name;
+
+        Shape() {
+            name = null;
+        }
+
+        @XmlConstructor({"name"})
+        Shape(String name) {
+            this.name = name;
+        }
+    }
+
+    @XmlRootElement(name = "polygon")
+    static class Polygon extends Shape {
+        @XmlElement(name = "point")
+        final List<Point> points;
+
+        Polygon() {
+            points = null;
+        }
+
+        @XmlConstructor({"name", "points"})
+        Polygon(String name, List<Point> points) {
+            super(name);
+            this.points = points == null ? null : Collections.unmodifiableList(points);
+        }
+    }
+
+    @XmlRootElement(name = "arity")
+    static class Arity {
+        @XmlAttribute
+        final int x;
+
+        Arity() {
+            x = 0;
+        }
+
+        @XmlConstructor({"x", "y"})
+        Arity(int x) {
+            this.x = x;
+        }
+    }
+
+    @XmlRootElement(name = "unknown")
+    static class Unknown {
+        @XmlAttribute
+        final int x;
+
+        Unknown() {
+            x = 0;
+        }
+
+        @XmlConstructor({"z"})
+        Unknown(int z) {
+            this.x = z;
+        }
+    }
+
+    @XmlRootElement(name = "identified")
+    static class Identified {
+        @XmlAttribute @XmlID
+        String id;
+
+        transient boolean constructed;
+
+        Identified() {
+        }
+
+        @XmlConstructor({"id"})
+        Identified(String id) {
+            this.id = id;
+            this.constructed = true;
+        }
+    }
+
+    private static Object unmarshal(Class<?> type, String xml) throws Exception {
+        return JAXBContext.newInstance(type).createUnmarshaller().unmarshal(new StringReader(xml));
+    }
+
+    /**
+     * The object returned and passed to afterUnmarshal is the one created by the constructor.
+     */
+    public void testConstruct() throws Exception {
+        Point p = (Point) unmarshal(Point.class, "<point x='1' y='2'/>");
+        assertTrue(p.constructed);
+        assertEquals(1, p.x);
+        assertEquals(2, p.y);
+        assertSame(p, p.afterTarget);
+    }
+
+    /**
+     * Inherited fields are passed to the constructor, and lists are collected in the scratch instance.
+     */
+    public void testInheritanceAndLists() throws Exception {
+        Polygon g = (Polygon) unmarshal(Polygon.class,
+            "<polygon name='tri'><point x='0' y='0'/><point x='4' y='0'/><point x='0' y='3'/></polygon>");
+        assertEquals("tri", g.name);
+        assertEquals(3, g.points.size());
+        for (Point p : g.points) {
+            assertTrue(p.constructed);
+            assertSame(p, p.afterTarget);
+        }
+        assertEquals(4, g.points.get(1).x);
+        assertEquals(3, g.points.get(2).y);
+        try {
+            g.points.add(new Point());
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // the constructor wrapped the unmarshalled list
+        }
+
+        g = (Polygon) unmarshal(Polygon.class, "<polygon/>");
+        assertNull(g.name);
+        assertNull(g.points);
+    }
+
+    /**
+     * A constructor that fails is reported, and the scratch instance is kept if the error is recovered.
+     */
+    public void testConstructorError() throws Exception {
+        final List<ValidationEvent> events = new ArrayList<ValidationEvent>();
+        Unmarshaller u = JAXBContext.newInstance(Point.class).createUnmarshaller();
+        u.setEventHandler(new ValidationEventHandler() {
+            public boolean handleEvent(ValidationEvent event) {
+                events.add(event);
+                return events.size() < 2;
+            }
+        });
+        Point p = (Point) u.unmarshal(new StringReader("<point x='-1' y='2'/>"));
+        assertEquals(1, events.size());
+        assertEquals(ValidationEvent.ERROR, events.get(0).getSeverity());
+        assertFalse(p.constructed);
+        assertEquals(-1, p.x);
+        assertSame(p, p.afterTarget);
+
+        try {
+            u.unmarshal(new StringReader("<point x='-1' y='2'/>"));
+            fail();
+        } catch (UnmarshalException e) {
+            // the handler gave up
+        }
+    }
+
+    /**
+     * The fields must match the parameters of the constructor.
+     */
+    public void testBadAnnotations() throws Exception {
+        try {
+            JAXBContext.newInstance(Arity.class);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("2 fields"));
+        }
+        try {
+            JAXBContext.newInstance(Unknown.class);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("\"z\""));
+        }
+    }
+
+    /**
+     * Classes with an ID keep the unmarshalled instance.
+     */
+    public void testIdIgnoresConstructor() throws Exception {
+        Identified i = (Identified) unmarshal(Identified.class, "<identified id='a'/>");
+        assertEquals("a", i.id);
+        assertFalse(i.constructed);
+    }
+
+    /**
+     * The binder associates the XML with the constructed objects.
+     */
+    public void testBinder() throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        Document doc = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(
+            "<polygon name='line'><point x='1' y='1'/><point x='2' y='2'/></polygon>")));
+        Binder<Node> binder = JAXBContext.newInstance(Polygon.class).createBinder();
+        Element root = doc.getDocumentElement();
+        Polygon g = (Polygon) binder.unmarshal(root);
+
+        assertSame(root, binder.getXMLNode(g));
+        assertSame(g, binder.getJAXBNode(root));
+        Node second = root.getLastChild();
+        assertSame(g.points.get(1), binder.getJAXBNode(second));
+        assertSame(second, binder.getXMLNode(g.points.get(1)));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.output;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlAnyAttribute;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.namespace.QName;
+
+import com.sun.xml.bind.api.JAXBRIContext;
+
+import junit.framework.TestCase;
+
+public class C14nXmlOutputTest extends TestCase {
+
+    static class Base {
+        @XmlAttribute
+        String z = "1";
+        @XmlAttribute(namespace = "urn:b")
+        String q = "2";
+        @XmlAttribute
+        String b = "3";
+    }
+
+    @XmlRootElement
+    static class Derived extends Base {
+        @XmlAttribute(namespace = "urn:a")
+        String n = "4";
+        @XmlAttribute
+        String m = "5";
+        @XmlAttribute
+        String a = "6";
+    }
+
+    @XmlRootElement
+    static class Wild extends Base {
+        @XmlAttribute
+        String m = "5";
+        @XmlAnyAttribute
+        Map<QName,String> any = new LinkedHashMap<QName,String>();
+    }
+
+    /**
+     * Unqualified attributes sorted by local name, then the others by namespace URI.
+     */
+    private static final String DERIVED = " a=\"6\" b=\"3\" m=\"5\" z=\"1\" ns2:n=\"4\" ns1:q=\"2\"/>";
+
+    /**
+     * Inherited attributes declared out of order come out sorted
+     * when the context is created for c14n.
+     */
+    public void testContextWithC14nSupport() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(new Class[] {Derived.class},
+            Collections.singletonMap(JAXBRIContext.CANONICALIZATION_SUPPORT, Boolean.TRUE));
+        String s = marshal(context.createMarshaller(), new Derived());
+        assertTrue(s, s.endsWith(DERIVED));
+    }
+
+    /**
+     * Same, when only the marshaller is configured for c14n.
+     */
+    public void testMarshallerWithC14nSupport() throws Exception {
+        Marshaller m = JAXBContext.newInstance(Derived.class).createMarshaller();
+        m.setProperty(JAXBRIContext.CANONICALIZATION_SUPPORT, Boolean.TRUE);
+        String s = marshal(m, new Derived());
+        assertTrue(s, s.endsWith(DERIVED));
+        // the same marshaller can go back to the declaration order
+        m.setProperty(JAXBRIContext.CANONICALIZATION_SUPPORT, Boolean.FALSE);
+        s = marshal(m, new Derived());
+        assertFalse(s, s.endsWith(DERIVED));
+    }
+
+    /**
+     * Wildcard attributes are merged into the statically known ones.
+     */
+    public void testWildcard() throws Exception {
+        Wild w = new Wild();
+        w.any.put(new QName("urn:b", "p"), "7");
+        w.any.put(new QName("", "y"), "8");
+        w.any.put(new QName("", "c"), "9");
+        Marshaller m = JAXBContext.newInstance(Wild.class).createMarshaller();
+        m.setProperty(JAXBRIContext.CANONICALIZATION_SUPPORT, Boolean.TRUE);
+        String s = marshal(m, w);
+        assertTrue(s, s.contains(" b=\"3\" c=\"9\" m=\"5\" y=\"8\" z=\"1\" ns1:p=\"7\" ns1:q=\"2\"/>"));
+    }
+
+    /**
+     * Enough attributes to grow the buffers.
+     */
+    public void testManyAttributes() throws Exception {
+        Wild w = new Wild();
+        StringBuilder expected = new StringBuilder(" b=\"3\"");
+        for (int i = 0; i < 20; i++) {
+            String name = "x" + (char) ('a' + i);
+            w.any.put(new QName(name), Integer.toString(i));
+        }
+        Marshaller m = JAXBContext.newInstance(Wild.class).createMarshaller();
+        m.setProperty(JAXBRIContext.CANONICALIZATION_SUPPORT, Boolean.TRUE);
+        expected.append(" m=\"5\"");
+        for (int i = 0; i < 20; i++)
+            expected.append(" x").append((char) ('a' + i)).append("=\"").append(i).append('"');
+        expected.append(" z=\"1\" ns1:q=\"2\"/>");
+        String s = marshal(m, w);
+        assertTrue(s, s.contains(expected));
+    }
+
+    private static String marshal(Marshaller m, Object o) throws Exception {
+        m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m.marshal(o, out);
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.output;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.dom.DOMResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+public class DOMOutputTest extends TestCase {
+
+    @XmlRootElement(name = "root", namespace = "urn:a")
+    static class Root {
+        @XmlAttribute
+        String plain = "p";
+        @XmlAttribute(namespace = "urn:b")
+        String qualified = "q";
+        @XmlElement(namespace = "urn:a")
+        List<String> item = new ArrayList<>();
+        @XmlElement(namespace = "urn:b")
+        Child child = new Child();
+    }
+
+    static class Child {
+        @XmlAttribute(namespace = "urn:b")
+        String qualified = "c";
+        @XmlValue
+        String value = "a < b & c";
+    }
+
+    /**
+     * Building the DOM directly must give the same tree as parsing the marshalled text.
+     */
+    public void testSameAsParsed() throws Exception {
+        Root r = new Root();
+        r.item.add("one");
+        r.item.add("two");
+        Marshaller m = JAXBContext.newInstance(Root.class).createMarshaller();
+
+        DOMResult result = new DOMResult();
+        m.marshal(r, result);
+        Document dom = (Document) result.getNode();
+
+        StringWriter w = new StringWriter();
+        m.marshal(r, w);
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        Document parsed = dbf.newDocumentBuilder().parse(new InputSource(new StringReader(w.toString())));
+
+        Element root = dom.getDocumentElement();
+        assertEquals("urn:a", root.getNamespaceURI());
+        assertEquals("p", root.getAttributeNS(null, "plain"));
+        assertEquals("q", root.getAttributeNS("urn:b", "qualified"));
+        assertTrue(root.isEqualNode(parsed.getDocumentElement()));
+    }
+}
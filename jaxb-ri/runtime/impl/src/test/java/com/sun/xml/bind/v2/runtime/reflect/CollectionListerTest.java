@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.reflect;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CollectionListerTest extends TestCase {
+
+    public static class Bean {
+        public List<Object> items;
+    }
+
+    /**
+     * An {@link ArrayList} that records the capacities it is asked for.
+     */
+    private static final class RecordingList extends ArrayList<Object> {
+        final List<Integer> capacities = new ArrayList<Integer>();
+
+        @Override
+        public void ensureCapacity(int minCapacity) {
+            capacities.add(minCapacity);
+            super.ensureCapacity(minCapacity);
+        }
+    }
+
+    private final Lister.CollectionLister<Bean,List<Object>> lister
+        = new Lister.CollectionLister<Bean,List<Object>>((Class)ArrayList.class);
+
+    private Accessor<Bean,List<Object>> acc;
+
+    @Override
+    protected void setUp() throws Exception {
+        acc = new Accessor.FieldReflection<Bean,List<Object>>(Bean.class.getField("items"));
+    }
+
+    /**
+     * Packs the given number of items into the bean, and returns the capacity
+     * asked for when the packing started, or -1 if none was.
+     */
+    private int pack(Bean bean, int size) throws Exception {
+        RecordingList list = (RecordingList) bean.items;
+        list.capacities.clear();
+        List<Object> c = lister.startPacking(bean, acc);
+        assertSame(list, c);
+        assertTrue(c.isEmpty());
+        for (int i = 0; i < size; i++)
+            lister.addToPack(c, i);
+        lister.endPacking(c, bean, acc);
+        assertEquals(size, bean.items.size());
+        assertTrue(list.capacities.size() <= 1);
+        return list.capacities.isEmpty() ? -1 : list.capacities.get(0);
+    }
+
+    /**
+     * The expected size jumps up to the largest size seen, decays towards smaller ones,
+     * and is capped.
+     */
+    public void testExpectedSize() throws Exception {
+        Bean bean = new Bean();
+        bean.items = new RecordingList();
+        assertEquals(-1, pack(bean, 10));
+        assertEquals(10, pack(bean, 2));
+        assertEquals(6, pack(bean, 100));
+        assertEquals(100, pack(bean, 10000));
+        assertEquals(4096, pack(bean, 0));
+        assertEquals(2048, pack(bean, 0));
+    }
+
+    /**
+     * A missing collection is created, and presized once a size is known.
+     */
+    public void testNewCollection() throws Exception {
+        Bean bean = new Bean();
+        List<Object> c = lister.startPacking(bean, acc);
+        assertSame(ArrayList.class, c.getClass());
+        assertSame(c, bean.items);
+        lister.addToPack(c, "a");
+        lister.endPacking(c, bean, acc);
+
+        bean.items = null;
+        c = lister.startPacking(bean, acc);
+        assertSame(ArrayList.class, c.getClass());
+        assertTrue(c.isEmpty());
+    }
+
+    /**
+     * Other collection classes are created with their default constructor.
+     */
+    public void testOtherCollection() throws Exception {
+        Lister.CollectionLister<Bean,List<Object>> linked
+            = new Lister.CollectionLister<Bean,List<Object>>((Class)LinkedList.class);
+        Bean bean = new Bean();
+        for (int i = 0; i < 2; i++) {
+            bean.items = null;
+            List<Object> c = linked.startPacking(bean, acc);
+            assertSame(LinkedList.class, c.getClass());
+            linked.addToPack(c, "a");
+            linked.addToPack(c, "b");
+            linked.endPacking(c, bean, acc);
+        }
+    }
+}
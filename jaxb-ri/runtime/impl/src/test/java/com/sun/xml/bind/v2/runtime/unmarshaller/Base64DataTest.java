@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.unmarshaller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sun.xml.bind.DatatypeConverterImpl;
+
+import junit.framework.TestCase;
+
+public class Base64DataTest extends TestCase {
+
+    @XmlRootElement(name = "doc")
+    static class Doc {
+        public DataHandler data;
+    }
+
+    /**
+     * Produces its content on the fly and records how it is read.
+     */
+    static final class GeneratedSource implements DataSource {
+        final int size;
+        int opened;
+        int closed;
+        int largestRead;
+
+        GeneratedSource(int size) {
+            this.size = size;
+        }
+
+        static byte at(int i) {
+            return (byte) (i * 31 + (i >> 8));
+        }
+
+        byte[] expected() {
+            byte[] r = new byte[size];
+            for (int i = 0; i < size; i++)
+                r[i] = at(i);
+            return r;
+        }
+
+        public InputStream getInputStream() {
+            opened++;
+            return new InputStream() {
+                private int pos;
+
+                @Override
+                public int read() {
+                    return pos < size ? at(pos++) & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    largestRead = Math.max(largestRead, len);
+                    if (pos >= size)
+                        return -1;
+                    // hand out short reads to exercise the chunk filling
+                    int n = Math.min(Math.min(len, 1000), size - pos);
+                    for (int i = 0; i < n; i++)
+                        b[off + i] = at(pos++);
+                    return n;
+                }
+
+                @Override
+                public void close() {
+                    closed++;
+                }
+            };
+        }
+
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException();
+        }
+
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        public String getName() {
+            return "generated";
+        }
+    }
+
+    private static String base64Of(String xml) {
+        int s = xml.indexOf("<data>") + "<data>".length();
+        return xml.substring(s, xml.indexOf("</data>", s));
+    }
+
+    public void testDataHandlerIsStreamedToOutputStream() throws Exception {
+        // not a multiple of the 3K chunk, nor of 3
+        GeneratedSource src = new GeneratedSource(10001);
+        Doc d = new Doc();
+        d.data = new DataHandler(src);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JAXBContext.newInstance(Doc.class).createMarshaller().marshal(d, out);
+
+        assertEquals(DatatypeConverterImpl._printBase64Binary(src.expected()), base64Of(out.toString("UTF-8")));
+        assertEquals(1, src.opened);
+        assertEquals(1, src.closed);
+        assertTrue(src.largestRead <= 3 * 1024);
+    }
+
+    public void testDataHandlerIsStreamedToXMLStreamWriter() throws Exception {
+        GeneratedSource src = new GeneratedSource(7000);
+        Doc d = new Doc();
+        d.data = new DataHandler(src);
+
+        StringWriter w = new StringWriter();
+        XMLStreamWriter xsw = XMLOutputFactory.newInstance().createXMLStreamWriter(w);
+        JAXBContext.newInstance(Doc.class).createMarshaller().marshal(d, xsw);
+        xsw.close();
+
+        assertEquals(DatatypeConverterImpl._printBase64Binary(src.expected()), base64Of(w.toString()));
+        assertEquals(1, src.closed);
+        assertTrue(src.largestRead <= 3 * 1024);
+    }
+
+    public void testRoundTrip() throws Exception {
+        GeneratedSource src = new GeneratedSource(5000);
+        Doc d = new Doc();
+        d.data = new DataHandler(src);
+
+        JAXBContext context = JAXBContext.newInstance(Doc.class);
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m.marshal(d, out);
+
+        Doc back = (Doc) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(out.toByteArray()));
+        InputStream in = back.data.getInputStream();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0)
+            data.write(b);
+        assertTrue(java.util.Arrays.equals(src.expected(), data.toByteArray()));
+    }
+
+    public void testParseFromCharSequence() {
+        byte[] data = new GeneratedSource(100).expected();
+        String text = DatatypeConverterImpl._printBase64Binary(data);
+        // with whitespace, as the connectors collect it from indented documents
+        StringBuilder sb = new StringBuilder("\n  ");
+        for (int i = 0; i < text.length(); i += 40)
+            sb.append(text, i, Math.min(text.length(), i + 40)).append("\n  ");
+
+        assertTrue(java.util.Arrays.equals(data, DatatypeConverterImpl._parseBase64Binary((CharSequence) sb)));
+        assertTrue(java.util.Arrays.equals(data, DatatypeConverterImpl._parseBase64Binary(sb.toString())));
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.runtime.unmarshaller;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.XMLConstants;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.TypeInfoProvider;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+import junit.framework.TestCase;
+
+public class ValidatingUnmarshallerTest extends TestCase {
+
+    @XmlRootElement(name = "r")
+    static class Root {
+        @XmlElement(name = "i")
+        List<String> items = new ArrayList<String>();
+    }
+
+    @XmlRootElement(name = "v")
+    static class Values {
+        @XmlElement
+        String s;
+        @XmlElement
+        int n;
+        @XmlElement
+        String t;
+    }
+
+    private static final String VALUES_XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+        + "<xs:element name='v'><xs:complexType><xs:sequence>"
+        + "<xs:element name='s' type='xs:string'/>"
+        + "<xs:element name='n' type='xs:int'/>"
+        + "<xs:element name='t'><xs:simpleType><xs:restriction base='xs:string'>"
+        + "<xs:maxLength value='3'/></xs:restriction></xs:simpleType></xs:element>"
+        + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+    private static final String VALUES = "<v>\n  <s>any text</s>\n  <n>1</n>\n  <t>abc</t>\n</v>";
+
+    /**
+     * The text of {@code xs:string} elements and the whitespace in element-only content
+     * isn't sent to the validator in the binding-aware mode, the rest still is.
+     */
+    public void testBindingAwareValidation() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new StreamSource(new StringReader(VALUES_XSD)));
+        TextRecordingSchema recorder = new TextRecordingSchema(schema);
+        Unmarshaller u = JAXBContext.newInstance(Values.class).createUnmarshaller();
+        u.setSchema(recorder);
+
+        Values v = (Values) u.unmarshal(new StringReader(VALUES));
+        assertEquals("any text", v.s);
+        // the whitespace before start tags in element-only content is already dropped by SAXConnector,
+        // and the one before the end tag isn't
+        assertEquals(recorder.text.toString(), 4, recorder.text.size());
+        assertTrue(recorder.text.contains("any text"));
+        assertTrue(recorder.text.contains("\n"));
+
+        recorder.text.clear();
+        u.setProperty(UnmarshallerImpl.BINDING_AWARE_VALIDATION, Boolean.TRUE);
+        v = (Values) u.unmarshal(new StringReader(VALUES));
+        assertEquals("any text", v.s);
+        assertEquals(1, v.n);
+        assertEquals("abc", v.t);
+        assertEquals(recorder.text.toString(), 2, recorder.text.size());
+        assertTrue(recorder.text.contains("1"));
+        assertTrue(recorder.text.contains("abc"));
+
+        // types with facets and other simple types are still validated
+        try {
+            u.unmarshal(new StringReader(VALUES.replace("abc", "abcd")));
+            fail();
+        } catch (UnmarshalException e) {
+            assertTrue(e.getLinkedException() instanceof SAXException);
+        }
+        try {
+            u.unmarshal(new StringReader(VALUES.replace(">1<", ">x<")));
+            fail();
+        } catch (UnmarshalException e) {
+            assertTrue(e.getLinkedException() instanceof SAXException);
+        }
+        // and so is the structure
+        try {
+            u.unmarshal(new StringReader(VALUES.replace("<n>1</n>", "")));
+            fail();
+        } catch (UnmarshalException e) {
+            assertTrue(e.getLinkedException() instanceof SAXException);
+        }
+    }
+
+    @XmlRootElement(name = "h")
+    static class Holder {
+        @XmlElement
+        Empty n;
+    }
+
+    static class Empty {
+    }
+
+    private static final String HOLDER_XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+        + "<xs:element name='h'><xs:complexType><xs:sequence>"
+        + "<xs:element name='n'><xs:simpleType><xs:restriction base='xs:string'>"
+        + "<xs:maxLength value='0'/></xs:restriction></xs:simpleType></xs:element>"
+        + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+    /**
+     * Whitespace is skipped by what the schema allows, not by what the binding expects.
+     * Here the binding expects no text in an element the schema only allows to be empty.
+     */
+    public void testWhitespaceTheBindingIgnores() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new StreamSource(new StringReader(HOLDER_XSD)));
+        TextRecordingSchema recorder = new TextRecordingSchema(schema);
+        Unmarshaller u = JAXBContext.newInstance(Holder.class).createUnmarshaller();
+        u.setSchema(recorder);
+        u.setProperty(UnmarshallerImpl.BINDING_AWARE_VALIDATION, Boolean.TRUE);
+
+        assertNotNull(((Holder) u.unmarshal(new StringReader("<h><n></n>\n</h>"))).n);
+        assertEquals(recorder.text.toString(), 1, recorder.text.size());
+        assertEquals("", recorder.text.get(0));
+
+        try {
+            u.unmarshal(new StringReader("<h><n> </n></h>"));
+            fail();
+        } catch (UnmarshalException e) {
+            assertTrue(e.getLinkedException() instanceof SAXException);
+        }
+    }
+
+    /**
+     * A document that goes wrong after enough events for the validator thread to start.
+     */
+    private static String truncated() {
+        StringBuilder sb = new StringBuilder("<r>");
+        for (int i = 0; i < 1000; i++)
+            sb.append("<i>").append(i).append("</i>");
+        return sb.append("<i>").toString();
+    }
+
+    /**
+     * When the unmarshalling fails, the validation running on another thread is cancelled
+     * instead of waiting for the rest of the document.
+     */
+    public void testAbortedConcurrentValidation() throws Exception {
+        RecordingSchema schema = new RecordingSchema();
+        Unmarshaller u = JAXBContext.newInstance(Root.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.CONCURRENT_VALIDATION, Boolean.TRUE);
+        u.setSchema(schema);
+
+        try {
+            u.unmarshal(new StringReader(truncated()));
+            fail();
+        } catch (UnmarshalException e) {
+            // malformed
+        }
+
+        Thread validator = schema.handler.thread;
+        assertNotNull(validator);
+        assertNotSame(Thread.currentThread(), validator);
+        assertFalse(schema.handler.ended);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (isValidating(validator)) {
+            assertTrue("the validator thread is still waiting for the document", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+
+        // the unmarshaller is still usable
+        Root r = (Root) u.unmarshal(new StringReader("<r><i>1</i></r>"));
+        assertEquals(1, r.items.size());
+        assertTrue(schema.handler.ended);
+    }
+
+    private static boolean isValidating(Thread t) {
+        for (StackTraceElement e : t.getStackTrace())
+            if (e.getClassName().startsWith("com.sun.xml.bind.v2.util.ValidatorPipe$Worker"))
+                return true;
+        return false;
+    }
+
+    /**
+     * Accepts everything, and remembers the thread the validation runs on.
+     */
+    private static final class RecordingSchema extends Schema {
+        RecordingHandler handler;
+
+        @Override
+        public Validator newValidator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ValidatorHandler newValidatorHandler() {
+            return handler = new RecordingHandler();
+        }
+    }
+
+    /**
+     * Validates with another {@link Schema}, and remembers the text sent to the validator.
+     */
+    private static final class TextRecordingSchema extends Schema {
+        final List<String> text = new ArrayList<String>();
+        private final Schema schema;
+
+        TextRecordingSchema(Schema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public Validator newValidator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ValidatorHandler newValidatorHandler() {
+            final ValidatorHandler vh = schema.newValidatorHandler();
+            return new ValidatorHandler() {
+                public void characters(char[] ch, int start, int length) throws SAXException {
+                    text.add(new String(ch, start, length));
+                    vh.characters(ch, start, length);
+                }
+
+                public void setDocumentLocator(Locator locator) { vh.setDocumentLocator(locator); }
+                public void startDocument() throws SAXException { vh.startDocument(); }
+                public void endDocument() throws SAXException { vh.endDocument(); }
+                public void startPrefixMapping(String prefix, String uri) throws SAXException { vh.startPrefixMapping(prefix, uri); }
+                public void endPrefixMapping(String prefix) throws SAXException { vh.endPrefixMapping(prefix); }
+                public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException { vh.startElement(uri, localName, qName, atts); }
+                public void endElement(String uri, String localName, String qName) throws SAXException { vh.endElement(uri, localName, qName); }
+                public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException { vh.ignorableWhitespace(ch, start, length); }
+                public void processingInstruction(String target, String data) throws SAXException { vh.processingInstruction(target, data); }
+                public void skippedEntity(String name) throws SAXException { vh.skippedEntity(name); }
+                public void setContentHandler(ContentHandler receiver) { vh.setContentHandler(receiver); }
+                public ContentHandler getContentHandler() { return vh.getContentHandler(); }
+                public void setErrorHandler(ErrorHandler errorHandler) { vh.setErrorHandler(errorHandler); }
+                public ErrorHandler getErrorHandler() { return vh.getErrorHandler(); }
+                public void setResourceResolver(LSResourceResolver resourceResolver) { vh.setResourceResolver(resourceResolver); }
+                public LSResourceResolver getResourceResolver() { return vh.getResourceResolver(); }
+                public TypeInfoProvider getTypeInfoProvider() { return vh.getTypeInfoProvider(); }
+            };
+        }
+    }
+
+    private static final class RecordingHandler extends ValidatorHandler {
+        volatile Thread thread;
+        volatile boolean ended;
+        private ContentHandler contentHandler;
+        private ErrorHandler errorHandler;
+        private LSResourceResolver resourceResolver;
+
+        public void startDocument() {
+            thread = Thread.currentThread();
+        }
+
+        public void endDocument() {
+            ended = true;
+        }
+
+        public void setDocumentLocator(Locator locator) {}
+        public void startPrefixMapping(String prefix, String uri) {}
+        public void endPrefixMapping(String prefix) {}
+        public void startElement(String uri, String localName, String qName, Attributes atts) {}
+        public void endElement(String uri, String localName, String qName) {}
+        public void characters(char[] ch, int start, int length) {}
+        public void ignorableWhitespace(char[] ch, int start, int length) {}
+        public void processingInstruction(String target, String data) {}
+        public void skippedEntity(String name) {}
+
+        public void setContentHandler(ContentHandler receiver) {
+            contentHandler = receiver;
+        }
+
+        public ContentHandler getContentHandler() {
+            return contentHandler;
+        }
+
+        public void setErrorHandler(ErrorHandler errorHandler) {
+            this.errorHandler = errorHandler;
+        }
+
+        public ErrorHandler getErrorHandler() {
+            return errorHandler;
+        }
+
+        public void setResourceResolver(LSResourceResolver resourceResolver) {
+            this.resourceResolver = resourceResolver;
+        }
+
+        public LSResourceResolver getResourceResolver() {
+            return resourceResolver;
+        }
+
+        public TypeInfoProvider getTypeInfoProvider() {
+            return null;
+        }
+    }
+}
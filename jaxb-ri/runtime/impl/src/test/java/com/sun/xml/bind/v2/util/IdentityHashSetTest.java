@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.util;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class IdentityHashSetTest extends TestCase {
+
+    public void testIdentity() {
+        IdentityHashSet<String> s = new IdentityHashSet<String>();
+        String foo = "foo";
+        assertTrue(s.add(foo));
+        assertFalse(s.add(foo));
+        // equal, but not the same object
+        String foo2 = new String(foo);
+        assertFalse(s.contains(foo2));
+        assertTrue(s.add(foo2));
+        assertEquals(2, s.size());
+    }
+
+    /**
+     * Tests the reallocation, iteration and reuse after {@link IdentityHashSet#clear()}.
+     */
+    public void testGrowAndClear() {
+        IdentityHashSet<Object> s = new IdentityHashSet<Object>();
+        for( int j=0; j<3; j++ ) {
+            List<Object> objects = new ArrayList<Object>();
+            for( int i=0; i<1000; i++ ) {
+                Object o = new Object();
+                objects.add(o);
+                assertTrue(s.add(o));
+            }
+            assertEquals(1000, s.size());
+            for (Object o : objects)
+                assertTrue(s.contains(o));
+            assertFalse(s.contains(new Object()));
+
+            int n = 0;
+            for (Object o : s) {
+                assertTrue(objects.contains(o));
+                n++;
+            }
+            assertEquals(1000, n);
+
+            s.clear();
+            assertTrue(s.isEmpty());
+            assertFalse(s.iterator().hasNext());
+            assertFalse(s.contains(objects.get(0)));
+        }
+    }
+
+    private static int capacity(IdentityHashSet<?> s) throws Exception {
+        Field f = IdentityHashSet.class.getDeclaredField("table");
+        f.setAccessible(true);
+        return ((Object[]) f.get(s)).length;
+    }
+
+    /**
+     * The table is kept across uses of a similar size,
+     * but a small use after a big one doesn't keep the big table.
+     */
+    public void testClearShrinks() throws Exception {
+        IdentityHashSet<Object> s = new IdentityHashSet<Object>();
+        for( int i=0; i<10000; i++ )
+            s.add(new Object());
+        int big = capacity(s);
+        s.clear();
+        assertEquals(big, capacity(s));
+
+        for( int i=0; i<100; i++ )
+            s.add(new Object());
+        s.clear();
+        assertEquals(256, capacity(s));
+
+        Object o = new Object();
+        s.add(o);
+        assertTrue(s.contains(o));
+        s.clear();
+        assertEquals(32, capacity(s));
+        assertFalse(s.contains(o));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.util;
+
+import java.io.StringReader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import junit.framework.TestCase;
+
+public class ValidatorPipeTest extends TestCase {
+
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+        + "<xs:element name='r'><xs:complexType><xs:sequence>"
+        + "<xs:element name='i' type='xs:int' maxOccurs='unbounded'/>"
+        + "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+    private Schema schema;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+            .newSchema(new StreamSource(new StringReader(SCHEMA)));
+    }
+
+    private void validate(String xml) throws Exception {
+        ValidatorPipe pipe = new ValidatorPipe(schema.newValidatorHandler(), new DefaultHandler() {
+            @Override
+            public void error(SAXParseException e) throws SAXException {
+                throw e;
+            }
+        });
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(true);
+        XMLReader reader = spf.newSAXParser().getXMLReader();
+        reader.setContentHandler(pipe);
+        reader.parse(new InputSource(new StringReader(xml)));
+        pipe.await();
+    }
+
+    /**
+     * Builds a document large enough to go around the ring a few times.
+     */
+    private static String document(String last) {
+        StringBuilder sb = new StringBuilder("<r>\n");
+        for( int i=0; i<5000; i++ )
+            sb.append("<i>").append(i).append("</i>\n");
+        return sb.append(last).append("</r>").toString();
+    }
+
+    public void testValid() throws Exception {
+        validate(document(""));
+    }
+
+    public void testInvalid() throws Exception {
+        try {
+            validate(document("<i>x</i>"));
+            fail();
+        } catch (SAXParseException e) {
+            // reported with the position the validator saw
+            assertEquals(5002, e.getLineNumber());
+        }
+    }
+
+    /**
+     * The producer must not wait forever for a validator thread that has quit.
+     */
+    public void testWorkerDies() throws Exception {
+        final Thread[] workerThread = new Thread[1];
+        ValidatorHandler validator = schema.newValidatorHandler();
+        validator.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startDocument() {
+                synchronized(workerThread) {
+                    workerThread[0] = Thread.currentThread();
+                    workerThread.notifyAll();
+                }
+            }
+        });
+        final ValidatorPipe pipe = new ValidatorPipe(validator, new DefaultHandler());
+        final AttributesImpl atts = new AttributesImpl();
+
+        pipe.startDocument();
+        pipe.startElement("","r","r",atts);
+        // fill and hand over the first chunk
+        for( int i=0; i<200; i++ ) {
+            pipe.startElement("","i","i",atts);
+            pipe.endElement("","i","i");
+        }
+        synchronized(workerThread) {
+            while(workerThread[0]==null)
+                workerThread.wait();
+        }
+        workerThread[0].interrupt();
+
+        FutureTask<Void> producer = new FutureTask<Void>(new Callable<Void>() {
+            public Void call() throws Exception {
+                // more than the ring can hold
+                for( int i=0; i<5000; i++ ) {
+                    pipe.startElement("","i","i",atts);
+                    pipe.endElement("","i","i");
+                }
+                pipe.endElement("","r","r");
+                pipe.endDocument();
+                pipe.await();
+                return null;
+            }
+        });
+        new Thread(producer).start();
+        try {
+            producer.get(30,TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SAXException);
+            assertTrue(((SAXException)e.getCause()).getException() instanceof InterruptedException);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.benchmark;
+
+import com.sun.xml.bind.v2.benchmark.model.Models;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Unmarshals the benchmark documents through each of the runtime's input paths.
+ *
+ * <ul>
+ *  <li>{@code sax}: {@link java.io.InputStream}, parsed by SAX and fed through {@code SAXConnector}
+ *  <li>{@code stax}: {@link XMLStreamReader}, read by {@code StAXStreamConnector}
+ *  <li>{@code dom}: a pre-parsed {@link Document}, visited by {@code DOMConnector}
+ * </ul>
+ *
+ * The parser cost is part of the {@code sax} and {@code stax} numbers,
+ * while {@code dom} measures the runtime alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnmarshalBenchmark {
+
+    @Param({Models.SMALL, Models.MEDIUM, Models.HUGE, Models.ATTRIBUTES,
+            Models.TEXT, Models.DEEP, Models.BASE64, Models.XSI_TYPE})
+    public String model;
+
+    private byte[] xml;
+    private Document dom;
+    private Unmarshaller unmarshaller;
+    private XMLInputFactory xmlInputFactory;
+
+    @Setup
+    public void setup() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Models.CLASSES);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        context.createMarshaller().marshal(Models.create(model), out);
+        xml = out.toByteArray();
+
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        dom = dbf.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+
+        unmarshaller = context.createUnmarshaller();
+        xmlInputFactory = XMLInputFactory.newInstance();
+    }
+
+    @Benchmark
+    public Object sax() throws Exception {
+        return unmarshaller.unmarshal(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Object stax() throws Exception {
+        XMLStreamReader r = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(xml));
+        try {
+            return unmarshaller.unmarshal(r);
+        } finally {
+            r.close();
+        }
+    }
+
+    @Benchmark
+    public Object dom() throws Exception {
+        return unmarshaller.unmarshal(dom);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.bind.v2.benchmark.model;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+
+/**
+ * Creates the benchmark documents.
+ *
+ * <p>
+ * The content is generated from a fixed seed, so every fork of a benchmark
+ * works on exactly the same data.
+ */
+public final class Models {
+
+    public static final String NS = "http://jaxb.dev.java.net/benchmark";
+
+    /**
+     * All the root classes, for creating a {@link javax.xml.bind.JAXBContext}.
+     */
+    public static final Class[] CLASSES = {
+        Order.class, Records.class, Article.class, Node.class, Attachments.class, Drawing.class
+    };
+
+    // names accepted by create(String), used as the JMH @Param values
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String HUGE = "huge";
+    public static final String ATTRIBUTES = "attributes";
+    public static final String TEXT = "text";
+    public static final String DEEP = "deep";
+    public static final String BASE64 = "base64";
+    public static final String XSI_TYPE = "xsitype";
+
+    private Models() {}
+
+    /**
+     * Creates the root object of the named document.
+     *
+     * @throws IllegalArgumentException
+     *      if the name is not one of the constants of this class.
+     */
+    public static Object create(String name) {
+        Random r = new Random(42);
+        if (SMALL.equals(name))
+            return order(r, 3);
+        if (MEDIUM.equals(name))
+            return order(r, 200);
+        if (HUGE.equals(name))
+            return order(r, 20000);
+        if (ATTRIBUTES.equals(name))
+            return records(r, 1000);
+        if (TEXT.equals(name))
+            return article(r, 50, 2000);
+        if (DEEP.equals(name))
+            return node(250);
+        if (BASE64.equals(name))
+            return attachments(r, 20, 16 * 1024);
+        if (XSI_TYPE.equals(name))
+            return drawing(r, 1000);
+        throw new IllegalArgumentException(name);
+    }
+
+    private static Order order(Random r, int items) {
+        Order o = new Order();
+        o.id = r.nextInt(1000000);
+        o.customer = "Customer " + r.nextInt(1000);
+        try {
+            o.date = DatatypeFactory.newInstance().newXMLGregorianCalendar(2018, 6, 15, 10, 30, 0, 0, 0);
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            Item item = new Item();
+            item.sku = "SKU-" + r.nextInt(100000);
+            item.name = "Product " + i + " & accessories";
+            item.quantity = 1 + r.nextInt(10);
+            item.price = BigDecimal.valueOf(r.nextInt(100000), 2);
+            item.shipped = r.nextBoolean();
+            o.items.add(item);
+            total = total.add(item.price.multiply(BigDecimal.valueOf(item.quantity)));
+        }
+        o.total = total;
+        return o;
+    }
+
+    private static Records records(Random r, int count) {
+        Records rs = new Records();
+        String[] states = {"open", "closed", "pending"};
+        for (int i = 0; i < count; i++) {
+            Record rec = new Record();
+            rec.id = i;
+            rec.code = Integer.toHexString(r.nextInt());
+            rec.name = "record <" + i + ">";
+            rec.owner = "owner" + r.nextInt(50);
+            rec.status = states[r.nextInt(states.length)];
+            rec.region = "region-" + r.nextInt(8);
+            rec.amount = r.nextDouble() * 1000;
+            rec.version = r.nextLong();
+            rec.active = r.nextBoolean();
+            rec.priority = r.nextBoolean() ? r.nextInt(5) : null;
+            rs.records.add(rec);
+        }
+        return rs;
+    }
+
+    private static Article article(Random r, int paragraphs, int length) {
+        Article a = new Article();
+        a.title = "On the \"performance\" of <XML> & binding";
+        a.author = "J. Doé";
+        String[] words = {"lorem", "ipsum", "dolor", "sit", "amet", "<b>", "&amp;", "über", "日本", "x > y"};
+        StringBuilder sb = new StringBuilder(length + 16);
+        for (int i = 0; i < paragraphs; i++) {
+            sb.setLength(0);
+            while (sb.length() < length)
+                sb.append(words[r.nextInt(words.length)]).append(' ');
+            a.paragraphs.add(sb.toString());
+        }
+        return a;
+    }
+
+    private static Node node(int depth) {
+        Node root = null;
+        for (int i = depth; i > 0; i--) {
+            Node n = new Node();
+            n.depth = i;
+            n.label = "level" + i;
+            n.child = root;
+            root = n;
+        }
+        return root;
+    }
+
+    private static Attachments attachments(Random r, int count, int size) {
+        Attachments as = new Attachments();
+        for (int i = 0; i < count; i++) {
+            Attachments.Attachment a = new Attachments.Attachment();
+            a.name = "file" + i + ".bin";
+            a.data = new byte[size];
+            r.nextBytes(a.data);
+            as.attachments.add(a);
+        }
+        return as;
+    }
+
+    private static Drawing drawing(Random r, int count) {
+        Drawing d = new Drawing();
+        String[] colors = {"red", "green", "blue"};
+        for (int i = 0; i < count; i++) {
+            Shape s;
+            if (r.nextBoolean()) {
+                Circle c = new Circle();
+                c.radius = r.nextInt(100);
+                s = c;
+            } else {
+                Rectangle rect = new Rectangle();
+                rect.width = r.nextInt(100);
+                rect.height = r.nextInt(100);
+                s = rect;
+            }
+            s.color = colors[r.nextInt(colors.length)];
+            s.x = r.nextInt(1000);
+            s.y = r.nextInt(1000);
+            d.shapes.add(s);
+        }
+        return d;
+    }
+}
@@ -52,6 +52,7 @@ import java.util.Iterator;
 
 import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.writer.ParallelZipCodeWriter;
 import com.sun.codemodel.writer.ZipCodeWriter;
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
@@ -404,14 +405,17 @@ public class Driver {
                             else
                                 os = new FileOutputStream(opt.targetDir);
 
-                            cw = opt.createCodeWriter(new ZipCodeWriter(os));
+                            if(opt.threads>1)
+                                cw = opt.createCodeWriter(new ParallelZipCodeWriter(os,opt.threads));
+                            else
+                                cw = opt.createCodeWriter(new ZipCodeWriter(os));
                         } else
                             cw = opt.createCodeWriter();
 
                         if( !opt.quiet ) {
                             cw = new ProgressCodeWriter(cw,listener, model.codeModel.countArtifacts());
                         }
-                        model.codeModel.build(cw);
+                        model.codeModel.build(cw,cw,opt.threads);
                     } catch (IOException e) {
                         receiver.error(e);
                         return -1;
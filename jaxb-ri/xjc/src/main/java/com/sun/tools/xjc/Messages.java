@@ -112,6 +112,9 @@ public class Messages
     static final String ILLEGAL_TARGET_VERSION = // 1 arg
         "Driver.ILLEGAL_TARGET_VERSION";
 
+    static final String ILLEGAL_THREAD_COUNT = // 1 arg
+        "Driver.ILLEGAL_THREAD_COUNT";
+
     static final String MISSING_OPERAND = // 1 arg
         "Driver.MissingOperand";
 
@@ -290,10 +290,7 @@ public final class ModelLoader {
         forest.setEntityResolver(opt.entityResolver);
 
         // parse source grammars
-        for (InputSource value : opt.getGrammars()) {
-            errorReceiver.pollAbort();
-            forest.parse(value, true);
-        }
+        forest.parse(opt.getGrammars(), opt.threads);
 
         // parse external binding files
         for (InputSource value : opt.getBindFiles()) {
@@ -333,9 +330,10 @@ public final class ModelLoader {
             return null;
         }
 
-        if(opt.getBindFiles().length==0) {
+        if(opt.getBindFiles().length==0 && opt.threads==1) {
             // no external binding. try the speculative no DOMForest execution,
             // which is faster if the speculation succeeds.
+            // (unless we can parse the documents in parallel, which only DOMForest does.)
             try {
                 return createXSOMSpeculative();
             } catch( SpeculationFailure e) {
@@ -393,6 +391,9 @@ public final class ModelLoader {
     public Model annotateXMLSchema(XSSchemaSet xs) {
         if (xs == null)
             return null;
+        // the binding set refers to the DOM forest, which isn't needed anymore.
+        // let it go before the (memory hungry) model is built.
+        scdBasedBindingSet = null;
         return BGMBuilder.build(xs, codeModel, errorReceiver, opt);
     }
 
@@ -65,6 +65,7 @@ import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JPackage;
 import com.sun.codemodel.JResourceFile;
 import com.sun.codemodel.writer.FileCodeWriter;
+import com.sun.codemodel.writer.IncrementalFileCodeWriter;
 import com.sun.codemodel.writer.PrologCodeWriter;
 import com.sun.istack.tools.DefaultAuthenticator;
 import com.sun.tools.xjc.api.ClassNameAllocator;
@@ -143,6 +144,32 @@ public class Options {
      */
     public boolean disableXmlSecurity;
 
+    /**
+     * Number of threads used to parse the schema documents
+     * and to write the generated code, which includes compressing
+     * it in the zip mode. 1 does all of it sequentially.
+     *
+     * @since 2.4.0
+     */
+    public int threads = 1;
+
+    /**
+     * If the -incremental option is specified.
+     * Generated files whose content didn't change are left untouched.
+     *
+     * @since 2.4.0
+     */
+    public boolean incremental;
+
+    /**
+     * Directory where parsed schema documents are cached, or null
+     * to parse every document from scratch. The directory can be
+     * shared by concurrent and subsequent runs.
+     *
+     * @since 2.4.0
+     */
+    public File schemaCacheDir;
+
     /**
      * Check the source schemas with extra scrutiny.
      * The exact meaning depends on the schema language.
@@ -643,6 +670,25 @@ public class Options {
                 throw new BadCommandLineException(Messages.format(Messages.ILLEGAL_TARGET_VERSION, token));
             return 2;
         }
+        if (args[i].equals("-incremental")) {
+            incremental = true;
+            return 1;
+        }
+        if (args[i].equals("-schemaCache")) {
+            schemaCacheDir = new File(requireArgument("-schemaCache", args, ++i));
+            return 2;
+        }
+        if (args[i].equals("-threads")) {
+            String token = requireArgument("-threads", args, ++i);
+            try {
+                threads = Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                threads = 0;
+            }
+            if (threads < 1)
+                throw new BadCommandLineException(Messages.format(Messages.ILLEGAL_THREAD_COUNT, token));
+            return 2;
+        }
         if (args[i].equals("-httpproxyfile")) {
             if (i == args.length - 1 || args[i + 1].startsWith("-")) {
                 throw new BadCommandLineException(
@@ -953,6 +999,8 @@ public class Options {
      * @throws java.io.IOException
      */
     public CodeWriter createCodeWriter() throws IOException {
+        if (incremental)
+            return createCodeWriter(new IncrementalFileCodeWriter(targetDir, readOnly, encoding));
         return createCodeWriter(new FileCodeWriter(targetDir, readOnly, encoding));
     }
 
@@ -500,6 +500,33 @@ public class XJCBase extends MatchingTask {
         return this.options.encoding;
     }
 
+    public void setIncremental(boolean flg) {
+        this.options.incremental = flg;
+    }
+
+    public boolean getIncremental() {
+        return this.options.incremental;
+    }
+
+    public void setThreads(int threads) {
+        this.options.threads = threads;
+    }
+
+    public int getThreads() {
+        return this.options.threads;
+    }
+
+    /**
+     * Sets the directory where parsed schema documents are cached.
+     */
+    public void setSchemaCache(File dir) {
+        this.options.schemaCacheDir = dir;
+    }
+
+    public File getSchemaCache() {
+        return this.options.schemaCacheDir;
+    }
+
     /**
      * Nested {@code <depends>} element.
      */
@@ -564,6 +591,17 @@ public class XJCBase extends MatchingTask {
             getCommandline().createArgument().setValue("-encoding");
             getCommandline().createArgument().setValue(getEncoding());
         }
+        if (getIncremental()) {
+            getCommandline().createArgument().setValue("-incremental");
+        }
+        if (getThreads() > 1) {
+            getCommandline().createArgument().setValue("-threads");
+            getCommandline().createArgument().setValue(Integer.toString(getThreads()));
+        }
+        if (getSchemaCache() != null) {
+            getCommandline().createArgument().setValue("-schemaCache");
+            getCommandline().createArgument().setFile(getSchemaCache());
+        }
         // readOnly option
         if (getReadOnly()) {
             getCommandline().createArgument().setValue("-readOnly");
@@ -844,7 +882,8 @@ public class XJCBase extends MatchingTask {
 
             log("Writing output to " + options.targetDir, Project.MSG_INFO);
 
-            model.codeModel.build(new XJCBase.AntProgressCodeWriter(options.createCodeWriter()));
+            CodeWriter cw = new XJCBase.AntProgressCodeWriter(options.createCodeWriter());
+            model.codeModel.build(cw,cw,options.threads);
         } catch (IOException e) {
             throw new BuildException("unable to write files: " + e.getMessage(), e);
         }
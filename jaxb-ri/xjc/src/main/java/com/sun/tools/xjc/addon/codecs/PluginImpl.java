@@ -0,0 +1,362 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.codecs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCase;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.tools.xjc.BadCommandLineException;
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.model.CAttributePropertyInfo;
+import com.sun.tools.xjc.model.CBuiltinLeafInfo;
+import com.sun.tools.xjc.model.CClassInfo;
+import com.sun.tools.xjc.model.CElementPropertyInfo;
+import com.sun.tools.xjc.model.CNonElement;
+import com.sun.tools.xjc.model.CPropertyInfo;
+import com.sun.tools.xjc.model.CTypeRef;
+import com.sun.tools.xjc.outline.ClassOutline;
+import com.sun.tools.xjc.outline.FieldOutline;
+import com.sun.tools.xjc.outline.Outline;
+import com.sun.xml.bind.annotation.XmlCodec;
+import com.sun.xml.bind.v2.model.core.ID;
+import com.sun.xml.bind.v2.runtime.BeanCodec;
+import com.sun.xml.bind.v2.runtime.XMLSerializer;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Generates a compiled {@link BeanCodec} for each class whose properties are simple enough.
+ *
+ * <p>
+ * The codec is a nested class designated by {@link XmlCodec}. It reads and writes
+ * the fields directly, so the JAXB RI doesn't need to interpret the properties of
+ * the class. A class is left to the runtime if any of its properties is an adapter,
+ * an ID/IDREF, a nillable or defaulted element, a wrapped collection, a reference
+ * or value property, or has a type other than a bean or one of the built-in
+ * types that print without context.
+ *
+ * @since 2.4.0
+ */
+public class PluginImpl extends Plugin {
+
+    public String getOptionName() {
+        return "Xcodecs";
+    }
+
+    public String getUsage() {
+        return "  -Xcodecs           :  generate compiled marshal/unmarshal codecs for simple classes";
+    }
+
+    @Override
+    public int parseArgument(Options opt, String[] args, int i) throws BadCommandLineException, IOException {
+        return 0;   // no option recognized
+    }
+
+    public boolean run( Outline model, Options opt, ErrorHandler errorHandler ) {
+        for( ClassOutline co : model.getClasses() ) {
+            List<Slot> elements = new ArrayList<Slot>();
+            List<Slot> attributes = new ArrayList<Slot>();
+            if(analyze(model,co,elements,attributes))
+                generate(model.getCodeModel(),co,elements,attributes);
+        }
+        return true;
+    }
+
+    /**
+     * One element or attribute that the codec handles.
+     */
+    private static final class Slot {
+        final CPropertyInfo prop;
+        final QName name;
+        final JFieldVar field;
+        /**
+         * Type of the value, or of the items if {@link #getter} is non-null.
+         */
+        final JType type;
+        /**
+         * Getter that creates the list on demand, for repeated elements.
+         */
+        final JMethod getter;
+        /**
+         * The built-in type, or null if the element carries a bean.
+         */
+        final CBuiltinLeafInfo leaf;
+        final JClass bean;
+
+        Slot(CPropertyInfo prop, QName name, JFieldVar field, JType type, JMethod getter, CBuiltinLeafInfo leaf, JClass bean) {
+            this.prop = prop;
+            this.name = name;
+            this.field = field;
+            this.type = type;
+            this.getter = getter;
+            this.leaf = leaf;
+            this.bean = bean;
+        }
+    }
+
+    /**
+     * Collects the slots of the class.
+     *
+     * @return
+     *      false if the class has a property the codec can't handle.
+     */
+    private boolean analyze(Outline model, ClassOutline co, List<Slot> elements, List<Slot> attributes) {
+        for( FieldOutline fo : co.getDeclaredFields() ) {
+            CPropertyInfo prop = fo.getPropertyInfo();
+            JFieldVar field = co.implClass.fields().get(prop.getName(false));
+            if(field==null || prop.getAdapter()!=null || prop.inlineBinaryData())
+                return false;
+            if((field.mods().getValue()&JMod.FINAL)!=0)
+                return false;   // made immutable by another plugin
+
+            JType type = field.type();
+            JMethod getter = null;
+            if(prop.isCollection()) {
+                getter = co.implClass.getMethod("get"+prop.getName(true),new JType[0]);
+                if(getter==null || !(type instanceof JClass) || ((JClass)type).getTypeParameters().size()!=1)
+                    return false;
+                type = ((JClass)type).getTypeParameters().get(0);
+            }
+
+            if(prop instanceof CAttributePropertyInfo) {
+                CAttributePropertyInfo ap = (CAttributePropertyInfo) prop;
+                CBuiltinLeafInfo leaf = toLeaf(ap.getTarget());
+                if(leaf==null || ap.isCollection() || ap.id()!=ID.NONE || ap.getExpectedMimeType()!=null
+                || ap.getXmlName().getNamespaceURI().equals(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI))
+                    return false;
+                attributes.add(new Slot(prop,ap.getXmlName(),field,type,null,leaf,null));
+            } else
+            if(prop instanceof CElementPropertyInfo) {
+                CElementPropertyInfo ep = (CElementPropertyInfo) prop;
+                if(ep.getTypes().size()!=1 || ep.id()!=ID.NONE || ep.getExpectedMimeType()!=null
+                || ep.isValueList())
+                    return false;
+                CTypeRef tr = ep.getTypes().get(0);
+                if(tr.isNillable() || tr.getDefaultValue()!=null)
+                    return false;
+                CBuiltinLeafInfo leaf = toLeaf(tr.getTarget());
+                JClass bean = null;
+                if(leaf==null) {
+                    if(!(tr.getTarget() instanceof CClassInfo))
+                        return false;
+                    bean = model.getClazz((CClassInfo)tr.getTarget()).implRef;
+                }
+                elements.add(new Slot(prop,tr.getTagName(),field,type,getter,leaf,bean));
+            } else
+                return false;   // reference, value and map properties
+        }
+        return true;
+    }
+
+    private static final CBuiltinLeafInfo[] LEAVES = {
+        CBuiltinLeafInfo.STRING, CBuiltinLeafInfo.BOOLEAN, CBuiltinLeafInfo.INT,
+        CBuiltinLeafInfo.LONG, CBuiltinLeafInfo.BYTE, CBuiltinLeafInfo.SHORT,
+        CBuiltinLeafInfo.FLOAT, CBuiltinLeafInfo.DOUBLE,
+        CBuiltinLeafInfo.BIG_INTEGER, CBuiltinLeafInfo.BIG_DECIMAL
+    };
+
+    private static CBuiltinLeafInfo toLeaf(CNonElement target) {
+        for (CBuiltinLeafInfo leaf : LEAVES)
+            if(leaf==target)
+                return leaf;
+        return null;
+    }
+
+    private void generate(JCodeModel cm, ClassOutline co, List<Slot> elements, List<Slot> attributes) {
+        JDefinedClass codec = null;
+        for( int i=0; codec==null; i++ ) {
+            try {
+                codec = co.implClass._class(JMod.STATIC|JMod.FINAL, i==0 ? "JaxbCodec" : "JaxbCodec"+i);
+            } catch (JClassAlreadyExistsException e) {
+                // a nested class of that name came from the schema. try another.
+            }
+        }
+        codec._extends(cm.ref(BeanCodec.class).narrow(co.implRef));
+        co.implClass.annotate(XmlCodec.class).param("value",codec);
+
+        // constructor that passes down the names
+        JClass qname = cm.ref(QName.class);
+        JArray elementNames = JExpr.newArray(qname);
+        JArray elementTypes = JExpr.newArray(cm.ref(Class.class));
+        for (Slot s : elements) {
+            elementNames.add(JExpr._new(qname).arg(s.name.getNamespaceURI()).arg(s.name.getLocalPart()));
+            elementTypes.add(s.bean==null ? JExpr._null() : s.bean.dotclass());
+        }
+        JArray attributeNames = JExpr.newArray(qname);
+        for (Slot s : attributes)
+            attributeNames.add(JExpr._new(qname).arg(s.name.getNamespaceURI()).arg(s.name.getLocalPart()));
+        codec.constructor(JMod.NONE).body().invoke("super").arg(elementNames).arg(elementTypes).arg(attributeNames);
+
+        JClass dtc = cm.ref(DatatypeConverter.class);
+
+        // serializeAttributes
+        JMethod m = serializer(cm,codec,co,"serializeAttributes");
+        JVar $bean = m.listParams()[0];
+        JVar $target = m.listParams()[1];
+        for (int i = 0; i < attributes.size(); i++) {
+            Slot s = attributes.get(i);
+            JExpression v = $bean.ref(s.field);
+            JBlock block = s.type.isPrimitive() ? m.body() : m.body()._if(v.ne(JExpr._null()))._then();
+            block.invoke($target,"attribute").arg(JExpr.ref("attributes").component(JExpr.lit(i))).arg(print(dtc,s.leaf,v,false));
+        }
+
+        // serializeBody
+        m = serializer(cm,codec,co,"serializeBody");
+        $bean = m.listParams()[0];
+        $target = m.listParams()[1];
+        for (int i = 0; i < elements.size(); i++) {
+            Slot s = elements.get(i);
+            JExpression name = JExpr.ref("elements").component(JExpr.lit(i));
+            JExpression v = $bean.ref(s.field);
+            JBlock block = m.body();
+            if(s.getter!=null || !s.type.isPrimitive())
+                block = block._if(v.ne(JExpr._null()))._then();
+            if(s.getter!=null) {
+                JForEach loop = block.forEach(s.type,"v"+i,v);
+                v = loop.var();
+                block = loop.body()._if(v.ne(JExpr._null()))._then();
+            }
+            String fieldName = s.prop.getName(false);
+            if(s.leaf!=null) {
+                block.invoke($target,"leafElement").arg(name).arg(print(dtc,s.leaf,v,true)).arg(fieldName);
+            } else {
+                block.invoke($target,"startElement").arg(name).arg(JExpr._null());
+                block.invoke($target,"childAsXsiType").arg(v).arg(fieldName)
+                    .arg(JExpr.ref("beanInfos").component(JExpr.lit(i))).arg(JExpr.FALSE);
+                block.invoke($target,"endElement");
+            }
+        }
+
+        // parseElement and parseAttribute
+        parser(cm,codec,co,"parseElement",elements,dtc);
+        parser(cm,codec,co,"parseAttribute",attributes,dtc);
+    }
+
+    private JMethod serializer(JCodeModel cm, JDefinedClass codec, ClassOutline co, String name) {
+        JMethod m = codec.method(JMod.PROTECTED,cm.VOID,name);
+        m.annotate(Override.class);
+        m.param(co.implRef,"bean");
+        m.param(XMLSerializer.class,"target");
+        m._throws(SAXException.class)._throws(IOException.class)._throws(XMLStreamException.class);
+        return m;
+    }
+
+    private void parser(JCodeModel cm, JDefinedClass codec, ClassOutline co, String name, List<Slot> slots, JClass dtc) {
+        JMethod m = codec.method(JMod.PROTECTED,cm.VOID,name);
+        m.annotate(Override.class);
+        JVar $bean = m.param(co.implRef,"bean");
+        JVar $index = m.param(cm.INT,"index");
+        JVar $text = m.param(CharSequence.class,"text");
+        m._throws(SAXException.class);
+
+        JSwitch sw = null;
+        for (int i = 0; i < slots.size(); i++) {
+            Slot s = slots.get(i);
+            if(s.leaf==null)    continue;
+            if(sw==null)
+                sw = m.body()._switch($index);
+            JCase c = sw._case(JExpr.lit(i));
+            JExpression v = parse(dtc,s.leaf,$text);
+            if(s.getter!=null)
+                c.body().add($bean.invoke(s.getter).invoke("add").arg(v));
+            else
+                c.body().assign($bean.ref(s.field),v);
+            c.body()._break();
+        }
+    }
+
+    /**
+     * Expression that converts the value to what the serializer takes.
+     *
+     * @param leafElement
+     *      true if the value goes to {@code leafElement}, which takes an int as is.
+     */
+    private static JExpression print(JClass dtc, CBuiltinLeafInfo leaf, JExpression v, boolean leafElement) {
+        if(leaf==CBuiltinLeafInfo.STRING)                   return v;
+        if(leaf==CBuiltinLeafInfo.INT && leafElement)       return v;
+        return dtc.staticInvoke("print"+getConverterSuffix(leaf)).arg(v);
+    }
+
+    private static JExpression parse(JClass dtc, CBuiltinLeafInfo leaf, JExpression text) {
+        if(leaf==CBuiltinLeafInfo.STRING)       return text.invoke("toString");
+        return dtc.staticInvoke("parse"+getConverterSuffix(leaf)).arg(text.invoke("toString"));
+    }
+
+    /**
+     * Gets the part of the {@link DatatypeConverter} method names that designates the type.
+     */
+    private static String getConverterSuffix(CBuiltinLeafInfo leaf) {
+        if(leaf==CBuiltinLeafInfo.INT)          return "Int";
+        if(leaf==CBuiltinLeafInfo.BOOLEAN)      return "Boolean";
+        if(leaf==CBuiltinLeafInfo.LONG)         return "Long";
+        if(leaf==CBuiltinLeafInfo.BYTE)         return "Byte";
+        if(leaf==CBuiltinLeafInfo.SHORT)        return "Short";
+        if(leaf==CBuiltinLeafInfo.FLOAT)        return "Float";
+        if(leaf==CBuiltinLeafInfo.DOUBLE)       return "Double";
+        if(leaf==CBuiltinLeafInfo.BIG_INTEGER)  return "Integer";
+        assert leaf==CBuiltinLeafInfo.BIG_DECIMAL;
+        return "Decimal";
+    }
+}
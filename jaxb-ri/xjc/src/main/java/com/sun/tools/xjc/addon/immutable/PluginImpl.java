@@ -0,0 +1,360 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.immutable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.codemodel.JAnnotationArrayMember;
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.tools.xjc.BadCommandLineException;
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.model.CPropertyInfo;
+import com.sun.tools.xjc.outline.ClassOutline;
+import com.sun.tools.xjc.outline.FieldOutline;
+import com.sun.tools.xjc.outline.Outline;
+import com.sun.xml.bind.annotation.XmlCodec;
+import com.sun.xml.bind.annotation.XmlConstructor;
+import com.sun.xml.bind.api.impl.NameConverter;
+import com.sun.xml.bind.v2.model.core.ID;
+
+import org.xml.sax.ErrorHandler;
+
+/**
+ * Generates immutable classes, each with a nested {@code Builder}.
+ *
+ * <p>
+ * The fields become {@code final}, setters are removed, and list getters return
+ * unmodifiable lists. The JAXB RI unmarshals into an instance created by the
+ * no-argument constructor and then creates the object to return through the
+ * constructor designated by {@link XmlConstructor}.
+ *
+ * <p>
+ * A class is left mutable if it has an ID/IDREF property, a collection other than
+ * a {@code List} or an array, a list of another class than {@code ArrayList}, a field
+ * with an initializer, a constructor of its own, a compiled codec, a base class from
+ * another compilation, or a base class that is left mutable.
+ *
+ * @since 2.4.0
+ */
+public class PluginImpl extends Plugin {
+
+    public String getOptionName() {
+        return "Ximmutable";
+    }
+
+    public String getUsage() {
+        return "  -Ximmutable        :  generate immutable classes with builders";
+    }
+
+    @Override
+    public int parseArgument(Options opt, String[] args, int i) throws BadCommandLineException, IOException {
+        return 0;   // no option recognized
+    }
+
+    public boolean run( Outline model, Options opt, ErrorHandler errorHandler ) {
+        Map<ClassOutline,List<Slot>> done = new HashMap<ClassOutline,List<Slot>>();
+        for( ClassOutline co : model.getClasses() )
+            process(model.getCodeModel(),co,done);
+        return true;
+    }
+
+    /**
+     * One field passed to the constructor.
+     */
+    private static final class Slot {
+        final JFieldVar field;
+        /**
+         * Property name, as in the name of its getter.
+         */
+        final String name;
+        /**
+         * True if the field is a {@code List}.
+         */
+        final boolean list;
+
+        Slot(JFieldVar field, String name, boolean list) {
+            this.field = field;
+            this.name = name;
+            this.list = list;
+        }
+    }
+
+    /**
+     * Makes the class immutable, after its base class.
+     *
+     * @return
+     *      the fields of the class and its ancestors, in the order of the constructor
+     *      parameters, or null if the class is left mutable.
+     */
+    private List<Slot> process(JCodeModel cm, ClassOutline co, Map<ClassOutline,List<Slot>> done) {
+        if(done.containsKey(co))
+            return done.get(co);
+
+        List<Slot> inherited = Collections.emptyList();
+        ClassOutline base = co.getSuperClass();
+        if(base!=null)
+            inherited = process(cm,base,done);
+
+        List<Slot> all = null;
+        if(inherited!=null) {
+            List<Slot> declared = analyze(cm,co,inherited);
+            if(declared!=null) {
+                // a class without properties has nothing to protect
+                if(!inherited.isEmpty() || !declared.isEmpty())
+                    generate(cm,co,inherited,declared);
+                all = new ArrayList<Slot>(inherited);
+                all.addAll(declared);
+            }
+        }
+        done.put(co,all);
+        return all;
+    }
+
+    /**
+     * Collects the fields declared on the class.
+     *
+     * @return
+     *      null if the class can't be made immutable.
+     */
+    private List<Slot> analyze(JCodeModel cm, ClassOutline co, List<Slot> inherited) {
+        if(co.target.getRefBaseClass()!=null || co.implClass.constructors().hasNext())
+            return null;
+        for (JAnnotationUse a : co.implClass.annotations())
+            if(a.getAnnotationClass().fullName().equals(XmlCodec.class.getName()))
+                return null;
+
+        // constructor parameters are named after the fields
+        Set<String> names = new HashSet<String>();
+        for (Slot s : inherited)
+            names.add(s.field.name());
+
+        List<Slot> slots = new ArrayList<Slot>();
+        for( FieldOutline fo : co.getDeclaredFields() ) {
+            CPropertyInfo prop = fo.getPropertyInfo();
+            JFieldVar field = co.implClass.fields().get(prop.getName(false));
+            if(field==null || prop.id()!=ID.NONE || !names.add(field.name()))
+                return null;
+            // a final field can't be both initialized and assigned by the constructors.
+            // lists are initialized when their collection class isn't ArrayList,
+            // which the getters and the builder assume.
+            if(field.init()!=null)
+                return null;
+
+            boolean list = false;
+            if(prop.isCollection()) {
+                list = field.type().erasure()==cm.ref(List.class);
+                if(!list && !field.type().isArray())
+                    return null;
+            }
+            slots.add(new Slot(field,prop.getName(true),list));
+        }
+        return slots;
+    }
+
+    private void generate(JCodeModel cm, ClassOutline co, List<Slot> inherited, List<Slot> declared) {
+        JDefinedClass clazz = co.implClass;
+
+        // drop the mutators
+        Set<String> mutators = new HashSet<String>();
+        for (Slot s : declared) {
+            mutators.add("set"+s.name);
+            mutators.add("unset"+s.name);
+        }
+        for (Iterator<JMethod> itr = clazz.methods().iterator(); itr.hasNext(); )
+            if(mutators.contains(itr.next().name()))
+                itr.remove();
+
+        for (Slot s : declared) {
+            s.field.mods().setFinal(true);
+            if(s.list) {
+                replaceListGetter(cm,clazz,s,"get"+s.name);
+                replaceListGetter(cm,clazz,s,"_get"+s.name);
+            }
+        }
+
+        // [RESULT]
+        // protected Foo() {
+        //     this.a = null;
+        //     ...
+        // }
+        JMethod c = clazz.constructor(JMod.PROTECTED);
+        c.javadoc().append("Creates an empty instance, which the JAXB runtime unmarshals into.");
+        for (Slot s : declared) {
+            JExpression zero;
+            if(!s.field.type().isPrimitive())       zero = JExpr._null();
+            else if(s.field.type()==cm.BOOLEAN)     zero = JExpr.FALSE;
+            else                                    zero = JExpr.lit(0);
+            c.body().assign(JExpr._this().ref(s.field),zero);
+        }
+
+        // [RESULT]
+        // @XmlConstructor({"a",...})
+        // protected Foo(A a, ...) {
+        //     super(...);
+        //     this.a = a;
+        //     ...
+        // }
+        c = clazz.constructor(JMod.PROTECTED);
+        c.javadoc().append("Creates an instance with all its properties, including those of the super classes.\n"+
+            "Lists are wrapped, not copied.");
+        JAnnotationArrayMember names = c.annotate(XmlConstructor.class).paramArray("value");
+        if(!inherited.isEmpty()) {
+            JInvocation sup = c.body().invoke("super");
+            for (Slot s : inherited) {
+                names.param(s.field.name());
+                sup.arg(c.param(s.field.type(),s.field.name()));
+            }
+        }
+        for (Slot s : declared) {
+            names.param(s.field.name());
+            JVar $p = c.param(s.field.type(),s.field.name());
+            JExpression v = $p;
+            if(s.list)
+                v = JOp.cond($p.eq(JExpr._null()),JExpr._null(),
+                        cm.ref(Collections.class).staticInvoke("unmodifiableList").arg($p));
+            c.body().assign(JExpr._this().ref(s.field),v);
+        }
+
+        if(!clazz.isAbstract())
+            generateBuilder(cm,co,inherited,declared);
+    }
+
+    /**
+     * Replaces the getter that creates the list on demand with one that doesn't modify the object.
+     */
+    private void replaceListGetter(JCodeModel cm, JDefinedClass clazz, Slot s, String name) {
+        JMethod old = clazz.getMethod(name,new JType[0]);
+        if(old==null)
+            return;
+        clazz.methods().remove(old);
+
+        // [RESULT]
+        // public List<T> getA() {
+        //     if (a == null) {
+        //         return Collections.emptyList();
+        //     }
+        //     return this.a;
+        // }
+        JMethod m = clazz.method(old.mods().getValue(),old.type(),name);
+        m.javadoc().append("Gets the value of the "+NameConverter.standard.toVariableName(s.name)+" property.\n\n"+
+            "<p>\n"+
+            "The list is unmodifiable, and empty if the property has no value.");
+        m.body()._if(s.field.eq(JExpr._null()))._then()
+            ._return(cm.ref(Collections.class).staticInvoke("emptyList"));
+        m.body()._return(JExpr._this().ref(s.field));
+    }
+
+    /**
+     * Generates a nested class that collects the properties and creates the object.
+     */
+    private void generateBuilder(JCodeModel cm, ClassOutline co, List<Slot> inherited, List<Slot> declared) {
+        JDefinedClass builder = null;
+        for( int i=0; builder==null; i++ ) {
+            try {
+                builder = co.implClass._class(JMod.PUBLIC|JMod.STATIC, i==0 ? "Builder" : "Builder"+i);
+            } catch (JClassAlreadyExistsException e) {
+                // a nested class of that name came from the schema. try another.
+            }
+        }
+        builder.javadoc().append("Creates ").append(co.implClass).append(" objects.");
+
+        List<Slot> all = new ArrayList<Slot>(inherited);
+        all.addAll(declared);
+
+        builder.constructor(JMod.PUBLIC);
+        JMethod from = builder.constructor(JMod.PUBLIC);
+        from.javadoc().append("Starts from the properties of an existing object.");
+        JVar $from = from.param(co.implRef,"from");
+
+        JMethod build = builder.method(JMod.PUBLIC,co.implRef,"build");
+        JInvocation $new = JExpr._new(co.implRef);
+        build.body()._return($new);
+
+        for (Slot s : all) {
+            JType type = s.field.type();
+            JFieldVar f = builder.field(JMod.PRIVATE,type,s.field.name());
+            from.body().assign(JExpr._this().ref(f),$from.ref(s.field));
+
+            // [RESULT]
+            // public Builder withA(A a) {
+            //     this.a = a;
+            //     return this;
+            // }
+            JMethod with = builder.method(JMod.PUBLIC,builder,"with"+s.name);
+            JVar $v = with.param(type,s.field.name());
+            with.body().assign(JExpr._this().ref(f),$v);
+            with.body()._return(JExpr._this());
+
+            // copy collections, so that the builder can be reused
+            JExpression v = f;
+            if(s.list)
+                v = JOp.cond(f.eq(JExpr._null()),JExpr._null(),
+                        JExpr._new(cm.ref(ArrayList.class).narrow(((JClass)type).getTypeParameters())).arg(f));
+            else
+            if(type.isArray())
+                v = JOp.cond(f.eq(JExpr._null()),JExpr._null(),f.invoke("clone"));
+            $new.arg(v);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.primitive_arrays;
+
+import java.io.IOException;
+
+import com.sun.tools.xjc.BadCommandLineException;
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.Plugin;
+import com.sun.tools.xjc.generator.bean.field.FieldRenderer;
+import com.sun.tools.xjc.generator.bean.field.FieldRendererFactory;
+import com.sun.tools.xjc.outline.Outline;
+
+import org.xml.sax.ErrorHandler;
+
+/**
+ * Generates primitive arrays, such as {@code double[]}, instead of
+ * {@code List<Double>} for repeated elements and lists of a primitive type.
+ *
+ * <p>
+ * Properties that have an explicit {@code collectionType} customization
+ * keep it.
+ *
+ * @since 2.4.0
+ */
+public class PluginImpl extends Plugin {
+
+    public String getOptionName() {
+        return "Xprimitive-arrays";
+    }
+
+    public String getUsage() {
+        return "  -Xprimitive-arrays :  generate primitive arrays for collections of primitive types";
+    }
+
+    @Override
+    public int parseArgument(Options opt, String[] args, int i) throws BadCommandLineException, IOException {
+        return 0;   // no option recognized
+    }
+
+    @Override
+    public void onActivated(Options opts) throws BadCommandLineException {
+        opts.setFieldRendererFactory(new FieldRendererFactory() {
+            private final FieldRenderer primitiveArrays = getPrimitiveArray(super.getDefault());
+
+            @Override
+            public FieldRenderer getDefault() {
+                return primitiveArrays;
+            }
+        }, this);
+    }
+
+    public boolean run(Outline model, Options opt, ErrorHandler errorHandler) {
+        // the work is done by the field renderer.
+        return true;
+    }
+}
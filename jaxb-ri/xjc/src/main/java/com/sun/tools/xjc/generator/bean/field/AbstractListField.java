@@ -40,6 +40,8 @@
 
 package com.sun.tools.xjc.generator.bean.field;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.sun.codemodel.JBlock;
@@ -48,6 +50,7 @@ import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JFieldRef;
 import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JOp;
@@ -55,6 +58,8 @@ import com.sun.codemodel.JPrimitiveType;
 import com.sun.codemodel.JType;
 import com.sun.tools.xjc.generator.bean.ClassOutlineImpl;
 import com.sun.tools.xjc.model.CPropertyInfo;
+import com.sun.xml.xsom.XSComponent;
+import com.sun.xml.xsom.XSParticle;
 
 /**
  * Common code for property renderer that generates a List as
@@ -157,8 +162,35 @@ abstract class AbstractListField extends AbstractField {
     }
     
     private JExpression newCoreList() {
-        return JExpr._new(getCoreListType());
+        JClass coreList = getCoreListType();
+        JInvocation r = JExpr._new(coreList);
+        int capacity = getInitialCapacity();
+        if(capacity>0 && coreList.erasure()==codeModel.ref(ArrayList.class))
+            r.arg(JExpr.lit(capacity));
+        return r;
     }
+
+    /**
+     * Computes the initial capacity of the list from a bounded {@code maxOccurs},
+     * so that filling the list up doesn't reallocate it.
+     *
+     * @return
+     *      0 to use the default capacity.
+     */
+    private int getInitialCapacity() {
+        XSComponent sc = prop.getSchemaComponent();
+        if(!(sc instanceof XSParticle))
+            return 0;
+        BigInteger max = ((XSParticle)sc).getMaxOccurs();
+        if(max.signum()<=0 || max.equals(BigInteger.ONE))
+            return 0;   // unbounded, or repeated by an enclosing group
+        return max.min(BigInteger.valueOf(MAX_INITIAL_CAPACITY)).intValue();
+    }
+
+    /**
+     * Lists aren't presized beyond this, as a bound tells little about the typical size.
+     */
+    private static final int MAX_INITIAL_CAPACITY = 64;
     
     /**
      * Concrete class that implements the List interface.
@@ -92,6 +92,15 @@ public class FieldRendererFactory {
     public FieldRenderer getConst(FieldRenderer fallback) {
         return new ConstFieldRenderer(fallback);
     }
+    /**
+     * Gets a {@link FieldRenderer} that generates a primitive array (such as {@code double[]})
+     * for a collection whose items are of a primitive type, and uses {@code fallback} otherwise.
+     *
+     * @since 2.4.0
+     */
+    public FieldRenderer getPrimitiveArray(FieldRenderer fallback) {
+        return new PrimitiveArrayFieldRenderer(this, fallback);
+    }
 
     private final FieldRenderer DEFAULT
         = new DefaultFieldRenderer(this);
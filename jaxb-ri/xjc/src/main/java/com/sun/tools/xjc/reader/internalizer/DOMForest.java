@@ -74,6 +74,17 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static com.sun.xml.bind.v2.util.XmlFactory.allowExternalAccess;
 import static javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI;
@@ -132,6 +143,12 @@ public final class DOMForest {
     private final DocumentBuilder documentBuilder;
     
     private final Options options;
+
+    /** Non-null if parsed documents are cached across runs. */
+    private final DocumentCache cache;
+
+    /** Non-null while {@link #parse(InputSource[], int)} is running. */
+    private volatile ParallelLoad parallelLoad;
             
     public DOMForest(
         SAXParserFactory parserFactory, DocumentBuilder documentBuilder,
@@ -141,6 +158,7 @@ public final class DOMForest {
         this.documentBuilder = documentBuilder;
         this.logic = logic;
         this.options = null;
+        this.cache = null;
     }
 
     public DOMForest( InternalizationLogic logic, Options opt ) {
@@ -157,6 +175,7 @@ public final class DOMForest {
         }
         
         this.logic = logic;
+        this.cache = opt.schemaCacheDir==null ? null : new DocumentCache(opt.schemaCacheDir);
     }
     
     /**
@@ -280,12 +299,21 @@ public final class DOMForest {
      * and XMLs referenced by it) into DOM trees
      * and stores them to this forest.
      * 
-     * @return the parsed DOM document object.
+     * @return the parsed DOM document object,
+     *      or null if it's being parsed in parallel by {@link #parse(InputSource[], int)}.
      */
     public Document parse( String systemId, boolean root ) throws SAXException, IOException {
 
         systemId = Options.normalizeSystemId(systemId);
 
+        ParallelLoad load = parallelLoad;
+        if( load!=null ) {
+            // we are referenced from a document parsed on the pool.
+            // the referenced one is parsed by another task.
+            load.reference(systemId);
+            return null;
+        }
+
         if( core.containsKey(systemId) )
             // this document has already been parsed. Just ignore.
             return core.get(systemId);
@@ -313,6 +341,11 @@ public final class DOMForest {
      * to the map beforehand.
      */
     private ContentHandler getParserHandler( Document dom ) {
+        return getParserHandler(dom,locatorTable,outerMostBindings,errorReceiver,entityResolver);
+    }
+
+    private ContentHandler getParserHandler( Document dom, LocatorTable locatorTable, Set<Element> outerMostBindings,
+                                             ErrorReceiver errorReceiver, EntityResolver entityResolver ) {
         ContentHandler handler = new DOMBuilder(dom,locatorTable,outerMostBindings);
         handler = new WhitespaceStripper(handler,errorReceiver,entityResolver);
         handler = new VersionChecker(handler,errorReceiver,entityResolver);
@@ -387,12 +420,16 @@ public final class DOMForest {
         
         try {
             XMLReader reader = parserFactory.newSAXParser().getXMLReader();
-            reader.setContentHandler(getParserHandler(dom));
             if(errorReceiver!=null)
                 reader.setErrorHandler(errorReceiver);
             if(entityResolver!=null)
                 reader.setEntityResolver(entityResolver);
-            reader.parse(inputSource);
+            if(cache!=null) {
+                cache.parse(reader,getParserHandler(dom),inputSource);
+            } else {
+                reader.setContentHandler(getParserHandler(dom));
+                reader.parse(inputSource);
+            }
         } catch( ParserConfigurationException e ) {
             // in practice, this exception won't happen.
             errorReceiver.error(e.getMessage(),e);
@@ -409,6 +446,333 @@ public final class DOMForest {
         return dom;
     }
 
+    /**
+     * Parses the given root documents, and the documents they reference,
+     * by using up to the given number of threads.
+     *
+     * <p>
+     * Documents are parsed as soon as a reference to them is found,
+     * but they are added to this forest (and their errors are reported)
+     * in the same order as calling {@link #parse(InputSource, boolean)}
+     * on each root in turn would do.
+     *
+     * @since 2.4.0
+     */
+    public void parse( InputSource[] roots, int threads ) throws SAXException {
+        if(threads<=1) {
+            for (InputSource root : roots) {
+                if(errorReceiver!=null)
+                    errorReceiver.pollAbort();
+                parse(root, true);
+            }
+            return;
+        }
+
+        ParallelLoad load = new ParallelLoad(threads);
+        parallelLoad = load;
+        try {
+            // register all the roots before anything runs, so that a root referenced
+            // from another root is still parsed from its own InputSource.
+            List<FutureTask<Parsed>> rootTasks = new ArrayList<>();
+            for (InputSource root : roots) {
+                if( root.getSystemId()==null )
+                    throw new IllegalArgumentException();
+                FutureTask<Parsed> task = load.add(Options.normalizeSystemId(root.getSystemId()), root);
+                if(task!=null)
+                    rootTasks.add(task);
+            }
+            for (FutureTask<Parsed> task : rootTasks)
+                load.execute(task);
+            for (InputSource root : roots) {
+                if(errorReceiver!=null)
+                    errorReceiver.pollAbort();
+                String systemId = Options.normalizeSystemId(root.getSystemId());
+                if(!load.commit(systemId))
+                    load.recommit(systemId);
+                if(core.containsKey(systemId))
+                    rootDocuments.add(systemId);
+            }
+        } finally {
+            load.shutdown();
+            parallelLoad = null;
+        }
+    }
+
+    /**
+     * Documents of one {@link DOMForest#parse(InputSource[], int)} invocation.
+     *
+     * <p>
+     * Each task builds its DOM into its own {@link LocatorTable} and
+     * buffers its errors and the references it finds. {@link #commit(String)}
+     * then walks the references depth-first from the main thread, which
+     * reproduces the order of the sequential parse.
+     */
+    private final class ParallelLoad {
+        private final ExecutorService pool;
+
+        /** Documents that were in the forest before, which references don't parse again. */
+        private final Set<String> existing;
+
+        private final ConcurrentMap<String,Future<Parsed>> tasks = new ConcurrentHashMap<>();
+        private final Set<String> committed = new HashSet<>();
+
+        /** {@link Parsed} of the document being parsed by the current thread. */
+        private final ThreadLocal<Parsed> current = new ThreadLocal<>();
+
+        /** Entity resolvers aren't required to be thread-safe. */
+        private final EntityResolver resolver;
+
+        ParallelLoad(int threads) {
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "xjc-parse");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            existing = new HashSet<>(core.keySet());
+            if(entityResolver==null) {
+                resolver = null;
+            } else {
+                resolver = new EntityResolver() {
+                    public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+                        synchronized(entityResolver) {
+                            return entityResolver.resolveEntity(publicId, systemId);
+                        }
+                    }
+                };
+            }
+        }
+
+        /**
+         * Registers the task that parses the given document.
+         *
+         * @return
+         *      null if the document is already registered.
+         */
+        FutureTask<Parsed> add(final String systemId, final InputSource source) {
+            FutureTask<Parsed> task = new FutureTask<>(new Callable<Parsed>() {
+                public Parsed call() {
+                    return load(systemId, source);
+                }
+            });
+            return tasks.putIfAbsent(systemId, task)==null ? task : null;
+        }
+
+        void execute(FutureTask<Parsed> task) {
+            try {
+                pool.execute(task);
+            } catch (RejectedExecutionException e) {
+                // we are shutting down after an error.
+            }
+        }
+
+        /**
+         * Called on the pool when the document being parsed refers to another one.
+         */
+        void reference(String systemId) throws SAXException, IOException {
+            current.get().events.add(systemId);
+            if(existing.contains(systemId) || tasks.containsKey(systemId))
+                return;
+
+            // resolve here so that a failure is reported from the referencing document,
+            // just like the sequential parse does.
+            InputSource is=null;
+            if( resolver!=null )
+                is = resolver.resolveEntity(null,systemId);
+            if( is==null )
+                is = new InputSource(systemId);
+            FutureTask<Parsed> task = add(systemId, is);
+            if(task!=null)
+                execute(task);
+        }
+
+        private Parsed load(String systemId, InputSource source) {
+            Parsed p = new Parsed();
+            current.set(p);
+            try {
+                synchronized(documentBuilder) {
+                    p.dom = documentBuilder.newDocument();
+                }
+                XMLReader reader;
+                synchronized(parserFactory) {
+                    reader = parserFactory.newSAXParser().getXMLReader();
+                }
+                reader.setErrorHandler(p);
+                if(resolver!=null)
+                    reader.setEntityResolver(resolver);
+                ContentHandler handler = getParserHandler(p.dom,p.locatorTable,p.outerMostBindings,p,resolver);
+                if(cache!=null) {
+                    cache.parse(reader,handler,source);
+                } else {
+                    reader.setContentHandler(handler);
+                    reader.parse(source);
+                }
+            } catch( ParserConfigurationException e ) {
+                p.error(e.getMessage(),e);
+                p.failed = true;
+            } catch( IOException e ) {
+                p.error(Messages.format(Messages.DOMFOREST_INPUTSOURCE_IOEXCEPTION, systemId, e.toString()),e);
+                p.failed = true;
+            } catch( SAXException e ) {
+                p.exception = e;
+            } finally {
+                current.remove();
+            }
+            return p;
+        }
+
+        /**
+         * Adds the document and the ones it references to the forest,
+         * waiting for them to be parsed as needed.
+         *
+         * @return
+         *      false if the document was committed before.
+         */
+        boolean commit(String systemId) throws SAXException {
+            if(!committed.add(systemId))
+                return false;
+            Parsed p = get(systemId);
+            if(p==null)
+                return true;    // already in the forest, or failed to resolve
+
+            core.put(systemId, p.dom);
+            locatorTable.addAll(p.locatorTable);
+            outerMostBindings.addAll(p.outerMostBindings);
+            for (Object e : p.events) {
+                if(e instanceof String)
+                    commit((String)e);
+                else
+                    ((Parsed.Event)e).replay(errorReceiver);
+            }
+            if(p.failed) {
+                core.remove(systemId);
+            }
+            if(p.exception!=null)
+                throw p.exception;
+            return true;
+        }
+
+        /**
+         * Reports again the errors of a root that an earlier root referenced.
+         *
+         * <p>
+         * The sequential parse parses such a root once more. That reports its errors
+         * again, and those of the references that failed to load, since they are retried.
+         */
+        void recommit(String systemId) throws SAXException {
+            Parsed p = get(systemId);
+            if(p==null)
+                return;
+            for (Object e : p.events) {
+                if(e instanceof String) {
+                    Parsed ref = core.containsKey(e) ? null : get((String)e);
+                    if(ref!=null && ref.failed)
+                        ref.replay(errorReceiver);
+                } else
+                    ((Parsed.Event)e).replay(errorReceiver);
+            }
+            if(p.exception!=null)
+                throw p.exception;
+        }
+
+        /**
+         * Waits for the document to be parsed.
+         *
+         * @return
+         *      null if it wasn't to be parsed.
+         */
+        private Parsed get(String systemId) throws SAXException {
+            Future<Parsed> f = tasks.get(systemId);
+            if(f==null)
+                return null;
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAXException(e);
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if(t instanceof RuntimeException)   throw (RuntimeException)t;
+                if(t instanceof Error)              throw (Error)t;
+                throw new SAXException((Exception)t);
+            }
+        }
+
+        void shutdown() {
+            pool.shutdownNow();
+            try {
+                // don't let a task still running touch the forest after we return.
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * One document parsed by {@link ParallelLoad}.
+     * Errors are kept until the document is added to the forest.
+     */
+    private static final class Parsed extends ErrorReceiver {
+        Document dom;
+        final LocatorTable locatorTable = new LocatorTable();
+        final Set<Element> outerMostBindings = new HashSet<Element>();
+
+        /** Either an {@link Event} or the system ID of a referenced document, in the order they were seen. */
+        final List<Object> events = new ArrayList<Object>();
+
+        boolean failed;
+        SAXException exception;
+
+        /**
+         * Reports the errors of a document that {@link #failed}, which has no reference.
+         */
+        void replay(ErrorReceiver receiver) {
+            for (Object e : events)
+                ((Event)e).replay(receiver);
+        }
+
+        public void error(SAXParseException exception) {
+            events.add(new Event(Event.Kind.ERROR, exception));
+        }
+
+        public void fatalError(SAXParseException exception) {
+            events.add(new Event(Event.Kind.FATAL_ERROR, exception));
+        }
+
+        public void warning(SAXParseException exception) {
+            events.add(new Event(Event.Kind.WARNING, exception));
+        }
+
+        public void info(SAXParseException exception) {
+            events.add(new Event(Event.Kind.INFO, exception));
+        }
+
+        private static final class Event {
+            enum Kind { ERROR, FATAL_ERROR, WARNING, INFO }
+
+            private final Kind kind;
+            private final SAXParseException exception;
+
+            Event(Kind kind, SAXParseException exception) {
+                this.kind = kind;
+                this.exception = exception;
+            }
+
+            void replay(ErrorReceiver receiver) {
+                if(receiver==null)
+                    return;
+                switch(kind) {
+                case ERROR:         receiver.error(exception); break;
+                case FATAL_ERROR:   receiver.fatalError(exception); break;
+                case WARNING:       receiver.warning(exception); break;
+                case INFO:          receiver.info(exception); break;
+                }
+            }
+        }
+    }
+
     public Document parse( String systemId, XMLStreamReader parser, boolean root ) throws XMLStreamException {
         Document dom = documentBuilder.newDocument();
 
@@ -0,0 +1,527 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.reader.internalizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * On-disk cache of the SAX event streams of parsed documents.
+ *
+ * <p>
+ * A document is keyed by the SHA-256 digest of its bytes, so the
+ * same schema pulled in by different builds (or from different
+ * locations) is shared. On a hit the recorded events are replayed
+ * into the {@link DOMForest} pipeline instead of running the parser,
+ * so the reference finder, the locators and the binding detection
+ * all behave exactly as they do on a real parse.
+ *
+ * <p>
+ * Documents with a DTD, documents given as a character stream or by a
+ * system ID other than a local file, and documents that produced
+ * parser warnings or errors are never cached.
+ */
+final class DocumentCache {
+
+    private static final int MAGIC = 0x58534158; // "XSAX"
+    private static final int VERSION = 1;
+
+    private static final int START_DOCUMENT = 1;
+    private static final int END_DOCUMENT = 2;
+    private static final int START_PREFIX_MAPPING = 3;
+    private static final int END_PREFIX_MAPPING = 4;
+    private static final int START_ELEMENT = 5;
+    private static final int END_ELEMENT = 6;
+    private static final int CHARACTERS = 7;
+    private static final int IGNORABLE_WHITESPACE = 8;
+    private static final int PROCESSING_INSTRUCTION = 9;
+    private static final int EOF = 0x7F;
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private final File dir;
+
+    DocumentCache(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Feeds the document into {@code handler}, either by replaying
+     * the cached events or by parsing it with {@code reader} (and
+     * recording the events for the next time.)
+     */
+    void parse(XMLReader reader, ContentHandler handler, InputSource source) throws SAXException, IOException {
+        byte[] data = readAll(source);
+        if(data==null) {
+            reader.setContentHandler(handler);
+            reader.parse(source);
+            return;
+        }
+
+        File file = new File(dir, digest(data)+".sax");
+        byte[] cached = load(file);
+        if(cached!=null) {
+            replay(cached, handler, source);
+            return;
+        }
+
+        InputSource is = new InputSource(new ByteArrayInputStream(data));
+        is.setSystemId(source.getSystemId());
+        is.setPublicId(source.getPublicId());
+        is.setEncoding(source.getEncoding());
+
+        Recorder recorder = new Recorder(handler, reader.getErrorHandler());
+        reader.setContentHandler(recorder);
+        reader.setErrorHandler(recorder);
+        try {
+            reader.setProperty(LEXICAL_HANDLER, recorder);
+        } catch (SAXException e) {
+            // can't tell if the document has a DTD.
+            recorder.cacheable = false;
+        }
+        reader.parse(is);
+
+        if(recorder.cacheable)
+            store(file, recorder.finish());
+    }
+
+    /**
+     * Reads the whole document, or returns null if it can't be cached.
+     *
+     * <p>
+     * Only byte streams and local files are read here. Other system IDs
+     * are left to the parser, which fetches them the way it's configured to.
+     */
+    private static byte[] readAll(InputSource source) throws IOException {
+        if(source.getCharacterStream()!=null)
+            return null;
+
+        InputStream in = source.getByteStream();
+        if(in==null) {
+            File file = toFile(source.getSystemId());
+            if(file==null || !file.isFile())
+                return null;    // let the parser fetch it, or report the problem.
+            in = new FileInputStream(file);
+        }
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int len;
+            while((len=in.read(buf))>=0)
+                baos.write(buf,0,len);
+            return baos.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static File toFile(String systemId) {
+        if(systemId==null || !systemId.startsWith("file:"))
+            return null;
+        try {
+            return new File(new URI(systemId));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            // not a hierarchical file URI
+            return null;
+        }
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(data))
+                sb.append(Character.forDigit((b>>4)&0xF,16)).append(Character.forDigit(b&0xF,16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Loads a cache entry, or returns null if it's missing or damaged.
+     */
+    private static byte[] load(File file) {
+        if(!file.isFile())
+            return null;
+        try {
+            byte[] data = new byte[(int)file.length()];
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                in.readFully(data);
+            }
+            // a partially written or foreign file must not produce half a document.
+            if(data.length<9 || data[data.length-1]!=EOF)
+                return null;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if(in.readInt()!=MAGIC || in.readInt()!=VERSION)
+                return null;
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a cache entry. Concurrent builds sharing the directory
+     * only ever see complete files, since the entry is renamed into place.
+     */
+    private void store(File file, byte[] data) {
+        File tmp = null;
+        try {
+            if(!dir.isDirectory() && !dir.mkdirs())
+                return;
+            tmp = File.createTempFile("xjc", ".tmp", dir);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                out.write(data);
+            }
+            if(tmp.renameTo(file))
+                tmp = null;
+        } catch (IOException e) {
+            // the cache is best effort.
+        } finally {
+            if(tmp!=null)
+                tmp.delete();
+        }
+    }
+
+    private static void replay(byte[] data, ContentHandler handler, InputSource source) throws SAXException {
+        LocatorImpl loc = new LocatorImpl();
+        loc.setSystemId(source.getSystemId());
+        loc.setPublicId(source.getPublicId());
+        handler.setDocumentLocator(loc);
+
+        List<String> names = new ArrayList<>();
+        AttributesImpl atts = new AttributesImpl();
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            in.readInt();   // magic
+            in.readInt();   // version
+            while(true) {
+                int op = in.readByte();
+                if(op==EOF)
+                    return;
+                loc.setLineNumber(in.readInt());
+                loc.setColumnNumber(in.readInt());
+                switch(op) {
+                case START_DOCUMENT:
+                    handler.startDocument();
+                    break;
+                case END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                case START_PREFIX_MAPPING: {
+                    String prefix = readName(in,names);
+                    handler.startPrefixMapping(prefix,readName(in,names));
+                    break;
+                }
+                case END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(readName(in,names));
+                    break;
+                case START_ELEMENT: {
+                    String uri = readName(in,names);
+                    String local = readName(in,names);
+                    String qname = readName(in,names);
+                    atts.clear();
+                    for( int i=in.readInt(); i>0; i-- ) {
+                        String auri = readName(in,names);
+                        String alocal = readName(in,names);
+                        String aqname = readName(in,names);
+                        String type = readName(in,names);
+                        atts.addAttribute(auri,alocal,aqname,type,readText(in));
+                    }
+                    handler.startElement(uri,local,qname,atts);
+                    break;
+                }
+                case END_ELEMENT: {
+                    String uri = readName(in,names);
+                    String local = readName(in,names);
+                    handler.endElement(uri,local,readName(in,names));
+                    break;
+                }
+                case CHARACTERS: {
+                    char[] ch = readText(in).toCharArray();
+                    handler.characters(ch,0,ch.length);
+                    break;
+                }
+                case IGNORABLE_WHITESPACE: {
+                    char[] ch = readText(in).toCharArray();
+                    handler.ignorableWhitespace(ch,0,ch.length);
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    String target = readName(in,names);
+                    handler.processingInstruction(target,readText(in));
+                    break;
+                }
+                default:
+                    throw new IOException("unexpected record "+op);
+                }
+            }
+        } catch (IOException e) {
+            // load() verified the trailer, so this is a bug in the format.
+            throw new SAXException(e);
+        }
+    }
+
+    private static String readName(DataInputStream in, List<String> names) throws IOException {
+        int idx = in.readInt();
+        if(idx>=0)
+            return names.get(idx);
+        String s = readText(in);
+        names.add(s);
+        return s;
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] buf = new byte[in.readInt()];
+        in.readFully(buf);
+        return new String(buf,StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Forwards the SAX events to the real handler while writing them down.
+     */
+    private static final class Recorder implements ContentHandler, ErrorHandler, LexicalHandler {
+        private final ContentHandler next;
+        private final ErrorHandler errorHandler;
+
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(buf);
+        private final Map<String,Integer> names = new HashMap<>();
+        private Locator locator;
+
+        /** Set to false once we see something that makes the event stream non-reusable. */
+        boolean cacheable = true;
+
+        Recorder(ContentHandler next, ErrorHandler errorHandler) {
+            this.next = next;
+            this.errorHandler = errorHandler;
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        byte[] finish() {
+            buf.write(EOF);
+            return buf.toByteArray();
+        }
+
+        private void record(int op) {
+            try {
+                out.writeByte(op);
+                out.writeInt(locator==null ? -1 : locator.getLineNumber());
+                out.writeInt(locator==null ? -1 : locator.getColumnNumber());
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private void name(String s) {
+            try {
+                Integer idx = names.get(s);
+                if(idx!=null) {
+                    out.writeInt(idx);
+                } else {
+                    names.put(s,names.size());
+                    out.writeInt(-1);
+                    text(s);
+                }
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private void text(String s) {
+            try {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(b.length);
+                out.write(b);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+            next.setDocumentLocator(locator);
+        }
+
+        public void startDocument() throws SAXException {
+            record(START_DOCUMENT);
+            next.startDocument();
+        }
+
+        public void endDocument() throws SAXException {
+            record(END_DOCUMENT);
+            next.endDocument();
+        }
+
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            record(START_PREFIX_MAPPING);
+            name(prefix);
+            name(uri);
+            next.startPrefixMapping(prefix, uri);
+        }
+
+        public void endPrefixMapping(String prefix) throws SAXException {
+            record(END_PREFIX_MAPPING);
+            name(prefix);
+            next.endPrefixMapping(prefix);
+        }
+
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            record(START_ELEMENT);
+            name(uri);
+            name(localName);
+            name(qName);
+            try {
+                out.writeInt(atts.getLength());
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            for( int i=0; i<atts.getLength(); i++ ) {
+                name(atts.getURI(i));
+                name(atts.getLocalName(i));
+                name(atts.getQName(i));
+                name(atts.getType(i));
+                text(atts.getValue(i));
+            }
+            next.startElement(uri, localName, qName, atts);
+        }
+
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            record(END_ELEMENT);
+            name(uri);
+            name(localName);
+            name(qName);
+            next.endElement(uri, localName, qName);
+        }
+
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            record(CHARACTERS);
+            text(new String(ch,start,length));
+            next.characters(ch, start, length);
+        }
+
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            record(IGNORABLE_WHITESPACE);
+            text(new String(ch,start,length));
+            next.ignorableWhitespace(ch, start, length);
+        }
+
+        public void processingInstruction(String target, String data) throws SAXException {
+            record(PROCESSING_INSTRUCTION);
+            name(target);
+            text(data);
+            next.processingInstruction(target, data);
+        }
+
+        public void skippedEntity(String name) throws SAXException {
+            cacheable = false;
+            next.skippedEntity(name);
+        }
+
+        public void warning(SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if(errorHandler!=null)
+                errorHandler.warning(exception);
+        }
+
+        public void error(SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if(errorHandler!=null)
+                errorHandler.error(exception);
+        }
+
+        public void fatalError(SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if(errorHandler!=null)
+                errorHandler.fatalError(exception);
+            else
+                throw exception;
+        }
+
+        public void startDTD(String name, String publicId, String systemId) {
+            cacheable = false;
+        }
+
+        public void endDTD() {}
+        public void startEntity(String name) {}
+        public void endEntity(String name) {}
+        public void startCDATA() {}
+        public void endCDATA() {}
+        public void comment(char[] ch, int start, int length) {}
+    }
+}
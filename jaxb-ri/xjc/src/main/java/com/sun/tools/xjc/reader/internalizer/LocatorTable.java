@@ -40,7 +40,9 @@
 
 package com.sun.tools.xjc.reader.internalizer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.w3c.dom.Element;
@@ -49,30 +51,179 @@ import org.xml.sax.helpers.LocatorImpl;
 
 /**
  * Stores {@link Locator} objects for every {@link Element}.
+ *
+ * <p>
+ * Large schema sets have millions of elements, so rather than keeping
+ * two {@link LocatorImpl}s per element, each element gets an ordinal
+ * from an identity hash table, and its locations are stored as ints
+ * in one array indexed by that ordinal. System IDs and public IDs are
+ * kept once per document. {@link Locator}s are created on demand.
  * 
  * @author
  *     Kohsuke Kawaguchi (kohsuke.kawaguchi@sun.com)
  */
 public final class LocatorTable {
-    /** Locations of the start element. */
-    private final Map startLocations = new HashMap();
-    
-    /** Locations of the end element. */
-    private final Map endLocations = new HashMap();
-    
+    /** Offsets of the start and the end location within a record. */
+    private static final int START = 0;
+    private static final int END = 3;
+    /** Each record is (source,line,column) for the start and the end element. */
+    private static final int STRIDE = 6;
+
+    /** Open addressing hash table from elements to their ordinals. */
+    private Element[] keys = new Element[64];
+    private int[] ordinals = new int[64];
+    private int size;
+
+    /**
+     * Records of all the elements, by ordinal.
+     * A negative source means the location isn't stored.
+     */
+    private int[] records = new int[32*STRIDE];
+
+    /** Distinct (publicId,systemId) pairs. */
+    private final List<String> systemIds = new ArrayList<String>();
+    private final List<String> publicIds = new ArrayList<String>();
+    private final Map<String,Integer> sources = new HashMap<String,Integer>();
+
+    /** Consecutive locations almost always come from the same document. */
+    private String lastSystemId, lastPublicId;
+    private int lastSource = -1;
+
     public void storeStartLocation( Element e, Locator loc ) {
-        startLocations.put(e,new LocatorImpl(loc));
+        store(e,loc,START);
     }
     
     public void storeEndLocation( Element e, Locator loc ) {
-        endLocations.put(e,new LocatorImpl(loc));
+        store(e,loc,END);
     }
     
     public Locator getStartLocation( Element e ) {
-        return (Locator)startLocations.get(e);
+        return get(e,START);
     }
     
     public Locator getEndLocation( Element e ) {
-        return (Locator)endLocations.get(e);
+        return get(e,END);
+    }
+
+    /**
+     * Copies all the locations stored in the given table to this table.
+     */
+    void addAll( LocatorTable that ) {
+        for( int i=0; i<that.keys.length; i++ ) {
+            Element e = that.keys[i];
+            if(e==null)     continue;
+            int src = that.ordinals[i]*STRIDE;
+            int dst = ordinal(e,true)*STRIDE;
+            copy(that,src+START,dst+START);
+            copy(that,src+END,dst+END);
+        }
+    }
+
+    private void copy( LocatorTable that, int src, int dst ) {
+        int s = that.records[src];
+        if(s<0)     return;
+        records[dst] = source(that.systemIds.get(s),that.publicIds.get(s));
+        records[dst+1] = that.records[src+1];
+        records[dst+2] = that.records[src+2];
+    }
+
+    private void store( Element e, Locator loc, int offset ) {
+        if(loc==null)   return;
+        int r = ordinal(e,true)*STRIDE+offset;
+        records[r] = source(loc.getSystemId(),loc.getPublicId());
+        records[r+1] = loc.getLineNumber();
+        records[r+2] = loc.getColumnNumber();
+    }
+
+    private Locator get( Element e, int offset ) {
+        int ordinal = ordinal(e,false);
+        if(ordinal<0)   return null;
+        int r = ordinal*STRIDE+offset;
+        int s = records[r];
+        if(s<0)         return null;
+
+        LocatorImpl loc = new LocatorImpl();
+        loc.setSystemId(systemIds.get(s));
+        loc.setPublicId(publicIds.get(s));
+        loc.setLineNumber(records[r+1]);
+        loc.setColumnNumber(records[r+2]);
+        return loc;
+    }
+
+    /**
+     * Gets the index of the given document in {@link #systemIds}, adding it as necessary.
+     */
+    private int source( String systemId, String publicId ) {
+        if(lastSource>=0 && eq(systemId,lastSystemId) && eq(publicId,lastPublicId))
+            return lastSource;
+
+        String key = publicId+'\n'+systemId;
+        Integer s = sources.get(key);
+        if(s==null) {
+            s = systemIds.size();
+            systemIds.add(systemId);
+            publicIds.add(publicId);
+            sources.put(key,s);
+        }
+        lastSystemId = systemId;
+        lastPublicId = publicId;
+        lastSource = s;
+        return s;
+    }
+
+    private static boolean eq( String a, String b ) {
+        return a==null ? b==null : a.equals(b);
+    }
+
+    /**
+     * Gets the ordinal of the given element.
+     *
+     * @return
+     *      -1 if the element isn't in this table and {@code create} is false.
+     */
+    private int ordinal( Element e, boolean create ) {
+        int i = slot(keys,e);
+        if(keys[i]!=null)
+            return ordinals[i];
+        if(!create)
+            return -1;
+
+        int ordinal = size++;
+        keys[i] = e;
+        ordinals[i] = ordinal;
+
+        if((ordinal+1)*STRIDE>records.length) {
+            int[] r = new int[records.length*2];
+            System.arraycopy(records,0,r,0,records.length);
+            records = r;
+        }
+        records[ordinal*STRIDE+START] = -1;
+        records[ordinal*STRIDE+END] = -1;
+
+        if(size*2>keys.length)
+            rehash();
+        return ordinal;
+    }
+
+    private static int slot( Element[] keys, Element e ) {
+        int mask = keys.length-1;
+        int h = System.identityHashCode(e);
+        int i = (h ^ (h>>>16)) & mask;
+        while(keys[i]!=null && keys[i]!=e)
+            i = (i+1) & mask;
+        return i;
+    }
+
+    private void rehash() {
+        Element[] oldKeys = keys;
+        int[] oldOrdinals = ordinals;
+        keys = new Element[oldKeys.length*2];
+        ordinals = new int[oldKeys.length*2];
+        for( int i=0; i<oldKeys.length; i++ ) {
+            if(oldKeys[i]==null)    continue;
+            int j = slot(keys,oldKeys[i]);
+            keys[j] = oldKeys[i];
+            ordinals[j] = oldOrdinals[i];
+        }
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.sun.tools.xjc.Driver;
+
+import junit.framework.Assert;
+
+/**
+ * Runs XJC on a schema and compiles what it generates, for the tests of the plugins.
+ */
+public final class GeneratedCode {
+
+    /**
+     * Where the sources and the classes are.
+     */
+    public final File dir;
+
+    private final ClassLoader loader;
+
+    private GeneratedCode(File dir, ClassLoader loader) {
+        this.dir = dir;
+        this.loader = loader;
+    }
+
+    /**
+     * Generates the classes of the schema with the given XJC options, and compiles them.
+     */
+    public static GeneratedCode compile(String schema, String... options) throws Exception {
+        File dir = createTempDir();
+        File xsd = new File(dir, "schema.xsd");
+        OutputStream out = new FileOutputStream(xsd);
+        try {
+            out.write(schema.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        File src = new File(dir, "src");
+        src.mkdirs();
+
+        List<String> args = new ArrayList<String>(Arrays.asList(options));
+        args.addAll(Arrays.asList("-quiet", "-d", src.getPath(), xsd.getPath()));
+        Assert.assertEquals("xjc failed", 0, Driver.run(args.toArray(new String[args.size()]), System.out, System.out));
+
+        List<String> javac = new ArrayList<String>(Arrays.asList(
+            "-classpath", System.getProperty("java.class.path"), "-d", src.getPath(), "-nowarn"));
+        collect(src, javac);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals("the generated code doesn't compile", 0,
+            compiler.run(null, System.out, System.err, javac.toArray(new String[javac.size()])));
+
+        return new GeneratedCode(src,
+            new URLClassLoader(new URL[]{src.toURI().toURL()}, GeneratedCode.class.getClassLoader()));
+    }
+
+    public Class<?> load(String className) throws ClassNotFoundException {
+        return loader.loadClass(className);
+    }
+
+    /**
+     * Gets the generated source file of the class.
+     */
+    public File getSource(String className) {
+        return new File(dir, className.replace('.', File.separatorChar) + ".java");
+    }
+
+    private static void collect(File dir, List<String> files) {
+        for (File f : dir.listFiles()) {
+            if (f.isDirectory())
+                collect(f, files);
+            else if (f.getName().endsWith(".java"))
+                files.add(f.getPath());
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        new File(System.getProperty("java.io.tmpdir")).mkdirs();
+        File dir = File.createTempFile("xjc", "");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.codecs;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import com.sun.tools.xjc.addon.GeneratedCode;
+import com.sun.xml.bind.annotation.XmlCodec;
+import com.sun.xml.bind.v2.runtime.BeanCodec;
+import com.sun.xml.bind.v2.runtime.ClassBeanInfoImpl;
+import com.sun.xml.bind.v2.runtime.JAXBContextImpl;
+
+import junit.framework.TestCase;
+
+public class PluginImplTest extends TestCase {
+
+    private static final String XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'"
+        + " xmlns:t='urn:t' targetNamespace='urn:t' elementFormDefault='qualified'>"
+        + "<xs:element name='order'><xs:complexType><xs:sequence>"
+        + "<xs:element name='qty' type='xs:int'/>"
+        + "<xs:element name='price' type='xs:decimal'/>"
+        + "<xs:element name='tag' type='xs:string' maxOccurs='unbounded'/>"
+        + "<xs:element name='line' type='t:line' minOccurs='0' maxOccurs='unbounded'/>"
+        + "</xs:sequence>"
+        + "<xs:attribute name='id' type='xs:string'/>"
+        + "<xs:attribute name='urgent' type='xs:boolean'/>"
+        + "</xs:complexType></xs:element>"
+        + "<xs:complexType name='line'><xs:sequence>"
+        + "<xs:element name='sku' type='xs:string'/>"
+        + "<xs:element name='n' type='xs:long'/>"
+        + "<xs:element name='note' type='xs:date' minOccurs='0'/>"
+        + "</xs:sequence></xs:complexType>"
+        + "</xs:schema>";
+
+    private static final String XML = "<order id=\"o1\" urgent=\"true\" xmlns=\"urn:t\">"
+        + "<qty>3</qty><price>1.50</price><tag>a</tag><tag>b</tag>"
+        + "<line><sku>x</sku><n>12345678901</n></line><line><sku>y</sku><n>-1</n><note>2020-01-02</note></line>"
+        + "</order>";
+
+    /**
+     * The generated codecs compile, and the classes round-trip through them.
+     */
+    public void testGeneratedCodecs() throws Exception {
+        GeneratedCode code = GeneratedCode.compile(XSD, "-Xcodecs", "-npa");
+        Class<?> order = code.load("t.Order");
+
+        XmlCodec codec = order.getAnnotation(XmlCodec.class);
+        assertNotNull(codec);
+        assertEquals(order, codec.value().getDeclaringClass());
+        assertTrue(BeanCodec.class.isAssignableFrom(codec.value()));
+        // xs:date isn't one of the types the codecs handle
+        assertNull(code.load("t.Line").getAnnotation(XmlCodec.class));
+
+        JAXBContext context = JAXBContext.newInstance(order);
+        JAXBContextImpl impl = (JAXBContextImpl) context;
+        assertTrue(((ClassBeanInfoImpl) impl.getBeanInfo(order)).useCodec(impl));
+        Object o = context.createUnmarshaller().unmarshal(new StringReader(XML));
+        assertEquals(3, order.getMethod("getQty").invoke(o));
+        assertEquals(Boolean.TRUE, order.getMethod("isUrgent").invoke(o));
+
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(o, w);
+        assertEquals(XML, w.toString());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.immutable;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+
+import com.sun.tools.xjc.addon.GeneratedCode;
+import com.sun.xml.bind.annotation.XmlConstructor;
+
+import junit.framework.TestCase;
+
+public class PluginImplTest extends TestCase {
+
+    private static final String XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'"
+        + " xmlns:jaxb='http://java.sun.com/xml/ns/jaxb' jaxb:version='2.0'>"
+        + "<xs:complexType name='shape'><xs:attribute name='name' type='xs:string'/></xs:complexType>"
+        + "<xs:complexType name='point'>"
+        + "<xs:attribute name='x' type='xs:int' use='required'/><xs:attribute name='y' type='xs:int' use='required'/>"
+        + "</xs:complexType>"
+        + "<xs:complexType name='polygon'><xs:complexContent><xs:extension base='shape'><xs:sequence>"
+        + "<xs:element name='point' type='point' maxOccurs='unbounded'/>"
+        + "</xs:sequence></xs:extension></xs:complexContent></xs:complexType>"
+        + "<xs:complexType name='path'><xs:sequence>"
+        + "<xs:element name='point' type='point' maxOccurs='unbounded'>"
+        + "<xs:annotation><xs:appinfo><jaxb:property collectionType='java.util.LinkedList'/></xs:appinfo></xs:annotation>"
+        + "</xs:element>"
+        + "</xs:sequence></xs:complexType>"
+        + "<xs:element name='polygon' type='polygon'/>"
+        + "<xs:element name='path' type='path'/>"
+        + "</xs:schema>";
+
+    private static final String XML = "<polygon name=\"tri\"><point x=\"0\" y=\"0\"/><point x=\"4\" y=\"0\"/>"
+        + "<point x=\"0\" y=\"3\"/></polygon>";
+
+    private GeneratedCode code;
+
+    @Override
+    protected void setUp() throws Exception {
+        code = GeneratedCode.compile(XSD, "-Ximmutable", "-npa", "-p", "t");
+    }
+
+    /**
+     * Fields become final, setters go away, and the constructor takes the inherited fields too.
+     */
+    public void testGeneratedClasses() throws Exception {
+        Class<?> point = code.load("t.Point");
+        assertTrue(Modifier.isFinal(point.getDeclaredField("x").getModifiers()));
+        assertNoMethod(point, "setX");
+
+        Class<?> polygon = code.load("t.Polygon");
+        assertTrue(Modifier.isFinal(polygon.getDeclaredField("point").getModifiers()));
+        assertTrue(Modifier.isFinal(code.load("t.Shape").getDeclaredField("name").getModifiers()));
+        assertNoMethod(code.load("t.Shape"), "setName");
+        Constructor<?> c = polygon.getDeclaredConstructor(String.class, List.class);
+        assertEquals(2, c.getAnnotation(XmlConstructor.class).value().length);
+        assertEquals("name", c.getAnnotation(XmlConstructor.class).value()[0]);
+    }
+
+    /**
+     * A list of another class than ArrayList is initialized by its field, so the class stays mutable.
+     */
+    public void testCustomCollectionStaysMutable() throws Exception {
+        Class<?> path = code.load("t.Path");
+        assertFalse(Modifier.isFinal(path.getDeclaredField("point").getModifiers()));
+        for (Constructor<?> c : path.getDeclaredConstructors())
+            assertNull(c.getAnnotation(XmlConstructor.class));
+        Object p = path.newInstance();
+        List<Object> points = (List<Object>) path.getMethod("getPoint").invoke(p);
+        assertTrue(points instanceof LinkedList);
+        points.add(code.load("t.Point$Builder").getMethod("build").invoke(code.load("t.Point$Builder").newInstance()));
+    }
+
+    /**
+     * The unmarshalled objects are created by their constructors, and their lists can't be modified.
+     */
+    public void testRoundTrip() throws Exception {
+        JAXBContext context = JAXBContext.newInstance("t", code.load("t.ObjectFactory").getClassLoader());
+        Object o = ((JAXBElement<?>) context.createUnmarshaller().unmarshal(new StringReader(XML))).getValue();
+        Class<?> polygon = code.load("t.Polygon");
+        assertEquals("tri", polygon.getMethod("getName").invoke(o));
+        List<?> points = (List<?>) polygon.getMethod("getPoint").invoke(o);
+        assertEquals(3, points.size());
+        assertEquals(4, code.load("t.Point").getMethod("getX").invoke(points.get(1)));
+        try {
+            points.remove(0);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(code.load("t.ObjectFactory").getMethod("createPolygon", polygon)
+            .invoke(code.load("t.ObjectFactory").newInstance(), o), w);
+        assertEquals(XML, w.toString());
+    }
+
+    /**
+     * The builder copies its lists, so it can be reused.
+     */
+    public void testBuilder() throws Exception {
+        Class<?> builderClass = code.load("t.Polygon$Builder");
+        Object builder = builderClass.newInstance();
+        List<Object> points = new ArrayList<Object>();
+        points.add(code.load("t.Point$Builder").getMethod("withX", int.class)
+            .invoke(code.load("t.Point$Builder").newInstance(), 7));
+        points.set(0, points.get(0).getClass().getMethod("build").invoke(points.get(0)));
+        builderClass.getMethod("withName", String.class).invoke(builder, "dot");
+        builderClass.getMethod("withPoint", List.class).invoke(builder, points);
+        Object first = builderClass.getMethod("build").invoke(builder);
+        points.clear();
+        Object second = builderClass.getMethod("build").invoke(builder);
+
+        Class<?> polygon = code.load("t.Polygon");
+        assertEquals("dot", polygon.getMethod("getName").invoke(first));
+        assertEquals(1, ((List<?>) polygon.getMethod("getPoint").invoke(first)).size());
+        assertEquals(7, code.load("t.Point").getMethod("getX")
+            .invoke(((List<?>) polygon.getMethod("getPoint").invoke(first)).get(0)));
+        assertNotSame(first, second);
+        assertEquals(0, ((List<?>) polygon.getMethod("getPoint").invoke(second)).size());
+    }
+
+    private static void assertNoMethod(Class<?> c, String name) {
+        for (Method m : c.getMethods())
+            assertFalse(name, m.getName().equals(name));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.addon.primitive_arrays;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import com.sun.tools.xjc.addon.GeneratedCode;
+
+import junit.framework.TestCase;
+
+public class PluginImplTest extends TestCase {
+
+    private static final String XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'"
+        + " xmlns:jaxb='http://java.sun.com/xml/ns/jaxb' jaxb:version='2.0'>"
+        + "<xs:element name='v'><xs:complexType><xs:sequence>"
+        + "<xs:element name='d' type='xs:double' maxOccurs='unbounded'/>"
+        + "<xs:element name='ints'><xs:simpleType><xs:list itemType='xs:int'/></xs:simpleType></xs:element>"
+        + "<xs:element name='s' type='xs:string' minOccurs='0' maxOccurs='unbounded'/>"
+        + "<xs:element name='l' type='xs:long' minOccurs='0' maxOccurs='unbounded'>"
+        + "<xs:annotation><xs:appinfo><jaxb:property collectionType='java.util.LinkedList'/></xs:appinfo></xs:annotation>"
+        + "</xs:element>"
+        + "</xs:sequence></xs:complexType></xs:element>"
+        + "</xs:schema>";
+
+    private static final String XML = "<v><d>1.5</d><d>2.0</d><d>-3.25</d><ints>1 2 3</ints>"
+        + "<s>a</s><l>1</l><l>2</l></v>";
+
+    /**
+     * Collections of primitive types become arrays, other ones stay lists,
+     * and the arrays are unmarshalled and marshalled.
+     */
+    public void testGeneratedArrays() throws Exception {
+        GeneratedCode code = GeneratedCode.compile(XSD, "-Xprimitive-arrays", "-npa", "-p", "t");
+        Class<?> v = code.load("t.V");
+        assertEquals(double[].class, v.getDeclaredField("d").getType());
+        assertEquals(int[].class, v.getDeclaredField("ints").getType());
+        assertEquals(List.class, v.getDeclaredField("s").getType());
+        // an explicit collectionType customization wins
+        assertEquals(List.class, v.getDeclaredField("l").getType());
+
+        JAXBContext context = JAXBContext.newInstance(v);
+        Object o = context.createUnmarshaller().unmarshal(new StringReader(XML));
+        double[] d = (double[]) v.getMethod("getD").invoke(o);
+        assertEquals(3, d.length);
+        assertEquals(-3.25, d[2]);
+        assertEquals(3, ((int[]) v.getMethod("getInts").invoke(o)).length);
+        assertTrue(v.getMethod("getL").invoke(o) instanceof LinkedList);
+
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(o, w);
+        assertEquals(XML, w.toString());
+    }
+}
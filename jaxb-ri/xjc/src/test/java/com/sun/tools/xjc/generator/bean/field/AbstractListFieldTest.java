@@ -0,0 +1,85 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.generator.bean.field;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sun.tools.xjc.addon.GeneratedCode;
+
+import junit.framework.TestCase;
+
+public class AbstractListFieldTest extends TestCase {
+
+    private static final String XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'"
+        + " xmlns:jaxb='http://java.sun.com/xml/ns/jaxb' jaxb:version='2.0'>"
+        + "<xs:element name='v'><xs:complexType><xs:sequence>"
+        + "<xs:element name='ten' type='xs:string' maxOccurs='10'/>"
+        + "<xs:element name='many' type='xs:string' maxOccurs='1000'/>"
+        + "<xs:element name='any' type='xs:string' maxOccurs='unbounded'/>"
+        + "<xs:element name='linked' type='xs:string' maxOccurs='10'>"
+        + "<xs:annotation><xs:appinfo><jaxb:property collectionType='java.util.LinkedList'/></xs:appinfo></xs:annotation>"
+        + "</xs:element>"
+        + "<xs:sequence maxOccurs='5'><xs:element name='grouped' type='xs:string'/></xs:sequence>"
+        + "</xs:sequence></xs:complexType></xs:element>"
+        + "</xs:schema>";
+
+    /**
+     * Lists are presized from a bounded maxOccurs, up to a cap,
+     * and only when they are {@link java.util.ArrayList}s.
+     */
+    public void testInitialCapacity() throws Exception {
+        GeneratedCode code = GeneratedCode.compile(XSD, "-npa", "-p", "t");
+        File src = code.getSource("t.V");
+        String java = new String(Files.readAllBytes(src.toPath()), StandardCharsets.UTF_8);
+        assertTrue(java, java.contains("ten = new ArrayList<String>(10);"));
+        assertTrue(java, java.contains("many = new ArrayList<String>(64);"));
+        assertTrue(java, java.contains("any = new ArrayList<String>();"));
+        assertTrue(java, java.contains("linked = new LinkedList<String>();"));
+        // a bounded group around a single element bounds the property too
+        assertTrue(java, java.contains("grouped = new ArrayList<String>(5);"));
+
+        Object v = code.load("t.V").newInstance();
+        for (String p : new String[]{"Ten", "Many", "Any", "Linked", "Grouped"})
+            assertNotNull(v.getClass().getMethod("get" + p).invoke(v));
+    }
+}
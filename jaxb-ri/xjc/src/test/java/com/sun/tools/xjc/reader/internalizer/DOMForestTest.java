@@ -0,0 +1,184 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.reader.internalizer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.api.ErrorListener;
+import com.sun.tools.xjc.reader.xmlschema.parser.XMLSchemaInternalizationLogic;
+import com.sun.tools.xjc.util.ErrorReceiverFilter;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXParseException;
+
+import junit.framework.TestCase;
+
+public class DOMForestTest extends TestCase {
+
+    private static final String XS = "xmlns:xs='http://www.w3.org/2001/XMLSchema'";
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("xjc-forest").toFile();
+        // r1 is a root that r2, another root, includes, and that x imports back
+        write("r1.xsd", "<xs:schema " + XS + " xmlns:x='urn:x'>\n"
+            + "  <xs:import namespace='urn:x' schemaLocation='x.xsd'/>\n"
+            + "  <xs:include schemaLocation='a.xsd'/>\n"
+            + "  <xs:include schemaLocation='missing.xsd'/>\n"
+            + "  <xs:element name='r1' type='x:t'/>\n"
+            + "</xs:schema>");
+        write("r2.xsd", "<xs:schema " + XS + ">\n"
+            + "  <xs:include schemaLocation='r1.xsd'/>\n"
+            + "  <xs:include schemaLocation='b.xsd'/>\n"
+            + "  <xs:element name='r2' type='xs:int'/>\n"
+            + "</xs:schema>");
+        // a and b include each other
+        write("a.xsd", "<xs:schema " + XS + ">\n"
+            + "  <xs:include schemaLocation='b.xsd'/>\n"
+            + "  <xs:element name='a' type='xs:int'/>\n"
+            + "</xs:schema>");
+        write("b.xsd", "<xs:schema " + XS + ">\n\n"
+            + "  <xs:include schemaLocation='a.xsd'/>\n"
+            + "  <xs:element name='b' type='xs:int'/>\n"
+            + "</xs:schema>");
+        write("x.xsd", "<xs:schema " + XS + " targetNamespace='urn:x'>\n"
+            + "  <xs:import schemaLocation='r1.xsd'/>\n"
+            + "  <xs:simpleType name='t'><xs:restriction base='xs:int'/></xs:simpleType>\n"
+            + "</xs:schema>");
+    }
+
+    /**
+     * Parsing with threads gives the same forest and the same errors, in the same order,
+     * as parsing one document after another.
+     */
+    public void testParallelParse() throws Exception {
+        List<String> sequential = load(1, "r1.xsd", "r2.xsd");
+        assertTrue(sequential.toString(), sequential.get(0).startsWith("documents [" + uri("r1.xsd") + ", " + uri("x.xsd")));
+        assertTrue(sequential.toString(), sequential.contains("roots [" + uri("r1.xsd") + ", " + uri("r2.xsd") + "]"));
+        assertTrue(sequential.toString(), sequential.toString().contains("missing.xsd"));
+        for (int i = 0; i < 10; i++)
+            assertEquals(sequential, load(4, "r1.xsd", "r2.xsd"));
+
+        // and when the root that's referenced comes second. It is parsed again,
+        // so the reference that can't be loaded is reported again.
+        sequential = load(1, "r2.xsd", "r1.xsd");
+        int missing = 0;
+        for (String line : sequential)
+            if (line.startsWith("error") && line.contains("missing.xsd"))
+                missing++;
+        assertEquals(2, missing);
+        for (int i = 0; i < 10; i++)
+            assertEquals(sequential, load(4, "r2.xsd", "r1.xsd"));
+    }
+
+    /**
+     * Builds a forest and describes its documents, roots, errors and element locations.
+     */
+    private List<String> load(int threads, String... roots) throws Exception {
+        final List<String> result = new ArrayList<String>();
+        DOMForest forest = new DOMForest(new XMLSchemaInternalizationLogic(), new Options());
+        forest.setErrorHandler(new ErrorReceiverFilter(new ErrorListener() {
+            public void error(SAXParseException e) {
+                add("error", e);
+            }
+
+            public void fatalError(SAXParseException e) {
+                add("fatalError", e);
+            }
+
+            public void warning(SAXParseException e) {
+                add("warning", e);
+            }
+
+            public void info(SAXParseException e) {
+                add("info", e);
+            }
+
+            private void add(String kind, SAXParseException e) {
+                result.add(kind + " " + e.getSystemId() + ":" + e.getLineNumber() + " " + e.getMessage());
+            }
+        }));
+
+        InputSource[] sources = new InputSource[roots.length];
+        for (int i = 0; i < roots.length; i++)
+            sources[i] = new InputSource(uri(roots[i]));
+        forest.parse(sources, threads);
+
+        String[] ids = forest.listSystemIDs();
+        result.add(0, "documents " + Arrays.asList(ids));
+        result.add("roots " + forest.getRootDocuments());
+        for (String id : ids) {
+            NodeList elements = forest.get(id).getElementsByTagNameNS("*", "*");
+            for (int i = 0; i < elements.getLength(); i++) {
+                Element e = (Element) elements.item(i);
+                Locator loc = forest.locatorTable.getStartLocation(e);
+                result.add(e.getLocalName() + " " + loc.getSystemId() + ":" + loc.getLineNumber() + ":" + loc.getColumnNumber());
+            }
+        }
+        return result;
+    }
+
+    private String uri(String name) {
+        return new File(dir, name).toURI().toString();
+    }
+
+    private void write(String name, String content) throws IOException {
+        OutputStream out = new FileOutputStream(new File(dir, name));
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
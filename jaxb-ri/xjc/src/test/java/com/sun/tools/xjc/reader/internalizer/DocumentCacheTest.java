@@ -0,0 +1,376 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.reader.internalizer;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import com.sun.tools.xjc.Options;
+import com.sun.tools.xjc.reader.xmlschema.parser.XMLSchemaInternalizationLogic;
+import com.sun.tools.xjc.util.ErrorReceiverFilter;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import junit.framework.TestCase;
+
+public class DocumentCacheTest extends TestCase {
+
+    private static final String XS = "xmlns:xs='http://www.w3.org/2001/XMLSchema'";
+
+    private static final String DOC = "<?xml version='1.0'?>\n"
+        + "<r xmlns='urn:r' xmlns:p='urn:p' a='1' p:b='2'>\n"
+        + "  <p:c>text &amp; more</p:c>\n"
+        + "  <?pi data?>\n"
+        + "  <d><![CDATA[<cdata>]]></d>\n"
+        + "</r>\n";
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("xjc-cache").toFile();
+    }
+
+    /**
+     * The events replayed from the cache are those of the real parse, with the same locations.
+     */
+    public void testReplay() throws Exception {
+        File doc = write("doc.xml", DOC);
+        List<String> parsed = parse(new DocumentCache(dir), doc);
+        assertEquals(1, entries().length);
+
+        CountingReader reader = new CountingReader();
+        List<String> replayed = parse(new DocumentCache(dir), doc, reader);
+        assertEquals(0, reader.parsed);
+        assertEquals(parsed, replayed);
+        assertEquals(parse(null, doc), replayed);
+    }
+
+    /**
+     * An entry that is cut short or isn't an entry at all is ignored and replaced.
+     */
+    public void testDamagedEntry() throws Exception {
+        File doc = write("doc.xml", DOC);
+        List<String> parsed = parse(new DocumentCache(dir), doc);
+        File entry = entries()[0];
+        byte[] data = Files.readAllBytes(entry.toPath());
+
+        Files.write(entry.toPath(), Arrays.copyOf(data, data.length - 1));
+        CountingReader reader = new CountingReader();
+        assertEquals(parsed, parse(new DocumentCache(dir), doc, reader));
+        assertEquals(1, reader.parsed);
+        assertTrue(Arrays.equals(data, Files.readAllBytes(entry.toPath())));
+
+        Files.write(entry.toPath(), "<not-an-entry/>".getBytes("UTF-8"));
+        reader = new CountingReader();
+        assertEquals(parsed, parse(new DocumentCache(dir), doc, reader));
+        assertEquals(1, reader.parsed);
+    }
+
+    /**
+     * Documents with a DTD or given as characters are parsed every time.
+     */
+    public void testNotCached() throws Exception {
+        File doc = write("dtd.xml", "<!DOCTYPE r [<!ENTITY e 'x'>]><r>&e;</r>");
+        List<String> parsed = parse(new DocumentCache(dir), doc);
+        assertEquals(0, entries().length);
+        assertEquals(parse(null, doc), parsed);
+
+        List<String> events = new ArrayList<String>();
+        InputSource is = new InputSource(new StringReader(DOC));
+        is.setSystemId(doc.toURI().toString());
+        new DocumentCache(dir).parse(newReader(), new EventLog(events), is);
+        assertEquals(0, entries().length);
+        assertFalse(events.isEmpty());
+    }
+
+    /**
+     * Builds sharing the directory, possibly at the same time,
+     * reuse each other's entries and never see a partial one.
+     */
+    public void testSharedDirectory() throws Exception {
+        final List<File> docs = new ArrayList<File>();
+        for (int i = 0; i < 20; i++)
+            docs.add(write("doc" + i + ".xml", DOC.replace("more", "more " + i)));
+        // the same content under another name is the same entry
+        docs.add(write("copy.xml", DOC));
+        docs.add(write("copy2.xml", DOC));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int run = 0; run < 4; run++) {
+                for (final File doc : docs) {
+                    results.add(executor.submit(new Callable<List<String>>() {
+                        public List<String> call() throws Exception {
+                            return parse(new DocumentCache(dir), doc);
+                        }
+                    }));
+                }
+            }
+            int i = 0;
+            for (Future<List<String>> r : results)
+                assertEquals(parse(null, docs.get(i++ % docs.size())), r.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(21, entries().length);
+        assertEquals(21, dir.listFiles().length - docs.size());
+    }
+
+    /**
+     * A forest built from the cache finds the same references, bindings and locations.
+     */
+    public void testForest() throws Exception {
+        File a = write("a.xsd", "<xs:schema " + XS + ">\n"
+            + "  <xs:include schemaLocation='b.xsd'/>\n"
+            + "  <xs:element name='a' type='xs:int'/>\n"
+            + "</xs:schema>");
+        File b = write("b.xsd", "<xs:schema " + XS + ">\n\n"
+            + "  <xs:element name='b' type='xs:int'/>\n"
+            + "</xs:schema>");
+        File xjb = write("b.xjb", "<jaxb:bindings xmlns:jaxb='http://java.sun.com/xml/ns/jaxb' version='2.0'>\n"
+            + "  <jaxb:bindings schemaLocation='b.xsd'/>\n"
+            + "</jaxb:bindings>");
+        File cacheDir = new File(dir, "cache");
+
+        DOMForest parsed = forest(cacheDir, a, xjb);
+        assertEquals(3, cacheDir.listFiles().length);
+        DOMForest replayed = forest(cacheDir, a, xjb);
+        assertEquals(3, cacheDir.listFiles().length);
+        DOMForest uncached = forest(null, a, xjb);
+
+        for (DOMForest f : new DOMForest[]{parsed, replayed}) {
+            assertEquals(uncached.getRootDocuments(), f.getRootDocuments());
+            assertEquals(3, f.listSystemIDs().length);
+            assertEquals(1, f.outerMostBindings.size());
+            assertEquals(uncached.outerMostBindings.iterator().next().getLocalName(),
+                f.outerMostBindings.iterator().next().getLocalName());
+
+            Element e = (Element) f.get(b.toURI().toString()).getDocumentElement().getElementsByTagNameNS("*", "element").item(0);
+            Locator loc = f.locatorTable.getStartLocation(e);
+            assertEquals(3, loc.getLineNumber());
+            assertEquals(b.toURI().toString(), loc.getSystemId());
+        }
+    }
+
+    private DOMForest forest(File cacheDir, File... roots) throws Exception {
+        Options opt = new Options();
+        opt.schemaCacheDir = cacheDir;
+        DOMForest forest = new DOMForest(new XMLSchemaInternalizationLogic(), opt);
+        ErrorReceiverFilter errors = new ErrorReceiverFilter();
+        forest.setErrorHandler(errors);
+        for (File root : roots) {
+            Document dom = forest.parse(root.toURI().toString(), true);
+            assertNotNull(dom);
+        }
+        assertFalse(errors.hadError());
+        return forest;
+    }
+
+    private File[] entries() {
+        return dir.listFiles(new FileFilter() {
+            public boolean accept(File f) {
+                return f.getName().endsWith(".sax");
+            }
+        });
+    }
+
+    private static XMLReader newReader() throws Exception {
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(true);
+        return spf.newSAXParser().getXMLReader();
+    }
+
+    /**
+     * Parses the file by its system ID, through the cache unless it's null.
+     */
+    private static List<String> parse(DocumentCache cache, File doc) throws Exception {
+        return parse(cache, doc, newReader());
+    }
+
+    private static List<String> parse(DocumentCache cache, File doc, XMLReader reader) throws Exception {
+        List<String> events = new ArrayList<String>();
+        EventLog log = new EventLog(events);
+        InputSource is = new InputSource(doc.toURI().toString());
+        if (cache != null) {
+            cache.parse(reader, log, is);
+        } else {
+            reader.setContentHandler(log);
+            reader.parse(is);
+        }
+        return events;
+    }
+
+    private File write(String name, String content) throws IOException {
+        File f = new File(dir, name);
+        OutputStream out = new FileOutputStream(f);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return f;
+    }
+
+    /**
+     * Counts the documents that are really parsed.
+     */
+    private static final class CountingReader extends XMLFilterImpl {
+        int parsed;
+
+        CountingReader() throws Exception {
+            super(newReader());
+        }
+
+        @Override
+        public void parse(InputSource input) throws SAXException, IOException {
+            parsed++;
+            super.parse(input);
+        }
+    }
+
+    /**
+     * Writes down the events with their locations. Adjacent text is merged,
+     * since parsers are free to split it.
+     */
+    private static final class EventLog extends DefaultHandler {
+        private final List<String> events;
+        private final StringBuilder text = new StringBuilder();
+        private Locator locator;
+
+        EventLog(List<String> events) {
+            this.events = events;
+        }
+
+        private void add(String event) {
+            flush();
+            events.add(event + " @" + locator.getLineNumber() + ":" + locator.getColumnNumber() + " " + locator.getSystemId());
+        }
+
+        private void flush() {
+            if (text.length() > 0) {
+                events.add("text " + text);
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startDocument() {
+            add("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            // the parser may have reset the locator by now
+            flush();
+            events.add("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            add("startPrefixMapping " + prefix + "=" + uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            add("endPrefixMapping " + prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            StringBuilder sb = new StringBuilder("startElement {" + uri + "}" + localName + " " + qName);
+            for (int i = 0; i < atts.getLength(); i++)
+                sb.append(' ').append('{').append(atts.getURI(i)).append('}').append(atts.getLocalName(i))
+                    .append('|').append(atts.getQName(i)).append('|').append(atts.getType(i))
+                    .append("='").append(atts.getValue(i)).append('\'');
+            add(sb.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            add("endElement {" + uri + "}" + localName + " " + qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            flush();
+            events.add("whitespace " + new String(ch, start, length));
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            add("processingInstruction " + target + " " + data);
+        }
+    }
+}
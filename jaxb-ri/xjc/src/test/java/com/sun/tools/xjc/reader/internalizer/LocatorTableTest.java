@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2018 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://oss.oracle.com/licenses/CDDL+GPL-1.1
+ * or LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.tools.xjc.reader.internalizer;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.LocatorImpl;
+
+import junit.framework.TestCase;
+
+public class LocatorTableTest extends TestCase {
+
+    private Document dom;
+
+    @Override
+    protected void setUp() throws Exception {
+        dom = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    }
+
+    private Element[] elements(int n) {
+        Element[] elements = new Element[n];
+        for (int i = 0; i < n; i++)
+            elements[i] = dom.createElement("e");
+        return elements;
+    }
+
+    private static Locator loc(String systemId, String publicId, int line, int column) {
+        LocatorImpl loc = new LocatorImpl();
+        loc.setSystemId(systemId);
+        loc.setPublicId(publicId);
+        loc.setLineNumber(line);
+        loc.setColumnNumber(column);
+        return loc;
+    }
+
+    private static void assertLocation(String systemId, String publicId, int line, int column, Locator loc) {
+        assertNotNull(loc);
+        assertEquals(systemId, loc.getSystemId());
+        assertEquals(publicId, loc.getPublicId());
+        assertEquals(line, loc.getLineNumber());
+        assertEquals(column, loc.getColumnNumber());
+    }
+
+    /**
+     * Enough elements to grow the hash table and the records many times.
+     */
+    public void testManyElements() {
+        LocatorTable table = new LocatorTable();
+        Element[] elements = elements(10000);
+        for (int i = 0; i < elements.length; i++) {
+            table.storeStartLocation(elements[i], loc("doc" + (i % 7), i % 2 == 0 ? null : "pub", i, i + 1));
+            if (i % 3 == 0)
+                table.storeEndLocation(elements[i], loc("doc" + (i % 7), null, i + 2, i + 3));
+        }
+        for (int i = 0; i < elements.length; i++) {
+            assertLocation("doc" + (i % 7), i % 2 == 0 ? null : "pub", i, i + 1, table.getStartLocation(elements[i]));
+            if (i % 3 == 0)
+                assertLocation("doc" + (i % 7), null, i + 2, i + 3, table.getEndLocation(elements[i]));
+            else
+                assertNull(table.getEndLocation(elements[i]));
+        }
+        assertNull(table.getStartLocation(dom.createElement("e")));
+    }
+
+    public void testMissingLocations() {
+        LocatorTable table = new LocatorTable();
+        Element[] elements = elements(3);
+        table.storeStartLocation(elements[0], null);
+        assertNull(table.getStartLocation(elements[0]));
+
+        // only the end is known
+        table.storeEndLocation(elements[1], loc(null, null, 1, 2));
+        assertNull(table.getStartLocation(elements[1]));
+        assertLocation(null, null, 1, 2, table.getEndLocation(elements[1]));
+
+        // a later location replaces the earlier one
+        table.storeStartLocation(elements[2], loc("a", null, 1, 1));
+        table.storeStartLocation(elements[2], loc("b", null, 2, 2));
+        assertLocation("b", null, 2, 2, table.getStartLocation(elements[2]));
+    }
+
+    /**
+     * Same system ID with a different public ID is a different document.
+     */
+    public void testSources() {
+        LocatorTable table = new LocatorTable();
+        Element[] elements = elements(4);
+        table.storeStartLocation(elements[0], loc("s", null, 1, 1));
+        table.storeStartLocation(elements[1], loc("s", "p", 2, 2));
+        table.storeStartLocation(elements[2], loc(null, "p", 3, 3));
+        table.storeStartLocation(elements[3], loc("s", null, 4, 4));
+        assertLocation("s", null, 1, 1, table.getStartLocation(elements[0]));
+        assertLocation("s", "p", 2, 2, table.getStartLocation(elements[1]));
+        assertLocation(null, "p", 3, 3, table.getStartLocation(elements[2]));
+        assertLocation("s", null, 4, 4, table.getStartLocation(elements[3]));
+    }
+
+    public void testAddAll() {
+        Element[] elements = elements(200);
+        LocatorTable a = new LocatorTable();
+        LocatorTable b = new LocatorTable();
+        for (int i = 0; i < 100; i++)
+            a.storeStartLocation(elements[i], loc("a", null, i, 0));
+        for (int i = 50; i < 200; i++) {
+            b.storeStartLocation(elements[i], loc("b" + (i % 3), null, i, 1));
+            if (i % 2 == 0)
+                b.storeEndLocation(elements[i], loc("b", null, i, 2));
+        }
+        a.addAll(b);
+        for (int i = 0; i < 200; i++) {
+            if (i < 50)
+                assertLocation("a", null, i, 0, a.getStartLocation(elements[i]));
+            else
+                assertLocation("b" + (i % 3), null, i, 1, a.getStartLocation(elements[i]));
+            if (i >= 50 && i % 2 == 0)
+                assertLocation("b", null, i, 2, a.getEndLocation(elements[i]));
+            else
+                assertNull(a.getEndLocation(elements[i]));
+        }
+        // the source table is left alone
+        assertNull(b.getStartLocation(elements[0]));
+    }
+}